@@ -37,8 +37,9 @@ public class FeignConfiguration {
 
   @Bean
   @ConditionalOnBean(DecorateRequestInterceptor.class)
-  public OrderedRequestInterceptor serializeContextOrderedRequestInterceptor() {
-    return new SerializeContextOrderedRequestInterceptor();
+  public OrderedRequestInterceptor serializeContextOrderedRequestInterceptor(
+      ContextProperties contextProperties) {
+    return new SerializeContextOrderedRequestInterceptor(contextProperties);
   }
 
   @Bean
@@ -19,16 +19,23 @@ package com.huaweicloud.common.adapters.feign;
 
 import org.springframework.core.Ordered;
 
+import com.huaweicloud.common.configration.dynamic.ContextProperties;
 import com.huaweicloud.common.context.InvocationContextHolder;
 
 import feign.RequestTemplate;
 
 public class SerializeContextOrderedRequestInterceptor implements OrderedRequestInterceptor {
+  private final ContextProperties contextProperties;
+
+  public SerializeContextOrderedRequestInterceptor(ContextProperties contextProperties) {
+    this.contextProperties = contextProperties;
+  }
 
   @Override
   public void apply(RequestTemplate requestTemplate) {
     requestTemplate.header(InvocationContextHolder.SERIALIZE_KEY,
-        InvocationContextHolder.serialize(InvocationContextHolder.getOrCreateInvocationContext()));
+        InvocationContextHolder.serialize(InvocationContextHolder.getOrCreateInvocationContext(),
+            contextProperties.isCompactEncoding()));
   }
 
   @Override
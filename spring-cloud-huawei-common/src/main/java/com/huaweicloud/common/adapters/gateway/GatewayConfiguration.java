@@ -27,6 +27,7 @@ import org.springframework.context.annotation.Configuration;
 
 import com.huaweicloud.common.configration.dynamic.ContextProperties;
 import com.huaweicloud.common.configration.dynamic.GovernanceProperties;
+import com.huaweicloud.common.metrics.InFlightRequests;
 import com.huaweicloud.common.metrics.InvocationMetrics;
 
 @Configuration
@@ -49,8 +50,8 @@ public class GatewayConfiguration {
 
   @Bean
   @ConditionalOnBean(DecorateGlobalFilter.class)
-  public PreGlobalFilter serializeContextPreGlobalFilter() {
-    return new SerializeContextPreGlobalFilter();
+  public PreGlobalFilter serializeContextPreGlobalFilter(ContextProperties contextProperties) {
+    return new SerializeContextPreGlobalFilter(contextProperties);
   }
 
   @Bean
@@ -65,4 +66,10 @@ public class GatewayConfiguration {
       GovernanceProperties governanceProperties) {
     return new InvocationMetricsWebFilter(invocationMetrics, governanceProperties);
   }
+
+  @Bean
+  @ConditionalOnBean(DecorateGlobalFilter.class)
+  public InFlightRequestsWebFilter inFlightRequestsWebFilter(InFlightRequests inFlightRequests) {
+    return new InFlightRequestsWebFilter(inFlightRequests);
+  }
 }
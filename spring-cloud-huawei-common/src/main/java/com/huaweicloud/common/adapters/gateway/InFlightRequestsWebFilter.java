@@ -0,0 +1,48 @@
+/*
+
+ * Copyright (C) 2020-2022 Huawei Technologies Co., Ltd. All rights reserved.
+
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.huaweicloud.common.adapters.gateway;
+
+import org.springframework.boot.web.reactive.filter.OrderedWebFilter;
+import org.springframework.core.Ordered;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilterChain;
+
+import com.huaweicloud.common.metrics.InFlightRequests;
+
+import reactor.core.publisher.Mono;
+
+public class InFlightRequestsWebFilter implements OrderedWebFilter {
+  private final InFlightRequests inFlightRequests;
+
+  public InFlightRequestsWebFilter(InFlightRequests inFlightRequests) {
+    this.inFlightRequests = inFlightRequests;
+  }
+
+  @Override
+  public int getOrder() {
+    return Ordered.HIGHEST_PRECEDENCE;
+  }
+
+  @Override
+  public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+    return Mono.defer(() -> {
+      inFlightRequests.inboundStarted();
+      return chain.filter(exchange).doFinally(signal -> inFlightRequests.inboundFinished());
+    });
+  }
+}
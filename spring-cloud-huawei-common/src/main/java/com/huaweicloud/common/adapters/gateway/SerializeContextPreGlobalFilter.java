@@ -20,13 +20,21 @@ package com.huaweicloud.common.adapters.gateway;
 import org.springframework.core.Ordered;
 import org.springframework.web.server.ServerWebExchange;
 
+import com.huaweicloud.common.configration.dynamic.ContextProperties;
 import com.huaweicloud.common.context.InvocationContextHolder;
 
 public class SerializeContextPreGlobalFilter implements PreGlobalFilter {
+  private final ContextProperties contextProperties;
+
+  public SerializeContextPreGlobalFilter(ContextProperties contextProperties) {
+    this.contextProperties = contextProperties;
+  }
+
   @Override
   public void process(ServerWebExchange exchange) {
     exchange.mutate().request(r -> r.header(InvocationContextHolder.SERIALIZE_KEY,
-        InvocationContextHolder.serialize(InvocationContextHolder.getOrCreateInvocationContext())));
+        InvocationContextHolder.serialize(InvocationContextHolder.getOrCreateInvocationContext(),
+            contextProperties.isCompactEncoding())));
   }
 
   @Override
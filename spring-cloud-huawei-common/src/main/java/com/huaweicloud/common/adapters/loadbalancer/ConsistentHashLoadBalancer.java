@@ -0,0 +1,207 @@
+/*
+
+ * Copyright (C) 2020-2022 Huawei Technologies Co., Ltd. All rights reserved.
+
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.huaweicloud.common.adapters.loadbalancer;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.DefaultRequestContext;
+import org.springframework.cloud.client.loadbalancer.DefaultResponse;
+import org.springframework.cloud.client.loadbalancer.EmptyResponse;
+import org.springframework.cloud.client.loadbalancer.Request;
+import org.springframework.cloud.client.loadbalancer.RequestData;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.loadbalancer.core.NoopServiceInstanceListSupplier;
+import org.springframework.cloud.loadbalancer.core.ReactorServiceInstanceLoadBalancer;
+import org.springframework.cloud.loadbalancer.core.SelectedInstanceCallback;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import org.springframework.http.HttpHeaders;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+import com.huaweicloud.common.configration.dynamic.LoadBalancerProperties;
+import com.huaweicloud.common.context.InvocationContextHolder;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * Consistent hash on a ring with virtual nodes, requests of the same hash key go to the same instance, and
+ * only keys of the added or removed instances move when instances change.
+ *
+ * Hash key is read from request header, or invocation context if header not present. Requests without hash
+ * key choose a random instance. Filters like zone aware and canary give a few lists for a service, so rings are
+ * kept for each list, first by identity and then by content, and built again only when instances change.
+ */
+public class ConsistentHashLoadBalancer implements ReactorServiceInstanceLoadBalancer {
+  private static final Logger LOGGER = LoggerFactory.getLogger(ConsistentHashLoadBalancer.class);
+
+  private static final int VIRTUAL_NODES = 160;
+
+  private static final HashFunction HASH = Hashing.murmur3_32();
+
+  private static final int MAX_RINGS = 64;
+
+  private final String serviceId;
+
+  private final ObjectProvider<ServiceInstanceListSupplier> serviceInstanceListSupplierProvider;
+
+  private final LoadBalancerProperties loadBalancerProperties;
+
+  // weak keys are compared by identity
+  private final Cache<List<ServiceInstance>, Ring> rings = CacheBuilder.newBuilder()
+      .weakKeys().maximumSize(MAX_RINGS).build();
+
+  // lists created for each request, e.g. by outlier ejection, are equal but not the same
+  private final Cache<List<ServiceInstance>, Ring> ringsByContent = CacheBuilder.newBuilder()
+      .maximumSize(MAX_RINGS).build();
+
+  static final class Ring {
+    final List<ServiceInstance> instances;
+
+    final int[] hashes;
+
+    final ServiceInstance[] nodes;
+
+    Ring(List<ServiceInstance> instances) {
+      this.instances = instances;
+      TreeMap<Integer, ServiceInstance> points = new TreeMap<>();
+      for (ServiceInstance instance : instances) {
+        String node = nodeName(instance);
+        for (int i = 0; i < VIRTUAL_NODES; i++) {
+          points.putIfAbsent(hash(node + "#" + i), instance);
+        }
+      }
+      this.hashes = new int[points.size()];
+      this.nodes = new ServiceInstance[points.size()];
+      int index = 0;
+      for (Map.Entry<Integer, ServiceInstance> entry : points.entrySet()) {
+        hashes[index] = entry.getKey();
+        nodes[index] = entry.getValue();
+        index++;
+      }
+    }
+
+    ServiceInstance get(String key) {
+      int index = Arrays.binarySearch(hashes, hash(key));
+      if (index < 0) {
+        // first node clockwise
+        index = -index - 1;
+      }
+      return nodes[index == hashes.length ? 0 : index];
+    }
+
+    private static String nodeName(ServiceInstance instance) {
+      // instance id changes when restarted, address is more stable for caches
+      return instance.getHost() + ":" + instance.getPort();
+    }
+
+    private static int hash(String value) {
+      return HASH.hashString(value, StandardCharsets.UTF_8).asInt();
+    }
+  }
+
+  public ConsistentHashLoadBalancer(ObjectProvider<ServiceInstanceListSupplier> serviceInstanceListSupplierProvider,
+      String serviceId, LoadBalancerProperties loadBalancerProperties) {
+    this.serviceId = serviceId;
+    this.serviceInstanceListSupplierProvider = serviceInstanceListSupplierProvider;
+    this.loadBalancerProperties = loadBalancerProperties;
+  }
+
+  @Override
+  @SuppressWarnings("rawtypes")
+  public Mono<Response<ServiceInstance>> choose(Request request) {
+    String hashKey = hashKey(request);
+    ServiceInstanceListSupplier supplier = serviceInstanceListSupplierProvider
+        .getIfAvailable(NoopServiceInstanceListSupplier::new);
+    return supplier.get(request).next()
+        .map(serviceInstances -> processInstanceResponse(supplier, serviceInstances, hashKey));
+  }
+
+  @SuppressWarnings("rawtypes")
+  private String hashKey(Request request) {
+    String name = loadBalancerProperties.getHashKey();
+    if (StringUtils.isEmpty(name)) {
+      return null;
+    }
+    HttpHeaders headers = request == null ? null : headers(request.getContext());
+    String value = headers == null ? null : headers.getFirst(name);
+    return value != null ? value : InvocationContextHolder.getOrCreateInvocationContext().getContext(name);
+  }
+
+  private static HttpHeaders headers(Object context) {
+    if (!(context instanceof DefaultRequestContext)) {
+      return null;
+    }
+    Object clientRequest = ((DefaultRequestContext) context).getClientRequest();
+    if (clientRequest instanceof DecorateLoadBalancerRequest) {
+      // rest template
+      DecorateLoadBalancerRequest loadBalancerRequest = (DecorateLoadBalancerRequest) clientRequest;
+      return loadBalancerRequest.getRequest() == null ? null : loadBalancerRequest.getRequest().getHeaders();
+    }
+    if (clientRequest instanceof RequestData) {
+      // feign and gateway
+      return ((RequestData) clientRequest).getHeaders();
+    }
+    return null;
+  }
+
+  private Response<ServiceInstance> processInstanceResponse(ServiceInstanceListSupplier supplier,
+      List<ServiceInstance> serviceInstances, String hashKey) {
+    Response<ServiceInstance> serviceInstanceResponse = getInstanceResponse(serviceInstances, hashKey);
+    if (supplier instanceof SelectedInstanceCallback && serviceInstanceResponse.hasServer()) {
+      ((SelectedInstanceCallback) supplier).selectedServiceInstance(serviceInstanceResponse.getServer());
+    }
+    return serviceInstanceResponse;
+  }
+
+  private Response<ServiceInstance> getInstanceResponse(List<ServiceInstance> instances, String hashKey) {
+    if (instances.isEmpty()) {
+      LOGGER.warn("No servers available for service: {}", serviceId);
+      return new EmptyResponse();
+    }
+    if (hashKey == null) {
+      return new DefaultResponse(instances.get(ThreadLocalRandom.current().nextInt(instances.size())));
+    }
+    return new DefaultResponse(getRing(instances).get(hashKey));
+  }
+
+  Ring getRing(List<ServiceInstance> instances) {
+    Ring current = rings.getIfPresent(instances);
+    if (current == null) {
+      current = ringsByContent.getIfPresent(instances);
+      if (current == null) {
+        current = new Ring(new ArrayList<>(instances));
+        ringsByContent.put(current.instances, current);
+      }
+      rings.put(instances, current);
+    }
+    return current;
+  }
+}
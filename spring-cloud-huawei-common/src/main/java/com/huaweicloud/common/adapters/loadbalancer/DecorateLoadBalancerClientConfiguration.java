@@ -64,11 +64,12 @@ public class DecorateLoadBalancerClientConfiguration {
 
   @Bean
   public ReactorLoadBalancer<ServiceInstance> reactorServiceInstanceLoadBalancer(Environment environment,
-      LoadBalancerClientFactory loadBalancerClientFactory, LoadBalancerProperties loadBalancerProperties) {
+      LoadBalancerClientFactory loadBalancerClientFactory, LoadBalancerProperties loadBalancerProperties,
+      ServiceInstanceStatistics serviceInstanceStatistics) {
     String name = environment.getProperty(LoadBalancerClientFactory.PROPERTY_NAME);
     return new RetryAwareLoadBalancer(
         loadBalancerClientFactory.getLazyProvider(
-            name, ServiceInstanceListSupplier.class), name, loadBalancerProperties);
+            name, ServiceInstanceListSupplier.class), name, loadBalancerProperties, serviceInstanceStatistics);
   }
 
   @Configuration(proxyBeanMethods = false)
@@ -20,6 +20,8 @@ package com.huaweicloud.common.adapters.loadbalancer;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import javax.annotation.PostConstruct;
 
@@ -33,9 +35,43 @@ import reactor.core.publisher.Flux;
 
 @SuppressWarnings({"rawtype", "unchecked"})
 public class DecorateServiceInstanceListSupplier implements ServiceInstanceListSupplier {
+  // results of different routing keys, cleared when too many, e.g. keys of user id.
+  private static final int MAX_CACHED_RESULTS = 256;
 
   private List<ServiceInstanceFilter> filters;
 
+  // result of each filter, by its input list and its key computed on the input
+  private final Map<StageKey, List<ServiceInstance>> filteredInstances = new ConcurrentHashMap<>();
+
+  private static final class StageKey {
+    final int stage;
+
+    // instance list is replaced when instances changed, compared by identity
+    final List<ServiceInstance> instances;
+
+    final Object key;
+
+    StageKey(int stage, List<ServiceInstance> instances, Object key) {
+      this.stage = stage;
+      this.instances = instances;
+      this.key = key;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (!(o instanceof StageKey)) {
+        return false;
+      }
+      StageKey other = (StageKey) o;
+      return stage == other.stage && instances == other.instances && key.equals(other.key);
+    }
+
+    @Override
+    public int hashCode() {
+      return (stage * 31 + System.identityHashCode(instances)) * 31 + key.hashCode();
+    }
+  }
+
   private final ServiceInstanceListSupplier delegate;
 
   public DecorateServiceInstanceListSupplier(ServiceInstanceListSupplier delegate) {
@@ -77,10 +113,30 @@ public class DecorateServiceInstanceListSupplier implements ServiceInstanceListS
       return instances;
     }
 
-    List<ServiceInstance> filteredInstances = instances;
-    for (ServiceInstanceFilter instanceFilter : filters) {
-      filteredInstances = instanceFilter.filter(this, filteredInstances, request);
+    List<ServiceInstance> result = instances;
+    for (int i = 0; i < filters.size(); i++) {
+      result = filter(i, filters.get(i), result, request);
+    }
+    return result;
+  }
+
+  // key of each filter is computed on its own input, filters with null keys, e.g. random, run every time
+  private List<ServiceInstance> filter(int stage, ServiceInstanceFilter instanceFilter,
+      List<ServiceInstance> instances, Request<?> request) {
+    Object key = instanceFilter.cacheKey(this, instances, request);
+    if (key == null) {
+      return instanceFilter.filter(this, instances, request);
+    }
+    StageKey stageKey = new StageKey(stage, instances, key);
+    List<ServiceInstance> cached = filteredInstances.get(stageKey);
+    if (cached != null) {
+      return cached;
+    }
+    List<ServiceInstance> result = instanceFilter.filter(this, instances, request);
+    if (filteredInstances.size() >= MAX_CACHED_RESULTS) {
+      filteredInstances.clear();
     }
-    return filteredInstances;
+    filteredInstances.put(stageKey, result);
+    return result;
   }
 }
@@ -0,0 +1,58 @@
+/*
+
+ * Copyright (C) 2020-2022 Huawei Technologies Co., Ltd. All rights reserved.
+
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.huaweicloud.common.adapters.loadbalancer;
+
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.CompletionContext;
+import org.springframework.cloud.client.loadbalancer.CompletionContext.Status;
+import org.springframework.cloud.client.loadbalancer.LoadBalancerLifecycle;
+import org.springframework.cloud.client.loadbalancer.Request;
+import org.springframework.cloud.client.loadbalancer.Response;
+
+import com.huaweicloud.common.metrics.InFlightRequests;
+
+/**
+ * Count outbound requests of RestTemplate, Feign and gateway, all of them call load balancer lifecycle.
+ *
+ * Requests are counted when an instance is chosen and the request is sent, onStart is not always followed by
+ * onComplete, e.g. choosing is cancelled, and onComplete of DISCARD is called when no instance is chosen.
+ */
+public class InFlightLoadBalancerLifecycle implements LoadBalancerLifecycle<Object, Object, ServiceInstance> {
+  private final InFlightRequests inFlightRequests;
+
+  public InFlightLoadBalancerLifecycle(InFlightRequests inFlightRequests) {
+    this.inFlightRequests = inFlightRequests;
+  }
+
+  @Override
+  public void onStart(Request<Object> request) {
+
+  }
+
+  @Override
+  public void onStartRequest(Request<Object> request, Response<ServiceInstance> lbResponse) {
+    inFlightRequests.outboundStarted();
+  }
+
+  @Override
+  public void onComplete(CompletionContext<Object, ServiceInstance, Object> completionContext) {
+    if (completionContext.status() != Status.DISCARD) {
+      inFlightRequests.outboundFinished();
+    }
+  }
+}
@@ -20,16 +20,25 @@ package com.huaweicloud.common.adapters.loadbalancer;
 import java.util.Collections;
 import java.util.List;
 
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.cloud.client.loadbalancer.LoadBalancerClient;
 import org.springframework.cloud.client.loadbalancer.LoadBalancerRequestFactory;
 import org.springframework.cloud.client.loadbalancer.LoadBalancerRequestTransformer;
+import org.springframework.cache.Cache;
 import org.springframework.cloud.loadbalancer.annotation.LoadBalancerClients;
+import org.springframework.cloud.loadbalancer.cache.LoadBalancerCacheManager;
+import org.springframework.cloud.loadbalancer.core.CachingServiceInstanceListSupplier;
+import org.springframework.context.ApplicationListener;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import com.huaweicloud.common.configration.dynamic.LoadBalancerProperties;
+import com.huaweicloud.common.event.InstancesChangedEvent;
+import com.huaweicloud.common.metrics.InFlightRequests;
+
 @Configuration
 @ConditionalOnProperty(value = "spring.cloud.servicecomb.loadbalancer.enabled",
     havingValue = "true", matchIfMissing = true)
@@ -47,4 +56,38 @@ public class LoadbalancerConfiguration {
   public LoadBalancerRequestFactory loadBalancerRequestFactory(LoadBalancerClient loadBalancerClient) {
     return new DecorateLoadBalancerRequestFactory(loadBalancerClient, this.transformers);
   }
+
+  @Bean
+  public InFlightLoadBalancerLifecycle inFlightLoadBalancerLifecycle(InFlightRequests inFlightRequests) {
+    return new InFlightLoadBalancerLifecycle(inFlightRequests);
+  }
+
+  @Bean
+  public ServiceInstanceStatistics serviceInstanceStatistics(LoadBalancerProperties loadBalancerProperties) {
+    return new ServiceInstanceStatistics(loadBalancerProperties);
+  }
+
+  @Bean
+  public ServiceInstanceStatisticsLifecycle serviceInstanceStatisticsLifecycle(
+      ServiceInstanceStatistics serviceInstanceStatistics) {
+    return new ServiceInstanceStatisticsLifecycle(serviceInstanceStatistics);
+  }
+
+  @Bean
+  public OutlierEjectionServiceInstanceFilter outlierEjectionServiceInstanceFilter(
+      ServiceInstanceStatistics serviceInstanceStatistics, LoadBalancerProperties loadBalancerProperties) {
+    return new OutlierEjectionServiceInstanceFilter(serviceInstanceStatistics, loadBalancerProperties);
+  }
+
+  // evict cached instances of the changed services only, other services keep their cache.
+  @Bean
+  public ApplicationListener<InstancesChangedEvent> instancesChangedCacheEvictListener(
+      ObjectProvider<LoadBalancerCacheManager> cacheManager) {
+    return event -> cacheManager.ifAvailable(manager -> {
+      Cache cache = manager.getCache(CachingServiceInstanceListSupplier.SERVICE_INSTANCE_CACHE_NAME);
+      if (cache != null) {
+        event.getServiceIds().forEach(cache::evict);
+      }
+    });
+  }
 }
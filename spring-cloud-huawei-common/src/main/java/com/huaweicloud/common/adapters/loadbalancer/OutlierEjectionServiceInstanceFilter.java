@@ -0,0 +1,115 @@
+/*
+
+  * Copyright (C) 2020-2022 Huawei Technologies Co., Ltd. All rights reserved.
+
+  * Licensed under the Apache License, Version 2.0 (the "License");
+  * you may not use this file except in compliance with the License.
+  * You may obtain a copy of the License at
+  *
+  *     http://www.apache.org/licenses/LICENSE-2.0
+  *
+  * Unless required by applicable law or agreed to in writing, software
+  * distributed under the License is distributed on an "AS IS" BASIS,
+  * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  * See the License for the specific language governing permissions and
+  * limitations under the License.
+  */
+
+package com.huaweicloud.common.adapters.loadbalancer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.Request;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+
+import com.huaweicloud.common.configration.dynamic.LoadBalancerProperties;
+
+/**
+ * Remove instances ejected by outlier detection of ServiceInstanceStatistics, at most maxEjectionPercent of
+ * instances are removed.
+ */
+public class OutlierEjectionServiceInstanceFilter implements ServiceInstanceFilter {
+  private static final long DISABLED = -1;
+
+  private final ServiceInstanceStatistics serviceInstanceStatistics;
+
+  private final LoadBalancerProperties loadBalancerProperties;
+
+  // result of the latest instance list of each service, so that filters after this get the same list
+  private final Map<String, EjectedInstances> ejectedInstances = new ConcurrentHashMap<>();
+
+  private static final class EjectedInstances {
+    final List<ServiceInstance> instances;
+
+    final long version;
+
+    final List<ServiceInstance> result;
+
+    EjectedInstances(List<ServiceInstance> instances, long version, List<ServiceInstance> result) {
+      this.instances = instances;
+      this.version = version;
+      this.result = result;
+    }
+  }
+
+  public OutlierEjectionServiceInstanceFilter(ServiceInstanceStatistics serviceInstanceStatistics,
+      LoadBalancerProperties loadBalancerProperties) {
+    this.serviceInstanceStatistics = serviceInstanceStatistics;
+    this.loadBalancerProperties = loadBalancerProperties;
+  }
+
+  @Override
+  public List<ServiceInstance> filter(ServiceInstanceListSupplier supplier, List<ServiceInstance> instances,
+      Request<?> request) {
+    if (!loadBalancerProperties.getOutlierDetection().isEnabled() || instances.isEmpty()) {
+      return instances;
+    }
+    long version = serviceInstanceStatistics.getEjectionVersion();
+    if (!serviceInstanceStatistics.hasEjected()) {
+      return instances;
+    }
+
+    String serviceId = instances.get(0).getServiceId();
+    EjectedInstances current = ejectedInstances.get(serviceId);
+    if (current != null && current.instances == instances && current.version == version) {
+      return current.result;
+    }
+    current = new EjectedInstances(instances, version, eject(instances));
+    ejectedInstances.put(serviceId, current);
+    return current.result;
+  }
+
+  private List<ServiceInstance> eject(List<ServiceInstance> instances) {
+    int maxEjected = instances.size() * loadBalancerProperties.getOutlierDetection().getMaxEjectionPercent() / 100;
+    List<ServiceInstance> result = new ArrayList<>(instances.size());
+    int ejected = 0;
+    for (ServiceInstance instance : instances) {
+      if (ejected < maxEjected && serviceInstanceStatistics.isEjected(instance)) {
+        ejected++;
+        continue;
+      }
+      result.add(instance);
+    }
+    return ejected == 0 ? instances : result;
+  }
+
+  // result changes only when instances ejected or returned
+  @Override
+  public Object cacheKey(ServiceInstanceListSupplier supplier, List<ServiceInstance> instances,
+      Request<?> request) {
+    if (!loadBalancerProperties.getOutlierDetection().isEnabled()) {
+      return DISABLED;
+    }
+    return serviceInstanceStatistics.getEjectionVersion();
+  }
+
+  @Override
+  public int getOrder() {
+    // after zone aware filter, which counts ejected instances as unhealthy so that zones spill over
+    return -3;
+  }
+}
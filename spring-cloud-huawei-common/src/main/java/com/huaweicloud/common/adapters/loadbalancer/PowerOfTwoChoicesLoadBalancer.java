@@ -0,0 +1,102 @@
+/*
+
+ * Copyright (C) 2020-2022 Huawei Technologies Co., Ltd. All rights reserved.
+
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.huaweicloud.common.adapters.loadbalancer;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.ToDoubleFunction;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.DefaultResponse;
+import org.springframework.cloud.client.loadbalancer.EmptyResponse;
+import org.springframework.cloud.client.loadbalancer.Request;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.loadbalancer.core.NoopServiceInstanceListSupplier;
+import org.springframework.cloud.loadbalancer.core.ReactorServiceInstanceLoadBalancer;
+import org.springframework.cloud.loadbalancer.core.SelectedInstanceCallback;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+
+import com.huaweicloud.common.adapters.loadbalancer.ServiceInstanceStatistics.InstanceStatistics;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * Power of two choices: sample two instances randomly and choose the one with lower cost, e.g. fewer
+ * outstanding requests, or lower peak EWMA latency multiplied by outstanding requests.
+ */
+public class PowerOfTwoChoicesLoadBalancer implements ReactorServiceInstanceLoadBalancer {
+  private static final Logger LOGGER = LoggerFactory.getLogger(PowerOfTwoChoicesLoadBalancer.class);
+
+  private final String serviceId;
+
+  private final ObjectProvider<ServiceInstanceListSupplier> serviceInstanceListSupplierProvider;
+
+  private final ServiceInstanceStatistics serviceInstanceStatistics;
+
+  private final ToDoubleFunction<InstanceStatistics> cost;
+
+  public PowerOfTwoChoicesLoadBalancer(ObjectProvider<ServiceInstanceListSupplier> serviceInstanceListSupplierProvider,
+      String serviceId, ServiceInstanceStatistics serviceInstanceStatistics, ToDoubleFunction<InstanceStatistics> cost) {
+    this.serviceId = serviceId;
+    this.serviceInstanceListSupplierProvider = serviceInstanceListSupplierProvider;
+    this.serviceInstanceStatistics = serviceInstanceStatistics;
+    this.cost = cost;
+  }
+
+  @Override
+  @SuppressWarnings("rawtypes")
+  public Mono<Response<ServiceInstance>> choose(Request request) {
+    ServiceInstanceListSupplier supplier = serviceInstanceListSupplierProvider
+        .getIfAvailable(NoopServiceInstanceListSupplier::new);
+    return supplier.get(request).next()
+        .map(serviceInstances -> processInstanceResponse(supplier, serviceInstances));
+  }
+
+  private Response<ServiceInstance> processInstanceResponse(ServiceInstanceListSupplier supplier,
+      List<ServiceInstance> serviceInstances) {
+    Response<ServiceInstance> serviceInstanceResponse = getInstanceResponse(serviceInstances);
+    if (supplier instanceof SelectedInstanceCallback && serviceInstanceResponse.hasServer()) {
+      ((SelectedInstanceCallback) supplier).selectedServiceInstance(serviceInstanceResponse.getServer());
+    }
+    return serviceInstanceResponse;
+  }
+
+  private Response<ServiceInstance> getInstanceResponse(List<ServiceInstance> instances) {
+    if (instances.isEmpty()) {
+      LOGGER.warn("No servers available for service: {}", serviceId);
+      return new EmptyResponse();
+    }
+    if (instances.size() == 1) {
+      return new DefaultResponse(instances.get(0));
+    }
+    ThreadLocalRandom random = ThreadLocalRandom.current();
+    int first = random.nextInt(instances.size());
+    int second = random.nextInt(instances.size() - 1);
+    if (second >= first) {
+      second++;
+    }
+    ServiceInstance a = instances.get(first);
+    ServiceInstance b = instances.get(second);
+    double costA = cost.applyAsDouble(serviceInstanceStatistics.get(a));
+    double costB = cost.applyAsDouble(serviceInstanceStatistics.get(b));
+    return new DefaultResponse(costA <= costB ? a : b);
+  }
+}
@@ -17,9 +17,12 @@
 
 package com.huaweicloud.common.adapters.loadbalancer;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 
+import org.springframework.beans.BeansException;
 import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.cloud.client.ServiceInstance;
 import org.springframework.cloud.client.loadbalancer.DefaultResponse;
@@ -28,12 +31,15 @@ import org.springframework.cloud.client.loadbalancer.Response;
 import org.springframework.cloud.loadbalancer.core.RandomLoadBalancer;
 import org.springframework.cloud.loadbalancer.core.ReactorServiceInstanceLoadBalancer;
 import org.springframework.cloud.loadbalancer.core.RoundRobinLoadBalancer;
+import org.springframework.cloud.loadbalancer.core.SelectedInstanceCallback;
 import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
 
+import com.huaweicloud.common.adapters.loadbalancer.ServiceInstanceStatistics.InstanceStatistics;
 import com.huaweicloud.common.configration.dynamic.LoadBalancerProperties;
 import com.huaweicloud.common.context.InvocationContext;
 import com.huaweicloud.common.context.InvocationContextHolder;
 
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 /**
@@ -46,13 +52,17 @@ public class RetryAwareLoadBalancer implements ReactorServiceInstanceLoadBalance
 
   private final LoadBalancerProperties loadBalancerProperties;
 
+  private final ServiceInstanceStatistics serviceInstanceStatistics;
+
   private final Map<String, ReactorServiceInstanceLoadBalancer> loadBalancers = new ConcurrentHashMap<>();
 
   public RetryAwareLoadBalancer(ObjectProvider<ServiceInstanceListSupplier> serviceInstanceListSupplierProvider,
-      String serviceId, LoadBalancerProperties loadBalancerProperties) {
-    this.serviceInstanceListSupplierProvider = serviceInstanceListSupplierProvider;
+      String serviceId, LoadBalancerProperties loadBalancerProperties,
+      ServiceInstanceStatistics serviceInstanceStatistics) {
+    this.serviceInstanceListSupplierProvider = new ExcludingSupplierProvider(serviceInstanceListSupplierProvider);
     this.serviceId = serviceId;
     this.loadBalancerProperties = loadBalancerProperties;
+    this.serviceInstanceStatistics = serviceInstanceStatistics;
   }
 
   @Override
@@ -61,14 +71,7 @@ public class RetryAwareLoadBalancer implements ReactorServiceInstanceLoadBalance
     InvocationContext context = InvocationContextHolder.getOrCreateInvocationContext();
     if (context.getLocalContext(RetryContext.RETRY_CONTEXT) == null) {
       // gateway do not use RetryContext
-      ReactorServiceInstanceLoadBalancer loadBalancer = loadBalancers.computeIfAbsent(loadBalancerProperties.getRule(),
-          key -> {
-            if (LoadBalancerProperties.RULE_RANDOM.equals(key)) {
-              return new RandomLoadBalancer(this.serviceInstanceListSupplierProvider, this.serviceId);
-            } else {
-              return new RoundRobinLoadBalancer(this.serviceInstanceListSupplierProvider, this.serviceId);
-            }
-          });
+      ReactorServiceInstanceLoadBalancer loadBalancer = getLoadBalancer();
       return loadBalancer.choose(request);
     }
 
@@ -79,14 +82,126 @@ public class RetryAwareLoadBalancer implements ReactorServiceInstanceLoadBalance
       return Mono.just(new DefaultResponse(retryContext.getLastServer()));
     }
 
-    ReactorServiceInstanceLoadBalancer loadBalancer = loadBalancers.computeIfAbsent(loadBalancerProperties.getRule(),
-        key -> {
-          if (LoadBalancerProperties.RULE_RANDOM.equals(key)) {
-            return new RandomLoadBalancer(this.serviceInstanceListSupplierProvider, this.serviceId);
-          } else {
-            return new RoundRobinLoadBalancer(this.serviceInstanceListSupplierProvider, this.serviceId);
-          }
-        });
-    return loadBalancer.choose(request).doOnSuccess(r -> retryContext.setLastServer(r.getServer()));
+    // excluded server is removed from instances by ExcludingSupplierProvider before the rule chooses
+    return getLoadBalancer().choose(request).doOnSuccess(r -> retryContext.setLastServer(r.getServer()));
+  }
+
+  private ReactorServiceInstanceLoadBalancer getLoadBalancer() {
+    return loadBalancers.computeIfAbsent(loadBalancerProperties.getRule(serviceId), this::createLoadBalancer);
+  }
+
+  private ReactorServiceInstanceLoadBalancer createLoadBalancer(String rule) {
+    if (LoadBalancerProperties.RULE_RANDOM.equals(rule)) {
+      return new RandomLoadBalancer(this.serviceInstanceListSupplierProvider, this.serviceId);
+    }
+    if (LoadBalancerProperties.RULE_P2C.equals(rule)) {
+      return new PowerOfTwoChoicesLoadBalancer(this.serviceInstanceListSupplierProvider, this.serviceId,
+          this.serviceInstanceStatistics, InstanceStatistics::getOutstandingRequests);
+    }
+    if (LoadBalancerProperties.RULE_PEAK_EWMA.equals(rule)) {
+      return new PowerOfTwoChoicesLoadBalancer(this.serviceInstanceListSupplierProvider, this.serviceId,
+          this.serviceInstanceStatistics, InstanceStatistics::getPeakEwmaCost);
+    }
+    if (LoadBalancerProperties.RULE_WEIGHTED_ROUND_ROBIN.equals(rule)) {
+      return new WeightedRoundRobinLoadBalancer(this.serviceInstanceListSupplierProvider, this.serviceId,
+          this.loadBalancerProperties);
+    }
+    if (LoadBalancerProperties.RULE_CONSISTENT_HASH.equals(rule)) {
+      return new ConsistentHashLoadBalancer(this.serviceInstanceListSupplierProvider, this.serviceId,
+          this.loadBalancerProperties);
+    }
+    return new RoundRobinLoadBalancer(this.serviceInstanceListSupplierProvider, this.serviceId);
+  }
+
+  /**
+   * remove the server excluded by retry context, e.g. instance of the primary request of hedged requests, so that
+   * rules like consistent hash, random and power of two choices do not choose it again. Instances are not changed
+   * when the excluded server is the only one. Suppliers are only wrapped when a server is excluded, rules get the
+   * supplier in the calling thread for every request.
+   */
+  static final class ExcludingSupplierProvider implements ObjectProvider<ServiceInstanceListSupplier> {
+    private final ObjectProvider<ServiceInstanceListSupplier> delegate;
+
+    ExcludingSupplierProvider(ObjectProvider<ServiceInstanceListSupplier> delegate) {
+      this.delegate = delegate;
+    }
+
+    @Override
+    public ServiceInstanceListSupplier getObject(Object... args) throws BeansException {
+      return wrap(delegate.getObject(args));
+    }
+
+    @Override
+    public ServiceInstanceListSupplier getIfAvailable() throws BeansException {
+      return wrap(delegate.getIfAvailable());
+    }
+
+    @Override
+    public ServiceInstanceListSupplier getIfUnique() throws BeansException {
+      return wrap(delegate.getIfUnique());
+    }
+
+    @Override
+    public ServiceInstanceListSupplier getObject() throws BeansException {
+      return wrap(delegate.getObject());
+    }
+
+    private static ServiceInstanceListSupplier wrap(ServiceInstanceListSupplier supplier) {
+      if (supplier == null) {
+        return null;
+      }
+      // invocation context is thread local
+      RetryContext retryContext = InvocationContextHolder.getOrCreateInvocationContext()
+          .getLocalContext(RetryContext.RETRY_CONTEXT);
+      ServiceInstance excluded = retryContext == null ? null : retryContext.getExcludedServer();
+      if (excluded == null || excluded.getInstanceId() == null) {
+        return supplier;
+      }
+      return new ExcludingSupplier(supplier, excluded.getInstanceId());
+    }
+  }
+
+  static final class ExcludingSupplier implements ServiceInstanceListSupplier, SelectedInstanceCallback {
+    private final ServiceInstanceListSupplier delegate;
+
+    private final String excludedId;
+
+    ExcludingSupplier(ServiceInstanceListSupplier delegate, String excludedId) {
+      this.delegate = delegate;
+      this.excludedId = excludedId;
+    }
+
+    @Override
+    public String getServiceId() {
+      return delegate.getServiceId();
+    }
+
+    @Override
+    public Flux<List<ServiceInstance>> get() {
+      return delegate.get().map(instances -> exclude(instances, excludedId));
+    }
+
+    @Override
+    @SuppressWarnings("rawtypes")
+    public Flux<List<ServiceInstance>> get(Request request) {
+      return delegate.get(request).map(instances -> exclude(instances, excludedId));
+    }
+
+    @Override
+    public void selectedServiceInstance(ServiceInstance serviceInstance) {
+      if (delegate instanceof SelectedInstanceCallback) {
+        ((SelectedInstanceCallback) delegate).selectedServiceInstance(serviceInstance);
+      }
+    }
+
+    static List<ServiceInstance> exclude(List<ServiceInstance> instances, String excludedId) {
+      List<ServiceInstance> result = new ArrayList<>(instances.size());
+      for (ServiceInstance instance : instances) {
+        if (!excludedId.equals(instance.getInstanceId())) {
+          result.add(instance);
+        }
+      }
+      return result.isEmpty() || result.size() == instances.size() ? instances : result;
+    }
   }
 }
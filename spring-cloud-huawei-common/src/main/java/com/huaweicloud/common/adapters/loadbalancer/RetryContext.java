@@ -30,7 +30,11 @@ public class RetryContext {
 
   private final int retryOnSame;
 
-  private ServiceInstance lastServer;
+  // read by hedged requests in other threads
+  private volatile ServiceInstance lastServer;
+
+  // hedged requests are sent to a different instance
+  private ServiceInstance excludedServer;
 
   public RetryContext(int retryOnSame) {
     this.retryOnSame = retryOnSame;
@@ -58,4 +62,12 @@ public class RetryContext {
   public void setLastServer(ServiceInstance lastServer) {
     this.lastServer = lastServer;
   }
+
+  public ServiceInstance getExcludedServer() {
+    return excludedServer;
+  }
+
+  public void setExcludedServer(ServiceInstance excludedServer) {
+    this.excludedServer = excludedServer;
+  }
 }
\ No newline at end of file
@@ -35,4 +35,17 @@ public interface ServiceInstanceFilter extends Ordered {
      * @return filtered instance list
      */
     List<ServiceInstance> filter(ServiceInstanceListSupplier supplier, List<ServiceInstance> instances, Request<?> request);
+
+    /**
+     * key of the request information and configurations that filter result depends on. Filter result of the
+     * same input instance list and the same key is reused.
+     *
+     * @param supplier invoker of the filter
+     * @param instances service instances, the same list passed to filter
+     * @param request request
+     * @return key with equals and hashCode, or null if result can not be reused, e.g. depends on random
+     */
+    default Object cacheKey(ServiceInstanceListSupplier supplier, List<ServiceInstance> instances, Request<?> request) {
+        return null;
+    }
 }
@@ -0,0 +1,245 @@
+/*
+
+ * Copyright (C) 2020-2022 Huawei Technologies Co., Ltd. All rights reserved.
+
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.huaweicloud.common.adapters.loadbalancer;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cloud.client.ServiceInstance;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.huaweicloud.common.configration.dynamic.LoadBalancerProperties;
+import com.huaweicloud.common.configration.dynamic.LoadBalancerProperties.OutlierDetection;
+
+/**
+ * Statistics of service instances collected from outbound requests of RestTemplate, Feign and gateway,
+ * used by load balance rules. Instances not accessed for a while are removed.
+ */
+public class ServiceInstanceStatistics {
+  private static final Logger LOGGER = LoggerFactory.getLogger(ServiceInstanceStatistics.class);
+
+  private static final long EXPIRE_TIME_IN_MINUTES = 10;
+
+  public static class InstanceStatistics {
+    // cost of instances without latency sampled but with requests outstanding
+    private static final double PENALTY = Long.MAX_VALUE >> 16;
+
+    private final AtomicInteger outstandingRequests = new AtomicInteger(0);
+
+    private final long decayTimeInNanos;
+
+    private long latencyStamp = System.nanoTime();
+
+    // peak sensitive exponentially weighted moving average of latency in nanoseconds
+    private double latencyEwma;
+
+    // outlier detection, guarded by results lock
+    private final Object resultsLock = new Object();
+
+    private int consecutiveFailures;
+
+    private long intervalStamp = System.currentTimeMillis();
+
+    private int intervalRequests;
+
+    private int intervalFailures;
+
+    private int ejectionCount;
+
+    private volatile long ejectedUntil;
+
+    InstanceStatistics(long decayTimeInNanos) {
+      this.decayTimeInNanos = decayTimeInNanos;
+    }
+
+    public void requestStarted() {
+      outstandingRequests.incrementAndGet();
+    }
+
+    public void requestFinished() {
+      // statistics may be recreated after expired, do not go below zero
+      outstandingRequests.updateAndGet(value -> value > 0 ? value - 1 : 0);
+    }
+
+    public int getOutstandingRequests() {
+      return outstandingRequests.get();
+    }
+
+    /**
+     * latency higher than the average is used directly, so that slow instances are avoided at once,
+     * lower latency is weighted by the time elapsed since last sample.
+     */
+    public synchronized void recordLatency(long latencyInNanos) {
+      long now = System.nanoTime();
+      if (latencyInNanos > latencyEwma) {
+        latencyEwma = latencyInNanos;
+      } else {
+        double weight = Math.exp(-(double) Math.max(now - latencyStamp, 0) / decayTimeInNanos);
+        latencyEwma = latencyEwma * weight + latencyInNanos * (1 - weight);
+      }
+      latencyStamp = now;
+    }
+
+    /**
+     * average decays to zero when no samples, so that instances slow in the past are tried again.
+     */
+    public synchronized double getLatencyEwma() {
+      double weight = Math.exp(-(double) Math.max(System.nanoTime() - latencyStamp, 0) / decayTimeInNanos);
+      return latencyEwma * weight;
+    }
+
+    /**
+     * @return true if the instance becomes an outlier and is ejected by this result
+     */
+    boolean recordResult(boolean success, OutlierDetection outlierDetection) {
+      long now = System.currentTimeMillis();
+      synchronized (resultsLock) {
+        if (now - intervalStamp >= outlierDetection.getIntervalInMillis()) {
+          resetInterval(now);
+        }
+        intervalRequests++;
+        if (success) {
+          consecutiveFailures = 0;
+          // ejection time restores after healthy for a long time
+          if (ejectionCount > 0 && now - ejectedUntil > outlierDetection.getMaxEjectionTimeInMillis()) {
+            ejectionCount = 0;
+          }
+          return false;
+        }
+        consecutiveFailures++;
+        intervalFailures++;
+        // requests sent before ejected
+        if (isEjected(now) || !isOutlier(outlierDetection)) {
+          return false;
+        }
+        ejectionCount++;
+        long ejectionTime = outlierDetection.getBaseEjectionTimeInMillis() << Math.min(ejectionCount - 1, 16);
+        ejectedUntil = now + Math.min(ejectionTime, outlierDetection.getMaxEjectionTimeInMillis());
+        consecutiveFailures = 0;
+        resetInterval(now);
+        return true;
+      }
+    }
+
+    private void resetInterval(long now) {
+      intervalStamp = now;
+      intervalRequests = 0;
+      intervalFailures = 0;
+    }
+
+    private boolean isOutlier(OutlierDetection outlierDetection) {
+      if (outlierDetection.getConsecutiveFailures() > 0
+          && consecutiveFailures >= outlierDetection.getConsecutiveFailures()) {
+        return true;
+      }
+      return intervalRequests >= outlierDetection.getMinRequests()
+          && (double) (intervalRequests - intervalFailures) / intervalRequests < outlierDetection.getMinSuccessRate();
+    }
+
+    public boolean isEjected(long now) {
+      return ejectedUntil > now;
+    }
+
+    public long getEjectedUntil() {
+      return ejectedUntil;
+    }
+
+    public double getPeakEwmaCost() {
+      int outstanding = getOutstandingRequests();
+      double latency = getLatencyEwma();
+      if (latency == 0 && outstanding != 0) {
+        return PENALTY + outstanding;
+      }
+      return latency * (outstanding + 1);
+    }
+  }
+
+  private final LoadBalancerProperties loadBalancerProperties;
+
+  // instances ejected by outlier detection, removed when ejection time passed
+  private final Map<String, InstanceStatistics> ejected = new ConcurrentHashMap<>();
+
+  private final AtomicLong ejectionVersion = new AtomicLong(0);
+
+  private final Cache<String, InstanceStatistics> statistics = CacheBuilder.newBuilder()
+      .expireAfterAccess(EXPIRE_TIME_IN_MINUTES, TimeUnit.MINUTES)
+      .build();
+
+  public ServiceInstanceStatistics(LoadBalancerProperties loadBalancerProperties) {
+    this.loadBalancerProperties = loadBalancerProperties;
+  }
+
+  public InstanceStatistics get(ServiceInstance instance) {
+    try {
+      return statistics.get(key(instance), () -> new InstanceStatistics(
+          TimeUnit.MILLISECONDS.toNanos(loadBalancerProperties.getPeakEwmaDecayTimeInMillis())));
+    } catch (ExecutionException e) {
+      // loader will not throw exception
+      throw new IllegalStateException(e);
+    }
+  }
+
+  public void recordResult(ServiceInstance instance, boolean success) {
+    OutlierDetection outlierDetection = loadBalancerProperties.getOutlierDetection();
+    if (!outlierDetection.isEnabled()) {
+      return;
+    }
+    InstanceStatistics instanceStatistics = get(instance);
+    if (instanceStatistics.recordResult(success, outlierDetection)) {
+      ejected.put(key(instance), instanceStatistics);
+      ejectionVersion.incrementAndGet();
+      LOGGER.warn("instance {} of service {} is ejected until {}.", key(instance), instance.getServiceId(),
+          Instant.ofEpochMilli(instanceStatistics.getEjectedUntil()));
+    }
+  }
+
+  public boolean hasEjected() {
+    return !ejected.isEmpty();
+  }
+
+  public boolean isEjected(ServiceInstance instance) {
+    InstanceStatistics instanceStatistics = ejected.get(key(instance));
+    return instanceStatistics != null && instanceStatistics.isEjected(System.currentTimeMillis());
+  }
+
+  /**
+   * version of ejected instances, changes when instances are ejected or ejection time passed.
+   */
+  public long getEjectionVersion() {
+    long now = System.currentTimeMillis();
+    if (ejected.values().removeIf(instanceStatistics -> !instanceStatistics.isEjected(now))) {
+      ejectionVersion.incrementAndGet();
+    }
+    return ejectionVersion.get();
+  }
+
+  private static String key(ServiceInstance instance) {
+    if (instance.getInstanceId() != null) {
+      return instance.getInstanceId();
+    }
+    return instance.getHost() + ":" + instance.getPort();
+  }
+}
@@ -0,0 +1,90 @@
+/*
+
+ * Copyright (C) 2020-2022 Huawei Technologies Co., Ltd. All rights reserved.
+
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.huaweicloud.common.adapters.loadbalancer;
+
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.CompletionContext;
+import org.springframework.cloud.client.loadbalancer.CompletionContext.Status;
+import org.springframework.cloud.client.loadbalancer.LoadBalancerLifecycle;
+import org.springframework.cloud.client.loadbalancer.Request;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.client.loadbalancer.ResponseData;
+import org.springframework.cloud.client.loadbalancer.TimedRequestContext;
+
+import com.huaweicloud.common.adapters.loadbalancer.ServiceInstanceStatistics.InstanceStatistics;
+
+/**
+ * Update ServiceInstanceStatistics with outbound requests of RestTemplate, Feign and gateway. Latency is
+ * measured from the instance chosen to the request completed.
+ */
+public class ServiceInstanceStatisticsLifecycle implements LoadBalancerLifecycle<Object, Object, ServiceInstance> {
+  private final ServiceInstanceStatistics serviceInstanceStatistics;
+
+  public ServiceInstanceStatisticsLifecycle(ServiceInstanceStatistics serviceInstanceStatistics) {
+    this.serviceInstanceStatistics = serviceInstanceStatistics;
+  }
+
+  @Override
+  public void onStart(Request<Object> request) {
+
+  }
+
+  @Override
+  public void onStartRequest(Request<Object> request, Response<ServiceInstance> lbResponse) {
+    if (lbResponse != null && lbResponse.hasServer()) {
+      serviceInstanceStatistics.get(lbResponse.getServer()).requestStarted();
+      if (request.getContext() instanceof TimedRequestContext) {
+        ((TimedRequestContext) request.getContext()).setRequestStartTime(System.nanoTime());
+      }
+    }
+  }
+
+  @Override
+  public void onComplete(CompletionContext<Object, ServiceInstance, Object> completionContext) {
+    // discarded requests have no instance and not started
+    Response<ServiceInstance> lbResponse = completionContext.getLoadBalancerResponse();
+    if (completionContext.status() == Status.DISCARD || lbResponse == null || !lbResponse.hasServer()) {
+      return;
+    }
+    InstanceStatistics statistics = serviceInstanceStatistics.get(lbResponse.getServer());
+    statistics.requestFinished();
+    serviceInstanceStatistics.recordResult(lbResponse.getServer(), isSuccess(completionContext));
+    Request<Object> request = completionContext.getLoadBalancerRequest();
+    if (request != null && request.getContext() instanceof TimedRequestContext) {
+      long start = ((TimedRequestContext) request.getContext()).getRequestStartTime();
+      if (start > 0) {
+        statistics.recordLatency(System.nanoTime() - start);
+      }
+    }
+  }
+
+  // server errors are counted as failures of the instance
+  private static boolean isSuccess(CompletionContext<Object, ServiceInstance, Object> completionContext) {
+    if (completionContext.status() == Status.FAILED) {
+      return false;
+    }
+    if (completionContext.getClientResponse() instanceof ResponseData) {
+      ResponseData responseData = (ResponseData) completionContext.getClientResponse();
+      if (responseData.getRawHttpStatus() != null) {
+        return responseData.getRawHttpStatus() < 500;
+      }
+      return responseData.getHttpStatus() == null || !responseData.getHttpStatus().is5xxServerError();
+    }
+    return true;
+  }
+}
@@ -0,0 +1,207 @@
+/*
+
+ * Copyright (C) 2020-2022 Huawei Technologies Co., Ltd. All rights reserved.
+
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.huaweicloud.common.adapters.loadbalancer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.lang3.math.NumberUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.DefaultResponse;
+import org.springframework.cloud.client.loadbalancer.EmptyResponse;
+import org.springframework.cloud.client.loadbalancer.Request;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.loadbalancer.core.NoopServiceInstanceListSupplier;
+import org.springframework.cloud.loadbalancer.core.ReactorServiceInstanceLoadBalancer;
+import org.springframework.cloud.loadbalancer.core.SelectedInstanceCallback;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.huaweicloud.common.configration.dynamic.LoadBalancerProperties;
+import com.huaweicloud.common.disovery.ReadOnlyMetadata;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * Smooth weighted round robin. Weight is read from instance metadata "weight", and weight of instances
+ * registered in slow start window increases with time since registration.
+ *
+ * Weights of each instance list are read once and reused, and each choice updates current weights of the
+ * list, which is O(n) in time and memory, whatever the weights are. Filters like zone aware and canary give a
+ * few lists for a service, so weights are kept for each list, first by identity and then by content, and
+ * switching between lists does not read them again. Weights are read again when weights of instances in slow
+ * start window change, which is at most SLOW_START_STEPS times of each instance.
+ */
+public class WeightedRoundRobinLoadBalancer implements ReactorServiceInstanceLoadBalancer {
+  private static final Logger LOGGER = LoggerFactory.getLogger(WeightedRoundRobinLoadBalancer.class);
+
+  public static final String WEIGHT = "weight";
+
+  // registration time set by discovery, namespaced not to override instance properties
+  public static final String TIMESTAMP = "servicecomb.instance.timestamp";
+
+  public static final int DEFAULT_WEIGHT = 100;
+
+  private static final int MAX_WEIGHT = 100;
+
+  private static final int SLOW_START_STEPS = 10;
+
+  private static final int MAX_SCHEDULES = 64;
+
+  // timestamp of service center is in seconds, and of registration request is in milliseconds
+  private static final long MAX_TIMESTAMP_IN_SECONDS = 100_000_000_000L;
+
+  private final String serviceId;
+
+  private final ObjectProvider<ServiceInstanceListSupplier> serviceInstanceListSupplierProvider;
+
+  private final LoadBalancerProperties loadBalancerProperties;
+
+  // weak keys are compared by identity
+  private final Cache<List<ServiceInstance>, Schedule> schedules = CacheBuilder.newBuilder()
+      .weakKeys().maximumSize(MAX_SCHEDULES).build();
+
+  // lists created for each request, e.g. by outlier ejection, are equal but not the same
+  private final Cache<List<ServiceInstance>, Schedule> schedulesByContent = CacheBuilder.newBuilder()
+      .maximumSize(MAX_SCHEDULES).build();
+
+  private static final class Schedule {
+    final List<ServiceInstance> instances;
+
+    final int[] weights;
+
+    final int total;
+
+    // guarded by this
+    final int[] current;
+
+    // round robin when all weights are zero
+    final AtomicInteger position = new AtomicInteger(0);
+
+    // time in milliseconds when weight of some instance in slow start window changes
+    final long validUntil;
+
+    Schedule(List<ServiceInstance> instances, int[] weights, long validUntil) {
+      this.instances = instances;
+      this.weights = weights.clone();
+      this.current = new int[weights.length];
+      this.validUntil = validUntil;
+      int sum = 0;
+      for (int weight : weights) {
+        sum += weight;
+      }
+      this.total = sum;
+    }
+
+    boolean isValid(long now) {
+      return now < validUntil;
+    }
+
+    // smooth weighted round robin, e.g. weights {5, 1, 1} gives a a b a c a a, not a a a a a b c
+    ServiceInstance next() {
+      if (total == 0) {
+        int pos = position.getAndIncrement() & Integer.MAX_VALUE;
+        return instances.get(pos % instances.size());
+      }
+      int selected = 0;
+      synchronized (this) {
+        for (int i = 0; i < weights.length; i++) {
+          current[i] += weights[i];
+          if (current[i] > current[selected]) {
+            selected = i;
+          }
+        }
+        current[selected] -= total;
+      }
+      return instances.get(selected);
+    }
+  }
+
+  public WeightedRoundRobinLoadBalancer(ObjectProvider<ServiceInstanceListSupplier> serviceInstanceListSupplierProvider,
+      String serviceId, LoadBalancerProperties loadBalancerProperties) {
+    this.serviceId = serviceId;
+    this.serviceInstanceListSupplierProvider = serviceInstanceListSupplierProvider;
+    this.loadBalancerProperties = loadBalancerProperties;
+  }
+
+  @Override
+  @SuppressWarnings("rawtypes")
+  public Mono<Response<ServiceInstance>> choose(Request request) {
+    ServiceInstanceListSupplier supplier = serviceInstanceListSupplierProvider
+        .getIfAvailable(NoopServiceInstanceListSupplier::new);
+    return supplier.get(request).next()
+        .map(serviceInstances -> processInstanceResponse(supplier, serviceInstances));
+  }
+
+  private Response<ServiceInstance> processInstanceResponse(ServiceInstanceListSupplier supplier,
+      List<ServiceInstance> serviceInstances) {
+    Response<ServiceInstance> serviceInstanceResponse = getInstanceResponse(serviceInstances);
+    if (supplier instanceof SelectedInstanceCallback && serviceInstanceResponse.hasServer()) {
+      ((SelectedInstanceCallback) supplier).selectedServiceInstance(serviceInstanceResponse.getServer());
+    }
+    return serviceInstanceResponse;
+  }
+
+  Response<ServiceInstance> getInstanceResponse(List<ServiceInstance> instances) {
+    if (instances.isEmpty()) {
+      LOGGER.warn("No servers available for service: {}", serviceId);
+      return new EmptyResponse();
+    }
+    long now = System.currentTimeMillis();
+    Schedule current = schedules.getIfPresent(instances);
+    if (current == null || !current.isValid(now)) {
+      current = schedulesByContent.getIfPresent(instances);
+      if (current == null || !current.isValid(now)) {
+        current = createSchedule(new ArrayList<>(instances), now);
+        schedulesByContent.put(current.instances, current);
+      }
+      schedules.put(instances, current);
+    }
+    return new DefaultResponse(current.next());
+  }
+
+  private Schedule createSchedule(List<ServiceInstance> instances, long now) {
+    long slowStartWindow = loadBalancerProperties.getSlowStartWindowInMillis();
+    int[] weights = new int[instances.size()];
+    long validUntil = Long.MAX_VALUE;
+    for (int i = 0; i < weights.length; i++) {
+      ServiceInstance instance = instances.get(i);
+      int weight = Math.min(NumberUtils.toInt(ReadOnlyMetadata.of(instance).get(WEIGHT), DEFAULT_WEIGHT), MAX_WEIGHT);
+      long registered = registrationTime(instance);
+      if (slowStartWindow > 0 && registered > 0 && now - registered < slowStartWindow && weight > 0) {
+        // ramp weight in steps, so that weights are not read for every request
+        long stepTime = slowStartWindow / SLOW_START_STEPS;
+        long step = Math.max(now - registered, 0) / Math.max(stepTime, 1) + 1;
+        weight = (int) Math.max(weight * step / SLOW_START_STEPS, 1);
+        validUntil = Math.min(validUntil, registered + step * stepTime);
+      }
+      weights[i] = Math.max(weight, 0);
+    }
+    return new Schedule(instances, weights, validUntil);
+  }
+
+  private static long registrationTime(ServiceInstance instance) {
+    long timestamp = NumberUtils.toLong(ReadOnlyMetadata.of(instance).get(TIMESTAMP), 0);
+    return timestamp < MAX_TIMESTAMP_IN_SECONDS ? timestamp * 1000 : timestamp;
+  }
+}
@@ -31,6 +31,7 @@ import org.springframework.http.client.ClientHttpResponse;
 import com.huaweicloud.common.configration.dynamic.ContextProperties;
 import com.huaweicloud.common.event.ClosedEventListener;
 import com.huaweicloud.common.event.ClosedEventProcessor;
+import com.huaweicloud.common.metrics.InFlightRequests;
 
 public class DecorateClientHttpRequestInterceptor implements
     ClientHttpRequestInterceptor, Ordered {
@@ -44,14 +45,18 @@ public class DecorateClientHttpRequestInterceptor implements
 
   private final ContextProperties contextProperties;
 
+  private final InFlightRequests inFlightRequests;
+
   private volatile boolean isShutDown = false;
 
   public DecorateClientHttpRequestInterceptor(
       ContextProperties contextProperties,
       ClosedEventListener closedEventListener,
+      InFlightRequests inFlightRequests,
       List<PreClientHttpRequestInterceptor> preClientHttpRequestInterceptors,
       List<PostClientHttpRequestInterceptor> postClientHttpRequestInterceptors) {
     this.contextProperties = contextProperties;
+    this.inFlightRequests = inFlightRequests;
     this.preClientHttpRequestInterceptors = preClientHttpRequestInterceptors;
     this.postClientHttpRequestInterceptors = postClientHttpRequestInterceptors;
     closedEventListener.addClosedEventProcessor(new ClosedEventProcessor() {
@@ -94,12 +99,9 @@ public class DecorateClientHttpRequestInterceptor implements
     LOGGER.warn("application is shutting down, rejecting requests...");
     isShutDown = true;
     if (contextProperties.getWaitTimeForShutDownInMillis() > 0) {
-      try {
-        LOGGER.info("wait {}ms for requests done.", contextProperties.getWaitTimeForShutDownInMillis());
-        Thread.sleep(contextProperties.getWaitTimeForShutDownInMillis());
-      } catch (InterruptedException e) {
-        // ignore
-      }
+      LOGGER.info("wait at most {}ms for requests done.", contextProperties.getWaitTimeForShutDownInMillis());
+      long used = inFlightRequests.awaitDrained(contextProperties.getWaitTimeForShutDownInMillis());
+      LOGGER.info("requests drained in {}ms.", used);
     }
   }
 }
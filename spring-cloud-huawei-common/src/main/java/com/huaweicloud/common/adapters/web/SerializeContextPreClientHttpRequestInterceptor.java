@@ -20,9 +20,16 @@ package com.huaweicloud.common.adapters.web;
 import org.springframework.core.Ordered;
 import org.springframework.http.HttpRequest;
 
+import com.huaweicloud.common.configration.dynamic.ContextProperties;
 import com.huaweicloud.common.context.InvocationContextHolder;
 
 public class SerializeContextPreClientHttpRequestInterceptor implements PreClientHttpRequestInterceptor {
+  private final ContextProperties contextProperties;
+
+  public SerializeContextPreClientHttpRequestInterceptor(ContextProperties contextProperties) {
+    this.contextProperties = contextProperties;
+  }
+
   @Override
   public int getOrder() {
     return Ordered.LOWEST_PRECEDENCE;
@@ -31,6 +38,7 @@ public class SerializeContextPreClientHttpRequestInterceptor implements PreClien
   @Override
   public void process(HttpRequest request, byte[] body) {
     request.getHeaders().add(InvocationContextHolder.SERIALIZE_KEY,
-        InvocationContextHolder.serialize(InvocationContextHolder.getOrCreateInvocationContext()));
+        InvocationContextHolder.serialize(InvocationContextHolder.getOrCreateInvocationContext(),
+            contextProperties.isCompactEncoding()));
   }
 }
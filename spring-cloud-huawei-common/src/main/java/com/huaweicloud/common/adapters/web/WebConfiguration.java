@@ -34,6 +34,7 @@ import org.springframework.http.client.ClientHttpRequestInterceptor;
 
 import com.huaweicloud.common.configration.dynamic.ContextProperties;
 import com.huaweicloud.common.event.ClosedEventListener;
+import com.huaweicloud.common.metrics.InFlightRequests;
 
 @Configuration
 @ConditionalOnClass(name = {"org.springframework.http.client.ClientHttpRequestInterceptor",
@@ -43,11 +44,13 @@ public class WebConfiguration {
   public DecorateClientHttpRequestInterceptor decorateClientHttpRequestInterceptor(
       ContextProperties contextProperties,
       ClosedEventListener closedEventListener,
+      InFlightRequests inFlightRequests,
       @Autowired(required = false) List<PreClientHttpRequestInterceptor> preClientHttpRequestInterceptors,
       @Autowired(required = false) List<PostClientHttpRequestInterceptor> postClientHttpRequestInterceptors) {
     return new DecorateClientHttpRequestInterceptor(
         contextProperties,
         closedEventListener,
+        inFlightRequests,
         preClientHttpRequestInterceptors,
         postClientHttpRequestInterceptors);
   }
@@ -89,8 +92,9 @@ public class WebConfiguration {
 
   @Bean
   @ConditionalOnBean(DecorateClientHttpRequestInterceptor.class)
-  public PreClientHttpRequestInterceptor addContextPreClientHttpRequestInterceptor() {
-    return new SerializeContextPreClientHttpRequestInterceptor();
+  public PreClientHttpRequestInterceptor addContextPreClientHttpRequestInterceptor(
+      ContextProperties contextProperties) {
+    return new SerializeContextPreClientHttpRequestInterceptor(contextProperties);
   }
 
   @Bean
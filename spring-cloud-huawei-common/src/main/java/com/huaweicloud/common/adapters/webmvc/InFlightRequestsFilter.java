@@ -0,0 +1,47 @@
+/*
+
+ * Copyright (C) 2020-2022 Huawei Technologies Co., Ltd. All rights reserved.
+
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.huaweicloud.common.adapters.webmvc;
+
+import java.io.IOException;
+
+import javax.servlet.Filter;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+
+import com.huaweicloud.common.metrics.InFlightRequests;
+
+public class InFlightRequestsFilter implements Filter {
+  private final InFlightRequests inFlightRequests;
+
+  public InFlightRequestsFilter(InFlightRequests inFlightRequests) {
+    this.inFlightRequests = inFlightRequests;
+  }
+
+  @Override
+  public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain)
+      throws IOException, ServletException {
+    inFlightRequests.inboundStarted();
+    try {
+      chain.doFilter(request, response);
+    } finally {
+      inFlightRequests.inboundFinished();
+    }
+  }
+}
@@ -29,6 +29,7 @@ import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
 import com.huaweicloud.common.configration.dynamic.ContextProperties;
 import com.huaweicloud.common.configration.dynamic.GovernanceProperties;
+import com.huaweicloud.common.metrics.InFlightRequests;
 import com.huaweicloud.common.metrics.InvocationMetrics;
 
 @Configuration
@@ -82,6 +83,16 @@ public class WebMvcConfiguration {
     return registrationBean;
   }
 
+  @Bean
+  public FilterRegistrationBean<InFlightRequestsFilter> inFlightRequestsFilter(InFlightRequests inFlightRequests) {
+    FilterRegistrationBean<InFlightRequestsFilter> registrationBean
+        = new FilterRegistrationBean<>();
+    registrationBean.setFilter(new InFlightRequestsFilter(inFlightRequests));
+    registrationBean.addUrlPatterns("/*");
+    registrationBean.setOrder(Integer.MIN_VALUE);
+    return registrationBean;
+  }
+
   @Bean
   public FilterRegistrationBean<DeserializeContextFilter> deserializeContextFilter(
       ContextProperties contextProperties) {
@@ -18,6 +18,9 @@
 package com.huaweicloud.common.configration.bootstrap;
 
 
+import java.util.ArrayList;
+import java.util.List;
+
 import org.apache.servicecomb.service.center.client.model.DataCenterInfo;
 import org.springframework.beans.factory.annotation.Value;
 
@@ -30,6 +33,10 @@ public class DiscoveryBootstrapProperties {
 
   private boolean watch = false;
 
+  // when watch delta is enabled, the changed instance carried by watch message is applied to the instance
+  // cache, and instances are pulled only periodically.
+  private boolean watchDelta = true;
+
   private boolean enableZoneAware = false;
 
   private String address;
@@ -46,10 +53,38 @@ public class DiscoveryBootstrapProperties {
 
   private int pollInterval = 15000;
 
+  // when adaptive poll is enabled, poll interval has random jitter, backs off to pollIntervalMaxInMillis
+  // when instances do not change, and is shorter for a few times after a change found.
+  private boolean enableAdaptivePoll = false;
+
+  private long pollIntervalMaxInMillis = 120000;
+
+  private double pollJitterRatio = 0.2;
+
+  // pull requests of isolated instances are coalesced to at most one pull in this window.
+  private long pullInstanceDebounceInMillis = 1000;
+
   private boolean autoDiscovery = false;
 
+  // when address probe is enabled, configured service center, config center and dashboard addresses, and
+  // addresses found by auto discovery, are probed and fastest healthy addresses are preferred.
+  private boolean enableAddressProbe = false;
+
+  private long addressProbeInterval = 30000;
+
+  // connection pool shared by registry, discovery and RBAC clients of the same service center addresses.
+  private int connectionPoolMaxTotal = 100;
+
+  private int connectionPoolMaxPerRoute = 10;
+
+  private long connectionKeepAliveInMillis = 60000;
+
   private int waitTimeForShutDownInMillis = 15000;
 
+  // after deregistration, consumers route to this instance until they refresh instances. Wait until no new
+  // inbound requests for this time before waiting requests in processing done.
+  private int quietTimeForShutDownInMillis = 5000;
+
   private boolean allowCrossApp;
 
   @Value("${spring.cloud.servicecomb.discovery.publishAddress:${server.publishAddress:}}")
@@ -72,6 +107,20 @@ public class DiscoveryBootstrapProperties {
   //          enabled: true
   private boolean enableServicePolling = false;
 
+  // when local cache is enabled, instances of subscribed services are saved to local file
+  // and used when service center is not available at startup.
+  private boolean enableLocalCache = false;
+
+  private String localCachePath = "discovery/instances.cache";
+
+  private long localCacheMaxAgeInMillis = 7 * 24 * 60 * 60 * 1000L;
+
+  // services subscribed when registration succeeds, so that first requests need not query service center.
+  // names of @FeignClient and lb:// gateway routes are added when auto detect is enabled.
+  private List<String> warmUpServices = new ArrayList<>();
+
+  private boolean autoDetectWarmUpServices = true;
+
   public String getPublishAddress() {
     return publishAddress;
   }
@@ -162,6 +211,30 @@ public class DiscoveryBootstrapProperties {
     this.pollInterval = pollInterval;
   }
 
+  public boolean isEnableAdaptivePoll() {
+    return enableAdaptivePoll;
+  }
+
+  public void setEnableAdaptivePoll(boolean enableAdaptivePoll) {
+    this.enableAdaptivePoll = enableAdaptivePoll;
+  }
+
+  public long getPollIntervalMaxInMillis() {
+    return pollIntervalMaxInMillis;
+  }
+
+  public void setPollIntervalMaxInMillis(long pollIntervalMaxInMillis) {
+    this.pollIntervalMaxInMillis = pollIntervalMaxInMillis;
+  }
+
+  public double getPollJitterRatio() {
+    return pollJitterRatio;
+  }
+
+  public void setPollJitterRatio(double pollJitterRatio) {
+    this.pollJitterRatio = pollJitterRatio;
+  }
+
   public boolean isAutoDiscovery() {
     return autoDiscovery;
   }
@@ -194,6 +267,46 @@ public class DiscoveryBootstrapProperties {
     this.enableServicePolling = enableServicePolling;
   }
 
+  public boolean isEnableLocalCache() {
+    return enableLocalCache;
+  }
+
+  public void setEnableLocalCache(boolean enableLocalCache) {
+    this.enableLocalCache = enableLocalCache;
+  }
+
+  public String getLocalCachePath() {
+    return localCachePath;
+  }
+
+  public void setLocalCachePath(String localCachePath) {
+    this.localCachePath = localCachePath;
+  }
+
+  public long getLocalCacheMaxAgeInMillis() {
+    return localCacheMaxAgeInMillis;
+  }
+
+  public void setLocalCacheMaxAgeInMillis(long localCacheMaxAgeInMillis) {
+    this.localCacheMaxAgeInMillis = localCacheMaxAgeInMillis;
+  }
+
+  public List<String> getWarmUpServices() {
+    return warmUpServices;
+  }
+
+  public void setWarmUpServices(List<String> warmUpServices) {
+    this.warmUpServices = warmUpServices;
+  }
+
+  public boolean isAutoDetectWarmUpServices() {
+    return autoDetectWarmUpServices;
+  }
+
+  public void setAutoDetectWarmUpServices(boolean autoDetectWarmUpServices) {
+    this.autoDetectWarmUpServices = autoDetectWarmUpServices;
+  }
+
   public boolean isWatch() {
     return watch;
   }
@@ -202,6 +315,62 @@ public class DiscoveryBootstrapProperties {
     this.watch = watch;
   }
 
+  public boolean isWatchDelta() {
+    return watchDelta;
+  }
+
+  public void setWatchDelta(boolean watchDelta) {
+    this.watchDelta = watchDelta;
+  }
+
+  public long getPullInstanceDebounceInMillis() {
+    return pullInstanceDebounceInMillis;
+  }
+
+  public void setPullInstanceDebounceInMillis(long pullInstanceDebounceInMillis) {
+    this.pullInstanceDebounceInMillis = pullInstanceDebounceInMillis;
+  }
+
+  public boolean isEnableAddressProbe() {
+    return enableAddressProbe;
+  }
+
+  public void setEnableAddressProbe(boolean enableAddressProbe) {
+    this.enableAddressProbe = enableAddressProbe;
+  }
+
+  public long getAddressProbeInterval() {
+    return addressProbeInterval;
+  }
+
+  public void setAddressProbeInterval(long addressProbeInterval) {
+    this.addressProbeInterval = addressProbeInterval;
+  }
+
+  public int getConnectionPoolMaxTotal() {
+    return connectionPoolMaxTotal;
+  }
+
+  public void setConnectionPoolMaxTotal(int connectionPoolMaxTotal) {
+    this.connectionPoolMaxTotal = connectionPoolMaxTotal;
+  }
+
+  public int getConnectionPoolMaxPerRoute() {
+    return connectionPoolMaxPerRoute;
+  }
+
+  public void setConnectionPoolMaxPerRoute(int connectionPoolMaxPerRoute) {
+    this.connectionPoolMaxPerRoute = connectionPoolMaxPerRoute;
+  }
+
+  public long getConnectionKeepAliveInMillis() {
+    return connectionKeepAliveInMillis;
+  }
+
+  public void setConnectionKeepAliveInMillis(long connectionKeepAliveInMillis) {
+    this.connectionKeepAliveInMillis = connectionKeepAliveInMillis;
+  }
+
   public int getWaitTimeForShutDownInMillis() {
     return waitTimeForShutDownInMillis;
   }
@@ -210,6 +379,14 @@ public class DiscoveryBootstrapProperties {
     this.waitTimeForShutDownInMillis = waitTimeForShutDownInMillis;
   }
 
+  public int getQuietTimeForShutDownInMillis() {
+    return quietTimeForShutDownInMillis;
+  }
+
+  public void setQuietTimeForShutDownInMillis(int quietTimeForShutDownInMillis) {
+    this.quietTimeForShutDownInMillis = quietTimeForShutDownInMillis;
+  }
+
   public boolean isCanOverwriteSwagger() {
     return canOverwriteSwagger;
   }
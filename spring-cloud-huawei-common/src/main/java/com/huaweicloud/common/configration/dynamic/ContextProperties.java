@@ -28,6 +28,9 @@ public class ContextProperties {
 
   private Map<String, String> queryContextMapper = Collections.emptyMap();
 
+  // enable after all consumers upgraded, json and compact encoding are both accepted.
+  private boolean compactEncoding;
+
   public boolean isEnableTraceInfo() {
     return enableTraceInfo;
   }
@@ -59,4 +62,12 @@ public class ContextProperties {
   public void setQueryContextMapper(Map<String, String> queryContextMapper) {
     this.queryContextMapper = queryContextMapper;
   }
+
+  public boolean isCompactEncoding() {
+    return compactEncoding;
+  }
+
+  public void setCompactEncoding(boolean compactEncoding) {
+    this.compactEncoding = compactEncoding;
+  }
 }
@@ -17,6 +17,9 @@
 
 package com.huaweicloud.common.configration.dynamic;
 
+import java.util.HashMap;
+import java.util.Map;
+
 public class LoadBalancerProperties {
   public static final String LOADBALANCER_ENABLED = "spring.cloud.servicecomb.loadbalancer.enabled";
 
@@ -24,8 +27,131 @@ public class LoadBalancerProperties {
 
   public static final String RULE_RANDOM = "Random";
 
+  // power of two choices, choose the one with fewer outstanding requests of two random instances.
+  public static final String RULE_P2C = "P2C";
+
+  // power of two choices, cost is peak EWMA latency multiplied by outstanding requests.
+  public static final String RULE_PEAK_EWMA = "PeakEWMA";
+
+  // smooth weighted round robin, weight is read from instance properties "weight", default 100.
+  public static final String RULE_WEIGHTED_ROUND_ROBIN = "WeightedRoundRobin";
+
+  // consistent hash, requests of the same hash key go to the same instance.
+  public static final String RULE_CONSISTENT_HASH = "ConsistentHash";
+
+  /**
+   * Instances with consecutive failures or low success rate are ejected from the candidates for a period,
+   * which doubles for each ejection.
+   */
+  public static class OutlierDetection {
+    private boolean enabled = false;
+
+    private int consecutiveFailures = 5;
+
+    // success rate is calculated for each interval, and only when requests are not less than minRequests.
+    private long intervalInMillis = 10000;
+
+    private int minRequests = 10;
+
+    private double minSuccessRate = 0.5;
+
+    private long baseEjectionTimeInMillis = 30000;
+
+    private long maxEjectionTimeInMillis = 300000;
+
+    // max percent of instances of a service can be ejected.
+    private int maxEjectionPercent = 50;
+
+    public boolean isEnabled() {
+      return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+      this.enabled = enabled;
+    }
+
+    public int getConsecutiveFailures() {
+      return consecutiveFailures;
+    }
+
+    public void setConsecutiveFailures(int consecutiveFailures) {
+      this.consecutiveFailures = consecutiveFailures;
+    }
+
+    public long getIntervalInMillis() {
+      return intervalInMillis;
+    }
+
+    public void setIntervalInMillis(long intervalInMillis) {
+      this.intervalInMillis = intervalInMillis;
+    }
+
+    public int getMinRequests() {
+      return minRequests;
+    }
+
+    public void setMinRequests(int minRequests) {
+      this.minRequests = minRequests;
+    }
+
+    public double getMinSuccessRate() {
+      return minSuccessRate;
+    }
+
+    public void setMinSuccessRate(double minSuccessRate) {
+      this.minSuccessRate = minSuccessRate;
+    }
+
+    public long getBaseEjectionTimeInMillis() {
+      return baseEjectionTimeInMillis;
+    }
+
+    public void setBaseEjectionTimeInMillis(long baseEjectionTimeInMillis) {
+      this.baseEjectionTimeInMillis = baseEjectionTimeInMillis;
+    }
+
+    public long getMaxEjectionTimeInMillis() {
+      return maxEjectionTimeInMillis;
+    }
+
+    public void setMaxEjectionTimeInMillis(long maxEjectionTimeInMillis) {
+      this.maxEjectionTimeInMillis = maxEjectionTimeInMillis;
+    }
+
+    public int getMaxEjectionPercent() {
+      return maxEjectionPercent;
+    }
+
+    public void setMaxEjectionPercent(int maxEjectionPercent) {
+      this.maxEjectionPercent = maxEjectionPercent;
+    }
+  }
+
   private String rule = RULE_ROUND_ROBIN;
 
+  // header or invocation context name of the hash key of ConsistentHash.
+  private String hashKey;
+
+  // weight of instances registered within slow start window of WeightedRoundRobin increases with time.
+  private long slowStartWindowInMillis = 60000;
+
+  // time for latency samples of PeakEWMA to decay, smaller value shifts traffic back faster.
+  private long peakEwmaDecayTimeInMillis = 10000;
+
+  // local zone keeps all traffic when ratio of UP instances reaches this value, otherwise spills proportionally.
+  private double zoneAwareMinHealthyRatio = 0.7;
+
+  // average outstanding requests of zone instances above this value spills traffic to next zone, 0 is no limit.
+  private int zoneAwareMaxInFlightPerInstance = 0;
+
+  // number of instances each consumer connects to when provider instances are more than it, 0 is no subsetting.
+  private int subsetSize = 0;
+
+  private OutlierDetection outlierDetection = new OutlierDetection();
+
+  // rules of services, key is service id, services not configured use rule.
+  private Map<String, String> serviceRules = new HashMap<>();
+
   public String getRule() {
     return rule;
   }
@@ -33,4 +159,72 @@ public class LoadBalancerProperties {
   public void setRule(String rule) {
     this.rule = rule;
   }
+
+  public String getRule(String serviceId) {
+    return serviceRules.getOrDefault(serviceId, rule);
+  }
+
+  public long getPeakEwmaDecayTimeInMillis() {
+    return peakEwmaDecayTimeInMillis;
+  }
+
+  public void setPeakEwmaDecayTimeInMillis(long peakEwmaDecayTimeInMillis) {
+    this.peakEwmaDecayTimeInMillis = peakEwmaDecayTimeInMillis;
+  }
+
+  public long getSlowStartWindowInMillis() {
+    return slowStartWindowInMillis;
+  }
+
+  public void setSlowStartWindowInMillis(long slowStartWindowInMillis) {
+    this.slowStartWindowInMillis = slowStartWindowInMillis;
+  }
+
+  public String getHashKey() {
+    return hashKey;
+  }
+
+  public void setHashKey(String hashKey) {
+    this.hashKey = hashKey;
+  }
+
+  public double getZoneAwareMinHealthyRatio() {
+    return zoneAwareMinHealthyRatio;
+  }
+
+  public void setZoneAwareMinHealthyRatio(double zoneAwareMinHealthyRatio) {
+    this.zoneAwareMinHealthyRatio = zoneAwareMinHealthyRatio;
+  }
+
+  public int getZoneAwareMaxInFlightPerInstance() {
+    return zoneAwareMaxInFlightPerInstance;
+  }
+
+  public void setZoneAwareMaxInFlightPerInstance(int zoneAwareMaxInFlightPerInstance) {
+    this.zoneAwareMaxInFlightPerInstance = zoneAwareMaxInFlightPerInstance;
+  }
+
+  public int getSubsetSize() {
+    return subsetSize;
+  }
+
+  public void setSubsetSize(int subsetSize) {
+    this.subsetSize = subsetSize;
+  }
+
+  public OutlierDetection getOutlierDetection() {
+    return outlierDetection;
+  }
+
+  public void setOutlierDetection(OutlierDetection outlierDetection) {
+    this.outlierDetection = outlierDetection;
+  }
+
+  public Map<String, String> getServiceRules() {
+    return serviceRules;
+  }
+
+  public void setServiceRules(Map<String, String> serviceRules) {
+    this.serviceRules = serviceRules;
+  }
 }
@@ -41,9 +41,19 @@ public final class InvocationContextHolder {
   }
 
   public static String serialize(InvocationContext context) {
+    return serialize(context, false);
+  }
+
+  /**
+   * @param compact use compact encoding, which can only be deserialized by new versions.
+   */
+  public static String serialize(InvocationContext context, boolean compact) {
     if (context == null) {
       return "";
     }
+    if (compact) {
+      return HeaderUtil.serializeCompact(context.getContext());
+    }
     return HeaderUtil.serialize(context.getContext());
   }
 
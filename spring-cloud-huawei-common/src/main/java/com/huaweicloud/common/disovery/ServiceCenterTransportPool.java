@@ -0,0 +1,174 @@
+/*
+
+  * Copyright (C) 2020-2022 Huawei Technologies Co., Ltd. All rights reserved.
+
+  * Licensed under the Apache License, Version 2.0 (the "License");
+  * you may not use this file except in compliance with the License.
+  * You may obtain a copy of the License at
+  *
+  *     http://www.apache.org/licenses/LICENSE-2.0
+  *
+  * Unless required by applicable law or agreed to in writing, software
+  * distributed under the License is distributed on an "AS IS" BASIS,
+  * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  * See the License for the specific language governing permissions and
+  * limitations under the License.
+  */
+
+package com.huaweicloud.common.disovery;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.http.config.Registry;
+import org.apache.http.config.RegistryBuilder;
+import org.apache.http.conn.socket.ConnectionSocketFactory;
+import org.apache.http.conn.socket.PlainConnectionSocketFactory;
+import org.apache.http.conn.ssl.NoopHostnameVerifier;
+import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.HttpClientBuilder;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.servicecomb.foundation.ssl.SSLManager;
+import org.apache.servicecomb.http.client.auth.RequestAuthHeaderProvider;
+import org.apache.servicecomb.http.client.common.HttpConfiguration.SSLProperties;
+import org.apache.servicecomb.http.client.common.HttpTransport;
+import org.apache.servicecomb.http.client.common.HttpTransportFactory;
+import org.apache.servicecomb.http.client.common.HttpTransportImpl;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.huaweicloud.common.configration.bootstrap.DiscoveryBootstrapProperties;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Connection pools shared by all service center clients of the process.
+ *
+ * Clients of the same service center addresses use one http client and connection pool, and only differ in
+ * auth headers, which are added by HttpTransportImpl for each request. Pools are closed when the application
+ * context is closed, see close.
+ */
+public final class ServiceCenterTransportPool {
+  private static final Logger LOGGER = LoggerFactory.getLogger(ServiceCenterTransportPool.class);
+
+  private static final String METRICS_NAME = "metrics.servicecenter.connections";
+
+  private static final Map<String, Pool> POOLS = new ConcurrentHashMap<>();
+
+  private static volatile MeterRegistry meterRegistry;
+
+  private static final class Pool {
+    final String address;
+
+    final PoolingHttpClientConnectionManager connectionManager;
+
+    final CloseableHttpClient httpClient;
+
+    Pool(String address, PoolingHttpClientConnectionManager connectionManager, CloseableHttpClient httpClient) {
+      this.address = address;
+      this.connectionManager = connectionManager;
+      this.httpClient = httpClient;
+    }
+  }
+
+  private ServiceCenterTransportPool() {
+  }
+
+  public static HttpTransport createHttpTransport(DiscoveryBootstrapProperties discoveryProperties,
+      SSLProperties sslProperties, RequestAuthHeaderProvider requestAuthHeaderProvider) {
+    String key = discoveryProperties.getAddress() + "|" + sslProperties.isEnabled();
+    Pool pool = POOLS.computeIfAbsent(key, k -> createPool(discoveryProperties, sslProperties));
+    return new HttpTransportImpl(pool.httpClient, requestAuthHeaderProvider);
+  }
+
+  private static Pool createPool(DiscoveryBootstrapProperties discoveryProperties, SSLProperties sslProperties) {
+    RegistryBuilder<ConnectionSocketFactory> registryBuilder = RegistryBuilder.<ConnectionSocketFactory>create()
+        .register("http", PlainConnectionSocketFactory.INSTANCE);
+    if (sslProperties.isEnabled()) {
+      registryBuilder.register("https", new SSLConnectionSocketFactory(
+          SSLManager.createSSLContext(sslProperties.getSslOption(), sslProperties.getSslCustom()),
+          NoopHostnameVerifier.INSTANCE));
+    }
+    Registry<ConnectionSocketFactory> registry = registryBuilder.build();
+
+    long keepAlive = discoveryProperties.getConnectionKeepAliveInMillis();
+    PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager(registry);
+    connectionManager.setMaxTotal(discoveryProperties.getConnectionPoolMaxTotal());
+    connectionManager.setDefaultMaxPerRoute(discoveryProperties.getConnectionPoolMaxPerRoute());
+    connectionManager.setValidateAfterInactivity((int) Math.min(keepAlive, Integer.MAX_VALUE));
+
+    CloseableHttpClient httpClient = HttpClientBuilder.create()
+        .setDefaultRequestConfig(HttpTransportFactory.defaultRequestConfig().build())
+        .setConnectionManager(connectionManager)
+        .setKeepAliveStrategy((response, context) -> {
+          // keep alive time of server is used when it is shorter.
+          long serverKeepAlive = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context);
+          return serverKeepAlive > 0 ? Math.min(serverKeepAlive, keepAlive) : keepAlive;
+        })
+        .evictExpiredConnections()
+        .evictIdleConnections(keepAlive, TimeUnit.MILLISECONDS)
+        .disableCookieManagement()
+        .build();
+
+    LOGGER.info("create service center connection pool, address={}, max total={}, max per route={}.",
+        discoveryProperties.getAddress(), discoveryProperties.getConnectionPoolMaxTotal(),
+        discoveryProperties.getConnectionPoolMaxPerRoute());
+    Pool pool = new Pool(discoveryProperties.getAddress(), connectionManager, httpClient);
+    MeterRegistry registered = meterRegistry;
+    if (registered != null) {
+      registerMetrics(registered, pool);
+    }
+    return pool;
+  }
+
+  /**
+   * publish utilization of the connection pools, include pools created later.
+   */
+  public static synchronized void bindMetrics(MeterRegistry registry) {
+    if (registry == null || meterRegistry == registry) {
+      return;
+    }
+    meterRegistry = registry;
+    POOLS.values().forEach(pool -> registerMetrics(registry, pool));
+  }
+
+  /**
+   * close connection pools and remove their metrics, clients created after this create pools again.
+   */
+  public static synchronized void close() {
+    MeterRegistry registered = meterRegistry;
+    meterRegistry = null;
+    for (String key : POOLS.keySet()) {
+      Pool pool = POOLS.remove(key);
+      if (pool == null) {
+        continue;
+      }
+      if (registered != null) {
+        registered.find(METRICS_NAME).tag("address", pool.address).meters().forEach(registered::remove);
+      }
+      try {
+        pool.httpClient.close();
+      } catch (IOException e) {
+        LOGGER.warn("close service center connection pool failed, address={}, message={}.", pool.address,
+            e.getMessage());
+      }
+    }
+  }
+
+  private static void registerMetrics(MeterRegistry registry, Pool pool) {
+    PoolingHttpClientConnectionManager manager = pool.connectionManager;
+    Gauge.builder(METRICS_NAME, manager, m -> m.getTotalStats().getLeased())
+        .tags("address", pool.address, "state", "leased").register(registry);
+    Gauge.builder(METRICS_NAME, manager, m -> m.getTotalStats().getAvailable())
+        .tags("address", pool.address, "state", "available").register(registry);
+    Gauge.builder(METRICS_NAME, manager, m -> m.getTotalStats().getPending())
+        .tags("address", pool.address, "state", "pending").register(registry);
+    Gauge.builder(METRICS_NAME, manager, m -> m.getTotalStats().getMax())
+        .tags("address", pool.address, "state", "max").register(registry);
+  }
+}
@@ -26,6 +26,7 @@ import org.apache.servicecomb.http.client.auth.RequestAuthHeaderProvider;
 import org.apache.servicecomb.http.client.common.HttpConfiguration.SSLProperties;
 import org.apache.servicecomb.service.center.client.AddressManager;
 import org.apache.servicecomb.service.center.client.ServiceCenterClient;
+import org.apache.servicecomb.service.center.client.ServiceCenterRawClient;
 import org.apache.servicecomb.service.center.client.ServiceCenterWatch;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -45,16 +46,21 @@ public class ServiceCenterUtils {
     return new AddressManager("default", addresses, EventManager.getEventBus());
   }
 
-  // add other headers needed for registration by new ServiceCenterClient(...)
+  // clients share connection pool of the same service center addresses, see ServiceCenterTransportPool.
+  // add other headers needed for registration by HttpTransport.addHeaders(...)
   public static ServiceCenterClient serviceCenterClient(DiscoveryBootstrapProperties discoveryProperties,
       ServiceCombSSLProperties serviceCombSSLProperties,
       List<AuthHeaderProvider> authHeaderProviders) {
     AddressManager addressManager = createAddressManager(discoveryProperties);
     SSLProperties sslProperties = TransportUtils
         .createSSLProperties(addressManager.sslEnabled(), serviceCombSSLProperties);
-    return new ServiceCenterClient(addressManager, sslProperties,
-        getRequestAuthHeaderProvider(authHeaderProviders),
-        "default", new HashMap<>()).setEventBus(EventManager.getEventBus());
+    ServiceCenterRawClient rawClient = new ServiceCenterRawClient.Builder()
+        .setTenantName("default")
+        .setAddressManager(addressManager)
+        .setHttpTransport(ServiceCenterTransportPool.createHttpTransport(discoveryProperties, sslProperties,
+            getRequestAuthHeaderProvider(authHeaderProviders)))
+        .build();
+    return new ServiceCenterClient(rawClient).setEventBus(EventManager.getEventBus());
   }
 
   public static ServiceCenterWatch serviceCenterWatch(DiscoveryBootstrapProperties discoveryProperties,
@@ -68,7 +74,7 @@ public class ServiceCenterUtils {
         "default", new HashMap<>(), EventManager.getEventBus());
   }
 
-  private static RequestAuthHeaderProvider getRequestAuthHeaderProvider(List<AuthHeaderProvider> authHeaderProviders) {
+  public static RequestAuthHeaderProvider getRequestAuthHeaderProvider(List<AuthHeaderProvider> authHeaderProviders) {
     return signRequest -> {
       Map<String, String> headers = new HashMap<>();
       authHeaderProviders.forEach(provider -> headers.putAll(provider.authHeaders()));
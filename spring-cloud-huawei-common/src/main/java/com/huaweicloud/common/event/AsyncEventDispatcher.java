@@ -0,0 +1,259 @@
+/*
+
+  * Copyright (C) 2020-2022 Huawei Technologies Co., Ltd. All rights reserved.
+
+  * Licensed under the Apache License, Version 2.0 (the "License");
+  * you may not use this file except in compliance with the License.
+  * You may obtain a copy of the License at
+  *
+  *     http://www.apache.org/licenses/LICENSE-2.0
+  *
+  * Unless required by applicable law or agreed to in writing, software
+  * distributed under the License is distributed on an "AS IS" BASIS,
+  * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  * See the License for the specific language governing permissions and
+  * limitations under the License.
+  */
+
+package com.huaweicloud.common.event;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Dispatch events of EventManager in dispatcher threads.
+ *
+ * Events of the same type are dispatched in order, and events of different types are dispatched concurrently.
+ * An event is coalesced when an equal event of the same type is waiting, and events without fields, e.g.
+ * PullInstanceEvent, are equal to each other. When waiting events reach max queue size, posting threads wait
+ * until events are dispatched, except dispatcher threads, which queue events over the size to avoid waiting for
+ * themselves. Posting threads wait at most max wait time, then the event is dropped and counted in
+ * metrics.event.dropped, so that a blocked subscriber does not block posting threads forever. An interrupted
+ * posting thread queues the event over the size.
+ */
+public class AsyncEventDispatcher {
+  public static final String METRICS_EVENT_DISPATCH = "metrics.event.dispatch";
+
+  public static final String METRICS_EVENT_QUEUE_SIZE = "metrics.event.queue.size";
+
+  public static final String METRICS_EVENT_COALESCED = "metrics.event.coalesced";
+
+  public static final String METRICS_EVENT_DROPPED = "metrics.event.dropped";
+
+  public static final long DEFAULT_MAX_WAIT_MILLIS = 1000;
+
+  private static final String TAG_EVENT = "event";
+
+  // events of one type dispatched before other types get the thread
+  private static final int BATCH_SIZE = 64;
+
+  private static final ClassValue<Boolean> WITHOUT_FIELDS = new ClassValue<Boolean>() {
+    @Override
+    protected Boolean computeValue(Class<?> type) {
+      for (Class<?> clazz = type; clazz != null && clazz != Object.class; clazz = clazz.getSuperclass()) {
+        for (Field field : clazz.getDeclaredFields()) {
+          if (!Modifier.isStatic(field.getModifiers()) && !field.isSynthetic()) {
+            return false;
+          }
+        }
+      }
+      return true;
+    }
+  };
+
+  private final class EventQueue {
+    final Deque<Object> events = new ArrayDeque<>();
+
+    // same events as the deque, for coalescing
+    final Set<Object> waiting = new HashSet<>();
+
+    final Consumer<Object> subscribers;
+
+    final Timer timer;
+
+    final Counter coalesced;
+
+    final Counter dropped;
+
+    // a dispatcher thread is draining this queue
+    boolean running;
+
+    EventQueue(Class<?> type, Consumer<Object> subscribers) {
+      this.subscribers = subscribers;
+      this.timer = Timer.builder(METRICS_EVENT_DISPATCH).tag(TAG_EVENT, type.getSimpleName())
+          .register(meterRegistry);
+      this.coalesced = Counter.builder(METRICS_EVENT_COALESCED).tag(TAG_EVENT, type.getSimpleName())
+          .register(meterRegistry);
+      this.dropped = Counter.builder(METRICS_EVENT_DROPPED).tag(TAG_EVENT, type.getSimpleName())
+          .register(meterRegistry);
+    }
+  }
+
+  private final int maxQueueSize;
+
+  private final long maxWaitNanos;
+
+  private final MeterRegistry meterRegistry;
+
+  private final Map<Class<?>, EventQueue> queues = new ConcurrentHashMap<>();
+
+  private final AtomicInteger queueSize = new AtomicInteger(0);
+
+  // posting threads waiting for queue size below max
+  private final Object space = new Object();
+
+  private final AtomicInteger spaceWaiters = new AtomicInteger(0);
+
+  private final ThreadLocal<Boolean> dispatching = new ThreadLocal<>();
+
+  private final AtomicInteger threadIndex = new AtomicInteger(0);
+
+  private final ExecutorService executorService;
+
+  public AsyncEventDispatcher(int threads, int maxQueueSize, MeterRegistry meterRegistry) {
+    this(threads, maxQueueSize, DEFAULT_MAX_WAIT_MILLIS, meterRegistry);
+  }
+
+  public AsyncEventDispatcher(int threads, int maxQueueSize, long maxWaitMillis, MeterRegistry meterRegistry) {
+    this.maxQueueSize = maxQueueSize;
+    this.maxWaitNanos = TimeUnit.MILLISECONDS.toNanos(maxWaitMillis);
+    this.meterRegistry = meterRegistry;
+    this.executorService = Executors.newFixedThreadPool(threads, r -> {
+      Thread thread = new Thread(r, "event-dispatcher-" + threadIndex.getAndIncrement());
+      thread.setDaemon(true);
+      return thread;
+    });
+    Gauge.builder(METRICS_EVENT_QUEUE_SIZE, queueSize, AtomicInteger::get).register(meterRegistry);
+  }
+
+  /**
+   * @param subscribers dispatch the event to subscribers in current thread
+   */
+  void dispatch(Object event, Consumer<Object> subscribers) {
+    EventQueue queue = queues.computeIfAbsent(event.getClass(), type -> new EventQueue(type, subscribers));
+    boolean wait = dispatching.get() == null;
+    long deadline = wait ? System.nanoTime() + maxWaitNanos : 0;
+    boolean start;
+    while (true) {
+      synchronized (queue) {
+        if (isCoalesced(queue, event)) {
+          queue.coalesced.increment();
+          return;
+        }
+        if (!wait || queueSize.get() < maxQueueSize) {
+          queue.events.add(event);
+          queue.waiting.add(event);
+          queueSize.incrementAndGet();
+          start = !queue.running;
+          queue.running = true;
+          break;
+        }
+      }
+      try {
+        if (!awaitSpace(deadline)) {
+          queue.dropped.increment();
+          return;
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        wait = false;
+      }
+    }
+    if (start) {
+      execute(queue);
+    }
+  }
+
+  private static boolean isCoalesced(EventQueue queue, Object event) {
+    if (queue.events.isEmpty()) {
+      return false;
+    }
+    return WITHOUT_FIELDS.get(event.getClass()) || queue.waiting.contains(event);
+  }
+
+  /**
+   * @return false if still no space at the deadline
+   */
+  private boolean awaitSpace(long deadline) throws InterruptedException {
+    spaceWaiters.incrementAndGet();
+    try {
+      synchronized (space) {
+        while (queueSize.get() >= maxQueueSize) {
+          long remaining = deadline - System.nanoTime();
+          if (remaining <= 0) {
+            return false;
+          }
+          TimeUnit.NANOSECONDS.timedWait(space, remaining);
+        }
+      }
+      return true;
+    } finally {
+      spaceWaiters.decrementAndGet();
+    }
+  }
+
+  private void execute(EventQueue queue) {
+    try {
+      executorService.execute(() -> drain(queue));
+    } catch (RejectedExecutionException e) {
+      // closed, dispatch in current thread
+      drain(queue);
+    }
+  }
+
+  private void drain(EventQueue queue) {
+    Boolean outer = dispatching.get();
+    dispatching.set(Boolean.TRUE);
+    try {
+      for (int i = 0; i < BATCH_SIZE; i++) {
+        Object event;
+        synchronized (queue) {
+          event = queue.events.poll();
+          if (event == null) {
+            queue.running = false;
+            return;
+          }
+          queue.waiting.remove(event);
+        }
+        queueSize.decrementAndGet();
+        signalSpace();
+        queue.timer.record(() -> queue.subscribers.accept(event));
+      }
+    } finally {
+      if (outer == null) {
+        dispatching.remove();
+      }
+    }
+    execute(queue);
+  }
+
+  private void signalSpace() {
+    if (spaceWaiters.get() > 0) {
+      synchronized (space) {
+        space.notifyAll();
+      }
+    }
+  }
+
+  public void close() {
+    EventManager.setEventDispatcher(null);
+    executorService.shutdown();
+  }
+}
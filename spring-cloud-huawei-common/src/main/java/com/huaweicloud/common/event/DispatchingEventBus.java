@@ -0,0 +1,42 @@
+/*
+
+  * Copyright (C) 2020-2022 Huawei Technologies Co., Ltd. All rights reserved.
+
+  * Licensed under the Apache License, Version 2.0 (the "License");
+  * you may not use this file except in compliance with the License.
+  * You may obtain a copy of the License at
+  *
+  *     http://www.apache.org/licenses/LICENSE-2.0
+  *
+  * Unless required by applicable law or agreed to in writing, software
+  * distributed under the License is distributed on an "AS IS" BASIS,
+  * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  * See the License for the specific language governing permissions and
+  * limitations under the License.
+  */
+
+package com.huaweicloud.common.event;
+
+import com.google.common.eventbus.EventBus;
+
+/**
+ * EventBus dispatches events in posting thread by default, and by AsyncEventDispatcher when it is set.
+ * Subscribers are registered to this bus in both modes, so that libraries holding this bus are not changed.
+ */
+class DispatchingEventBus extends EventBus {
+  private volatile AsyncEventDispatcher dispatcher;
+
+  void setDispatcher(AsyncEventDispatcher dispatcher) {
+    this.dispatcher = dispatcher;
+  }
+
+  @Override
+  public void post(Object event) {
+    AsyncEventDispatcher current = dispatcher;
+    if (current == null) {
+      super.post(event);
+      return;
+    }
+    current.dispatch(event, super::post);
+  }
+}
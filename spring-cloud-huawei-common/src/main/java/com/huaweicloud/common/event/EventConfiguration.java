@@ -17,13 +17,38 @@
 
 package com.huaweicloud.common.event;
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import com.huaweicloud.common.configration.bootstrap.DiscoveryBootstrapProperties;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
 @Configuration
 public class EventConfiguration {
   @Bean
   public ClosedEventListener closedEventListener() {
     return new ClosedEventListener();
   }
+
+  @Bean
+  public PullInstanceEventCoalescer pullInstanceEventCoalescer(
+      DiscoveryBootstrapProperties discoveryBootstrapProperties, MeterRegistry meterRegistry) {
+    return new PullInstanceEventCoalescer(discoveryBootstrapProperties, meterRegistry);
+  }
+
+  @Bean(destroyMethod = "close")
+  @ConditionalOnProperty(value = "spring.cloud.servicecomb.event.async.enabled", havingValue = "true")
+  public AsyncEventDispatcher asyncEventDispatcher(
+      @Value("${spring.cloud.servicecomb.event.async.threads:2}") int threads,
+      @Value("${spring.cloud.servicecomb.event.async.maxQueueSize:10000}") int maxQueueSize,
+      @Value("${spring.cloud.servicecomb.event.async.maxWaitMillis:1000}") long maxWaitMillis,
+      MeterRegistry meterRegistry) {
+    AsyncEventDispatcher dispatcher = new AsyncEventDispatcher(threads, maxQueueSize, maxWaitMillis,
+        meterRegistry);
+    EventManager.setEventDispatcher(dispatcher);
+    return dispatcher;
+  }
 }
@@ -20,7 +20,7 @@ package com.huaweicloud.common.event;
 import com.google.common.eventbus.EventBus;
 
 public class EventManager {
-  private static final EventBus eventBus = new EventBus();
+  private static final DispatchingEventBus eventBus = new DispatchingEventBus();
 
   public static EventBus getEventBus() {
     return eventBus;
@@ -33,4 +33,11 @@ public class EventManager {
   public static void register(Object subscriber) {
     eventBus.register(subscriber);
   }
+
+  /**
+   * dispatch events by the dispatcher, or in posting thread if dispatcher is null.
+   */
+  public static void setEventDispatcher(AsyncEventDispatcher dispatcher) {
+    eventBus.setDispatcher(dispatcher);
+  }
 }
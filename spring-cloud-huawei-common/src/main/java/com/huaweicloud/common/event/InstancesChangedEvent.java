@@ -0,0 +1,40 @@
+/*
+
+  * Copyright (C) 2020-2022 Huawei Technologies Co., Ltd. All rights reserved.
+
+  * Licensed under the Apache License, Version 2.0 (the "License");
+  * you may not use this file except in compliance with the License.
+  * You may obtain a copy of the License at
+  *
+  *     http://www.apache.org/licenses/LICENSE-2.0
+  *
+  * Unless required by applicable law or agreed to in writing, software
+  * distributed under the License is distributed on an "AS IS" BASIS,
+  * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  * See the License for the specific language governing permissions and
+  * limitations under the License.
+  */
+
+package com.huaweicloud.common.event;
+
+import java.util.Set;
+
+import org.springframework.context.ApplicationEvent;
+
+/**
+ * Instances of some services changed. Only caches of these service ids need refresh.
+ */
+public class InstancesChangedEvent extends ApplicationEvent {
+  private static final long serialVersionUID = -1L;
+
+  private final Set<String> serviceIds;
+
+  public InstancesChangedEvent(Object source, Set<String> serviceIds) {
+    super(source);
+    this.serviceIds = serviceIds;
+  }
+
+  public Set<String> getServiceIds() {
+    return serviceIds;
+  }
+}
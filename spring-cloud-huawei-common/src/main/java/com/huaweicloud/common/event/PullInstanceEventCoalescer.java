@@ -0,0 +1,111 @@
+/*
+
+  * Copyright (C) 2020-2022 Huawei Technologies Co., Ltd. All rights reserved.
+
+  * Licensed under the Apache License, Version 2.0 (the "License");
+  * you may not use this file except in compliance with the License.
+  * You may obtain a copy of the License at
+  *
+  *     http://www.apache.org/licenses/LICENSE-2.0
+  *
+  * Unless required by applicable law or agreed to in writing, software
+  * distributed under the License is distributed on an "AS IS" BASIS,
+  * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  * See the License for the specific language governing permissions and
+  * limitations under the License.
+  */
+
+package com.huaweicloud.common.event;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.apache.servicecomb.service.center.client.DiscoveryEvents.PullInstanceEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.huaweicloud.common.configration.bootstrap.DiscoveryBootstrapProperties;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Coalesce pull requests, e.g. from calls rejected by isolated instances, to at most one PullInstanceEvent in
+ * the debounce window. PullInstanceEvent pulls instances of all subscribed services, so requests of all services
+ * are coalesced together, and the event is posted in the coalescer thread instead of the request thread.
+ */
+public class PullInstanceEventCoalescer {
+  private static final Logger LOGGER = LoggerFactory.getLogger(PullInstanceEventCoalescer.class);
+
+  public static final String METRICS_PULL_REQUESTS = "metrics.discovery.pull.requests";
+
+  private static final String TAG_SERVICE = "service";
+
+  private static final String TAG_RESULT = "result";
+
+  private final DiscoveryBootstrapProperties discoveryBootstrapProperties;
+
+  private final MeterRegistry meterRegistry;
+
+  private final AtomicBoolean pending = new AtomicBoolean(false);
+
+  private volatile long lastPullTime;
+
+  private final Map<String, Counter> acceptedCounters = new ConcurrentHashMap<>();
+
+  private final Map<String, Counter> suppressedCounters = new ConcurrentHashMap<>();
+
+  private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(r -> {
+    Thread thread = new Thread(r, "discovery-pull-coalescer");
+    thread.setDaemon(true);
+    return thread;
+  });
+
+  public PullInstanceEventCoalescer(DiscoveryBootstrapProperties discoveryBootstrapProperties,
+      MeterRegistry meterRegistry) {
+    this.discoveryBootstrapProperties = discoveryBootstrapProperties;
+    this.meterRegistry = meterRegistry;
+  }
+
+  /**
+   * request to pull instances, the first request pulls at once when no pull in last window, and requests
+   * before the pull is done are suppressed.
+   */
+  public void request(String serviceName) {
+    if (!pending.compareAndSet(false, true)) {
+      counter(suppressedCounters, serviceName, "suppressed").increment();
+      return;
+    }
+    counter(acceptedCounters, serviceName, "accepted").increment();
+    long delay = lastPullTime + discoveryBootstrapProperties.getPullInstanceDebounceInMillis()
+        - System.currentTimeMillis();
+    executor.schedule(this::pull, Math.max(delay, 0), TimeUnit.MILLISECONDS);
+  }
+
+  private Counter counter(Map<String, Counter> counters, String serviceName, String result) {
+    String name = serviceName == null ? "unknown" : serviceName;
+    return counters.computeIfAbsent(name, key -> Counter.builder(METRICS_PULL_REQUESTS)
+        .tag(TAG_SERVICE, key)
+        .tag(TAG_RESULT, result)
+        .register(meterRegistry));
+  }
+
+  private void pull() {
+    lastPullTime = System.currentTimeMillis();
+    // requests after this need another pull
+    pending.set(false);
+    try {
+      EventManager.post(new PullInstanceEvent());
+    } catch (RuntimeException e) {
+      LOGGER.warn("pull instances failed, message={}", e.getMessage());
+    }
+  }
+
+  public void shutdown() {
+    executor.shutdownNow();
+  }
+}
@@ -0,0 +1,132 @@
+/*
+
+ * Copyright (C) 2020-2022 Huawei Technologies Co., Ltd. All rights reserved.
+
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.huaweicloud.common.metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Counts requests in processing. Inbound requests are counted by servlet filter and gateway web filter,
+ * outbound requests are counted by load balancer lifecycle of RestTemplate, Feign and gateway.
+ *
+ * When shutting down, wait for these requests done instead of a fixed time. Consumers may still route to
+ * this instance until they refresh instances, so a quiet time without new inbound requests can be waited first.
+ */
+public class InFlightRequests {
+  private static final Logger LOGGER = LoggerFactory.getLogger(InFlightRequests.class);
+
+  public static final String METRICS_IN_FLIGHT = "metrics.requests.inflight";
+
+  public static final String METRICS_DRAIN = "metrics.shutdown.drain";
+
+  public static final String TAG_DIRECTION = "direction";
+
+  private static final long CHECK_INTERVAL = 20;
+
+  private final AtomicLong inbound = new AtomicLong();
+
+  private final AtomicLong outbound = new AtomicLong();
+
+  private volatile long lastInboundNanos = System.nanoTime();
+
+  private final Timer drainTimer;
+
+  public InFlightRequests(MeterRegistry meterRegistry) {
+    Gauge.builder(METRICS_IN_FLIGHT, inbound, AtomicLong::get).tag(TAG_DIRECTION, "inbound")
+        .register(meterRegistry);
+    Gauge.builder(METRICS_IN_FLIGHT, outbound, AtomicLong::get).tag(TAG_DIRECTION, "outbound")
+        .register(meterRegistry);
+    this.drainTimer = Timer.builder(METRICS_DRAIN).register(meterRegistry);
+  }
+
+  public void inboundStarted() {
+    inbound.incrementAndGet();
+    lastInboundNanos = System.nanoTime();
+  }
+
+  public void inboundFinished() {
+    inbound.decrementAndGet();
+  }
+
+  public void outboundStarted() {
+    outbound.incrementAndGet();
+  }
+
+  public void outboundFinished() {
+    outbound.decrementAndGet();
+  }
+
+  public long getInbound() {
+    return inbound.get();
+  }
+
+  public long getOutbound() {
+    return outbound.get();
+  }
+
+  /**
+   * wait until no inbound and outbound requests in processing, or timeout.
+   *
+   * @return time waited in milliseconds
+   */
+  public long awaitDrained(long timeoutInMillis) {
+    return awaitDrained(0, timeoutInMillis);
+  }
+
+  /**
+   * wait until no new inbound requests for quietInMillis, counted from now, and then no inbound and outbound
+   * requests in processing, or timeout.
+   *
+   * @return time waited in milliseconds
+   */
+  public long awaitDrained(long quietInMillis, long timeoutInMillis) {
+    long begin = System.nanoTime();
+    long deadline = begin + TimeUnit.MILLISECONDS.toNanos(timeoutInMillis);
+    long quiet = TimeUnit.MILLISECONDS.toNanos(quietInMillis);
+    try {
+      while (System.nanoTime() - deadline < 0 && !isDrained(begin, quiet)) {
+        Thread.sleep(CHECK_INTERVAL);
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    long used = System.nanoTime() - begin;
+    drainTimer.record(used, TimeUnit.NANOSECONDS);
+    if (inbound.get() > 0 || outbound.get() > 0) {
+      LOGGER.warn("requests not drained in {}ms, inbound {}, outbound {}.", timeoutInMillis,
+          inbound.get(), outbound.get());
+    }
+    return TimeUnit.NANOSECONDS.toMillis(used);
+  }
+
+  private boolean isDrained(long begin, long quiet) {
+    long last = lastInboundNanos;
+    long quietFrom = last - begin > 0 ? last : begin;
+    if (System.nanoTime() - quietFrom < quiet) {
+      return false;
+    }
+    return inbound.get() == 0 && outbound.get() == 0;
+  }
+}
@@ -33,6 +33,11 @@ public class MetricsConfiguration {
     return new InvocationMetrics(meterRegistry, metricsProperties);
   }
 
+  @Bean
+  public InFlightRequests inFlightRequests(MeterRegistry meterRegistry) {
+    return new InFlightRequests(meterRegistry);
+  }
+
   @Bean
   @ConditionalOnMissingBean
   public MeterRegistry meterRegistry() {
@@ -75,6 +75,8 @@ public class RBACRequestAuthHeaderProvider implements AuthHeaderProvider {
 
   private ExecutorService executorService;
 
+  private volatile ServiceCenterClient serviceCenterClient;
+
   private LoadingCache<String, String> cache;
 
   private String lastErrorCode = "401302";
@@ -136,14 +138,24 @@ public class RBACRequestAuthHeaderProvider implements AuthHeaderProvider {
   }
 
   protected RbacTokenResponse callCreateHeaders() {
-    ServiceCenterClient serviceCenterClient = ServiceCenterUtils
-        .serviceCenterClient(discoveryProperties, serviceCombSSLProperties,
-            Collections.emptyList());
     RbacTokenRequest request = new RbacTokenRequest();
     request.setName(serviceCombRBACProperties.getName());
     request.setPassword(serviceCombRBACProperties.getPassword());
 
-    return serviceCenterClient.queryToken(request);
+    return getServiceCenterClient().queryToken(request);
+  }
+
+  // token is queried without auth headers, and the client is reused by later refreshes.
+  private ServiceCenterClient getServiceCenterClient() {
+    if (serviceCenterClient == null) {
+      synchronized (this) {
+        if (serviceCenterClient == null) {
+          serviceCenterClient = ServiceCenterUtils
+              .serviceCenterClient(discoveryProperties, serviceCombSSLProperties, Collections.emptyList());
+        }
+      }
+    }
+    return serviceCenterClient;
   }
 
   protected long refreshTime() {
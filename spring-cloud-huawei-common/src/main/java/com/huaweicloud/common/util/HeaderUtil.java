@@ -16,8 +16,13 @@
  */
 package com.huaweicloud.common.util;
 
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
 import java.util.Collections;
 import java.util.Enumeration;
+import java.util.HashMap;
 import java.util.Map;
 
 import javax.servlet.http.HttpServletRequest;
@@ -38,6 +43,11 @@ public class HeaderUtil {
 
   private static final URLCodec CODEC = new URLCodec("UTF-8");
 
+  /**
+   * version marker of compact encoding, not a valid prefix of URL encoded json.
+   */
+  public static final String COMPACT_PREFIX = "v1.";
+
   public static Map<String, String> getHeaders(HttpServletRequest servletRequest) {
     Enumeration<String> headerNames = servletRequest.getHeaderNames();
     Map<String, String> result = new LinkedCaseInsensitiveMap<>();
@@ -57,6 +67,9 @@ public class HeaderUtil {
   public static Map<String, String> deserialize(String content) {
     if (!StringUtils.isEmpty(content)) {
       try {
+        if (content.startsWith(COMPACT_PREFIX)) {
+          return deserializeCompact(content);
+        }
         String json = CODEC.decode(content);
         return MAPPER.readValue(json, new TypeReference<Map<String, String>>() {
         });
@@ -76,4 +89,67 @@ public class HeaderUtil {
     }
     return "";
   }
+
+  /**
+   * Compact encoding: version marker + base64url of pairs of key and value. Key and value are UTF-8 bytes
+   * prefixed by varint length, and length of value is increased by one so that 0 means null value.
+   * deserialize accepts both json and compact encoding.
+   */
+  public static String serializeCompact(Map<String, String> content) {
+    ByteArrayOutputStream output = new ByteArrayOutputStream(256);
+    for (Map.Entry<String, String> entry : content.entrySet()) {
+      byte[] key = entry.getKey().getBytes(StandardCharsets.UTF_8);
+      writeVarInt(output, key.length);
+      output.write(key, 0, key.length);
+      if (entry.getValue() == null) {
+        writeVarInt(output, 0);
+        continue;
+      }
+      byte[] value = entry.getValue().getBytes(StandardCharsets.UTF_8);
+      writeVarInt(output, value.length + 1);
+      output.write(value, 0, value.length);
+    }
+    return COMPACT_PREFIX + Base64.getUrlEncoder().withoutPadding().encodeToString(output.toByteArray());
+  }
+
+  private static Map<String, String> deserializeCompact(String content) {
+    ByteBuffer buffer = ByteBuffer.wrap(Base64.getUrlDecoder().decode(content.substring(COMPACT_PREFIX.length())));
+    Map<String, String> result = new HashMap<>();
+    while (buffer.hasRemaining()) {
+      String key = readString(buffer, readVarInt(buffer));
+      int valueLength = readVarInt(buffer);
+      result.put(key, valueLength == 0 ? null : readString(buffer, valueLength - 1));
+    }
+    return result;
+  }
+
+  private static void writeVarInt(ByteArrayOutputStream output, int value) {
+    int remaining = value;
+    while ((remaining & ~0x7F) != 0) {
+      output.write((remaining & 0x7F) | 0x80);
+      remaining >>>= 7;
+    }
+    output.write(remaining);
+  }
+
+  private static int readVarInt(ByteBuffer buffer) {
+    int result = 0;
+    for (int shift = 0; shift < 32; shift += 7) {
+      byte b = buffer.get();
+      result |= (b & 0x7F) << shift;
+      if ((b & 0x80) == 0) {
+        return result;
+      }
+    }
+    throw new IllegalArgumentException("malformed varint in compact header.");
+  }
+
+  private static String readString(ByteBuffer buffer, int length) {
+    if (length < 0 || length > buffer.remaining()) {
+      throw new IllegalArgumentException("truncated compact header.");
+    }
+    String result = new String(buffer.array(), buffer.position(), length, StandardCharsets.UTF_8);
+    buffer.position(buffer.position() + length);
+    return result;
+  }
 }
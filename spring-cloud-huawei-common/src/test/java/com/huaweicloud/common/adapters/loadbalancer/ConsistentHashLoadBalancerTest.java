@@ -0,0 +1,159 @@
+/*
+
+ * Copyright (C) 2020-2022 Huawei Technologies Co., Ltd. All rights reserved.
+
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.huaweicloud.common.adapters.loadbalancer;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.DefaultRequest;
+import org.springframework.cloud.client.loadbalancer.DefaultRequestContext;
+import org.springframework.cloud.client.loadbalancer.RequestData;
+import org.springframework.cloud.client.loadbalancer.RequestDataContext;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpRequest;
+import org.springframework.util.LinkedMultiValueMap;
+
+import com.huaweicloud.common.adapters.loadbalancer.ConsistentHashLoadBalancer.Ring;
+import com.huaweicloud.common.configration.dynamic.LoadBalancerProperties;
+
+import reactor.core.publisher.Flux;
+
+public class ConsistentHashLoadBalancerTest {
+  private static List<ServiceInstance> instances(int count) {
+    List<ServiceInstance> instances = new ArrayList<>();
+    for (int i = 0; i < count; i++) {
+      instances.add(new DefaultServiceInstance("id" + i, "test", "10.0.0." + i, 8080, false));
+    }
+    return instances;
+  }
+
+  @Test
+  public void test_same_key_same_instance() {
+    Ring ring = new Ring(instances(5));
+    Assertions.assertSame(ring.get("tenant-1"), ring.get("tenant-1"));
+    Assertions.assertEquals(ring.get("tenant-1").getInstanceId(),
+        new Ring(instances(5)).get("tenant-1").getInstanceId());
+  }
+
+  @Test
+  public void test_only_keys_of_removed_instance_move() {
+    List<ServiceInstance> instances = instances(5);
+    Ring before = new Ring(instances);
+    ServiceInstance removed = instances.remove(2);
+    Ring after = new Ring(instances);
+
+    for (int i = 0; i < 1000; i++) {
+      String key = "user-" + i;
+      ServiceInstance instance = before.get(key);
+      if (instance != removed) {
+        Assertions.assertSame(instance, after.get(key));
+      } else {
+        Assertions.assertNotSame(removed, after.get(key));
+      }
+    }
+  }
+
+  private static ConsistentHashLoadBalancer loadBalancer(List<ServiceInstance> instances) {
+    StaticListableBeanFactory beanFactory = new StaticListableBeanFactory();
+    beanFactory.addBean("supplier", new ServiceInstanceListSupplier() {
+      @Override
+      public String getServiceId() {
+        return "test";
+      }
+
+      @Override
+      public Flux<List<ServiceInstance>> get() {
+        return Flux.just(instances);
+      }
+    });
+    LoadBalancerProperties loadBalancerProperties = new LoadBalancerProperties();
+    loadBalancerProperties.setHashKey("x-user");
+    return new ConsistentHashLoadBalancer(beanFactory.getBeanProvider(ServiceInstanceListSupplier.class), "test",
+        loadBalancerProperties);
+  }
+
+  private static DefaultRequestContext restTemplateContext(String user) {
+    HttpHeaders headers = new HttpHeaders();
+    headers.add("x-user", user);
+    DecorateLoadBalancerRequest request = new DecorateLoadBalancerRequest(null);
+    request.setRequest(new HttpRequest() {
+      @Override
+      public String getMethodValue() {
+        return "GET";
+      }
+
+      @Override
+      public URI getURI() {
+        return URI.create("http://test/hello");
+      }
+
+      @Override
+      public HttpHeaders getHeaders() {
+        return headers;
+      }
+    });
+    return new DefaultRequestContext(request, "default");
+  }
+
+  private static DefaultRequestContext feignContext(String user) {
+    HttpHeaders headers = new HttpHeaders();
+    headers.add("x-user", user);
+    return new RequestDataContext(new RequestData(HttpMethod.GET, URI.create("http://test/hello"), headers,
+        new LinkedMultiValueMap<>(), Collections.emptyMap()));
+  }
+
+  @Test
+  public void test_choose_by_header_of_rest_template_and_feign() {
+    List<ServiceInstance> instances = instances(5);
+    ConsistentHashLoadBalancer loadBalancer = loadBalancer(instances);
+    Ring ring = new Ring(instances);
+
+    for (int i = 0; i < 20; i++) {
+      String user = "user-" + i;
+      Assertions.assertSame(ring.get(user),
+          loadBalancer.choose(new DefaultRequest<>(restTemplateContext(user))).block().getServer());
+      Assertions.assertSame(ring.get(user),
+          loadBalancer.choose(new DefaultRequest<>(feignContext(user))).block().getServer());
+    }
+  }
+
+  @Test
+  public void test_rings_kept_for_each_list() {
+    List<ServiceInstance> instances = instances(5);
+    List<ServiceInstance> zone = new ArrayList<>(instances.subList(0, 2));
+    ConsistentHashLoadBalancer loadBalancer = loadBalancer(instances);
+
+    Ring all = loadBalancer.getRing(instances);
+    Ring partition = loadBalancer.getRing(zone);
+    Assertions.assertNotSame(all, partition);
+    // switching between lists does not build rings again
+    Assertions.assertSame(all, loadBalancer.getRing(instances));
+    Assertions.assertSame(partition, loadBalancer.getRing(zone));
+    // equal list of another request
+    Assertions.assertSame(all, loadBalancer.getRing(new ArrayList<>(instances)));
+  }
+}
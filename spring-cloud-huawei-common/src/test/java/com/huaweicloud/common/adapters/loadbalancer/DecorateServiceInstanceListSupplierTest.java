@@ -0,0 +1,145 @@
+/*
+
+ * Copyright (C) 2020-2022 Huawei Technologies Co., Ltd. All rights reserved.
+
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.huaweicloud.common.adapters.loadbalancer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.DefaultRequest;
+import org.springframework.cloud.client.loadbalancer.Request;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+
+import reactor.core.publisher.Flux;
+
+public class DecorateServiceInstanceListSupplierTest {
+  static class FixedSupplier implements ServiceInstanceListSupplier {
+    final List<ServiceInstance> instances;
+
+    FixedSupplier(List<ServiceInstance> instances) {
+      this.instances = instances;
+    }
+
+    @Override
+    public String getServiceId() {
+      return "test";
+    }
+
+    @Override
+    public Flux<List<ServiceInstance>> get() {
+      return Flux.just(instances);
+    }
+  }
+
+  // keeps instances of the given index modulo, and checks cacheKey and filter get the same list
+  static class RecordingFilter implements ServiceInstanceFilter {
+    final int order;
+
+    final boolean random;
+
+    final AtomicInteger filtered = new AtomicInteger();
+
+    List<ServiceInstance> keyInput;
+
+    List<List<ServiceInstance>> partitions;
+
+    RecordingFilter(int order, boolean random) {
+      this.order = order;
+      this.random = random;
+    }
+
+    @Override
+    public List<ServiceInstance> filter(ServiceInstanceListSupplier supplier, List<ServiceInstance> instances,
+        Request<?> request) {
+      if (!random) {
+        Assertions.assertSame(keyInput, instances);
+      }
+      filtered.incrementAndGet();
+      if (random) {
+        // alternate between two partitions, like choosing a zone
+        if (partitions == null) {
+          partitions = Arrays.asList(instances.subList(0, 2), instances.subList(2, 4));
+        }
+        return partitions.get(filtered.get() % 2);
+      }
+      return new ArrayList<>(instances.subList(0, instances.size() - 1));
+    }
+
+    @Override
+    public Object cacheKey(ServiceInstanceListSupplier supplier, List<ServiceInstance> instances,
+        Request<?> request) {
+      keyInput = instances;
+      return random ? null : order;
+    }
+
+    @Override
+    public int getOrder() {
+      return order;
+    }
+  }
+
+  private static List<ServiceInstance> instances(int count) {
+    List<ServiceInstance> instances = new ArrayList<>();
+    for (int i = 0; i < count; i++) {
+      instances.add(new DefaultServiceInstance("id" + i, "test", "10.0.0." + i, 8080, false));
+    }
+    return instances;
+  }
+
+  @Test
+  public void test_results_reused_by_stage() {
+    RecordingFilter first = new RecordingFilter(-3, false);
+    RecordingFilter second = new RecordingFilter(-1, false);
+    DecorateServiceInstanceListSupplier supplier = new DecorateServiceInstanceListSupplier(
+        new FixedSupplier(instances(5)));
+    supplier.setFilters(Arrays.asList(first, second));
+    Request<?> request = new DefaultRequest<>();
+
+    List<ServiceInstance> result = supplier.get(request).blockFirst();
+    Assertions.assertEquals(3, result.size());
+    for (int i = 0; i < 10; i++) {
+      Assertions.assertSame(result, supplier.get(request).blockFirst());
+    }
+    Assertions.assertEquals(1, first.filtered.get());
+    Assertions.assertEquals(1, second.filtered.get());
+  }
+
+  @Test
+  public void test_stages_after_random_filter_reused_by_its_output() {
+    RecordingFilter first = new RecordingFilter(-3, false);
+    RecordingFilter zone = new RecordingFilter(-2, true);
+    RecordingFilter last = new RecordingFilter(-1, false);
+    DecorateServiceInstanceListSupplier supplier = new DecorateServiceInstanceListSupplier(
+        new FixedSupplier(instances(5)));
+    supplier.setFilters(Arrays.asList(first, zone, last));
+    Request<?> request = new DefaultRequest<>();
+
+    for (int i = 0; i < 10; i++) {
+      Assertions.assertEquals(1, supplier.get(request).blockFirst().size());
+    }
+    Assertions.assertEquals(1, first.filtered.get());
+    Assertions.assertEquals(10, zone.filtered.get());
+    // once for each of the two lists chosen
+    Assertions.assertEquals(2, last.filtered.get());
+  }
+}
@@ -0,0 +1,67 @@
+/*
+
+ * Copyright (C) 2020-2022 Huawei Technologies Co., Ltd. All rights reserved.
+
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.huaweicloud.common.adapters.loadbalancer;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.CompletionContext;
+import org.springframework.cloud.client.loadbalancer.CompletionContext.Status;
+import org.springframework.cloud.client.loadbalancer.DefaultRequest;
+import org.springframework.cloud.client.loadbalancer.DefaultResponse;
+import org.springframework.cloud.client.loadbalancer.EmptyResponse;
+
+import com.huaweicloud.common.metrics.InFlightRequests;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class InFlightLoadBalancerLifecycleTest {
+  @Test
+  public void testCountRequestsSent() {
+    InFlightRequests inFlightRequests = new InFlightRequests(new SimpleMeterRegistry());
+    InFlightLoadBalancerLifecycle lifecycle = new InFlightLoadBalancerLifecycle(inFlightRequests);
+    DefaultRequest<Object> request = new DefaultRequest<>();
+    DefaultResponse response = new DefaultResponse(
+        new DefaultServiceInstance("i1", "service", "127.0.0.1", 8080, false));
+
+    lifecycle.onStart(request);
+    Assertions.assertEquals(0, inFlightRequests.getOutbound());
+    lifecycle.onStartRequest(request, response);
+    Assertions.assertEquals(1, inFlightRequests.getOutbound());
+    lifecycle.onComplete(new CompletionContext<>(Status.SUCCESS, request, response));
+    Assertions.assertEquals(0, inFlightRequests.getOutbound());
+  }
+
+  @Test
+  public void testNotCountChooseOnly() {
+    InFlightRequests inFlightRequests = new InFlightRequests(new SimpleMeterRegistry());
+    InFlightLoadBalancerLifecycle lifecycle = new InFlightLoadBalancerLifecycle(inFlightRequests);
+    DefaultRequest<Object> request = new DefaultRequest<>();
+
+    // chosen without execute
+    lifecycle.onStart(request);
+    Assertions.assertEquals(0, inFlightRequests.getOutbound());
+
+    // no instance
+    lifecycle.onStart(request);
+    lifecycle.onComplete(new CompletionContext<Object, ServiceInstance, Object>(Status.DISCARD, request,
+        new EmptyResponse()));
+    Assertions.assertEquals(0, inFlightRequests.getOutbound());
+  }
+}
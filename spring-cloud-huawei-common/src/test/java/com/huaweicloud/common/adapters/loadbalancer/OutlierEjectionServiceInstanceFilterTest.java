@@ -0,0 +1,97 @@
+/*
+
+ * Copyright (C) 2020-2022 Huawei Technologies Co., Ltd. All rights reserved.
+
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.huaweicloud.common.adapters.loadbalancer;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+
+import com.huaweicloud.common.configration.dynamic.LoadBalancerProperties;
+
+public class OutlierEjectionServiceInstanceFilterTest {
+  private final LoadBalancerProperties loadBalancerProperties = new LoadBalancerProperties();
+
+  private final ServiceInstanceStatistics statistics = new ServiceInstanceStatistics(loadBalancerProperties);
+
+  private final OutlierEjectionServiceInstanceFilter filter =
+      new OutlierEjectionServiceInstanceFilter(statistics, loadBalancerProperties);
+
+  private static List<ServiceInstance> instances(int count) {
+    List<ServiceInstance> instances = new ArrayList<>();
+    for (int i = 0; i < count; i++) {
+      instances.add(new DefaultServiceInstance("id" + i, "test", "10.0.0." + i, 8080, false));
+    }
+    return instances;
+  }
+
+  private void fail(ServiceInstance instance, int times) {
+    for (int i = 0; i < times; i++) {
+      statistics.recordResult(instance, false);
+    }
+  }
+
+  @Test
+  public void test_consecutive_failures_ejected() {
+    loadBalancerProperties.getOutlierDetection().setEnabled(true);
+    List<ServiceInstance> instances = instances(4);
+
+    fail(instances.get(1), 4);
+    statistics.recordResult(instances.get(1), true);
+    fail(instances.get(1), 4);
+    Assertions.assertSame(instances, filter.filter(null, instances, null));
+
+    fail(instances.get(1), 1);
+    List<ServiceInstance> result = filter.filter(null, instances, null);
+    Assertions.assertEquals(3, result.size());
+    Assertions.assertFalse(result.contains(instances.get(1)));
+    Assertions.assertSame(result, filter.filter(null, instances, null));
+  }
+
+  @Test
+  public void test_max_ejection_percent() {
+    loadBalancerProperties.getOutlierDetection().setEnabled(true);
+    List<ServiceInstance> instances = instances(4);
+    instances.forEach(instance -> fail(instance, 5));
+    Assertions.assertEquals(2, filter.filter(null, instances, null).size());
+  }
+
+  @Test
+  public void test_ejection_time_passed() throws Exception {
+    loadBalancerProperties.getOutlierDetection().setEnabled(true);
+    loadBalancerProperties.getOutlierDetection().setBaseEjectionTimeInMillis(10);
+    List<ServiceInstance> instances = instances(2);
+    fail(instances.get(0), 5);
+    long version = (Long) filter.cacheKey(null, instances, null);
+    Assertions.assertEquals(1, filter.filter(null, instances, null).size());
+
+    Thread.sleep(20);
+    Assertions.assertNotEquals(version, filter.cacheKey(null, instances, null));
+    Assertions.assertSame(instances, filter.filter(null, instances, null));
+  }
+
+  @Test
+  public void test_disabled() {
+    List<ServiceInstance> instances = instances(2);
+    fail(instances.get(0), 10);
+    Assertions.assertSame(instances, filter.filter(null, instances, null));
+  }
+}
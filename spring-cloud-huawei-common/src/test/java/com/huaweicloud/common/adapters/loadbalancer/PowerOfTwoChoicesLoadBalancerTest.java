@@ -0,0 +1,117 @@
+/*
+
+ * Copyright (C) 2020-2022 Huawei Technologies Co., Ltd. All rights reserved.
+
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.huaweicloud.common.adapters.loadbalancer;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.CompletionContext;
+import org.springframework.cloud.client.loadbalancer.CompletionContext.Status;
+import org.springframework.cloud.client.loadbalancer.DefaultRequest;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+
+import com.huaweicloud.common.adapters.loadbalancer.RetryAwareLoadBalancerTest.CallbackSupplier;
+import com.huaweicloud.common.adapters.loadbalancer.ServiceInstanceStatistics.InstanceStatistics;
+import com.huaweicloud.common.configration.dynamic.LoadBalancerProperties;
+
+public class PowerOfTwoChoicesLoadBalancerTest {
+  private static List<ServiceInstance> instances(int count) {
+    List<ServiceInstance> instances = new ArrayList<>();
+    for (int i = 0; i < count; i++) {
+      instances.add(new DefaultServiceInstance("id" + i, "test", "10.0.0." + i, 8080, false));
+    }
+    return instances;
+  }
+
+  private static PowerOfTwoChoicesLoadBalancer loadBalancer(CallbackSupplier supplier,
+      ServiceInstanceStatistics statistics) {
+    StaticListableBeanFactory beanFactory = new StaticListableBeanFactory();
+    beanFactory.addBean("supplier", supplier);
+    return new PowerOfTwoChoicesLoadBalancer(beanFactory.getBeanProvider(ServiceInstanceListSupplier.class),
+        "test", statistics, InstanceStatistics::getOutstandingRequests);
+  }
+
+  @Test
+  public void test_lower_cost_chosen() {
+    List<ServiceInstance> instances = instances(2);
+    ServiceInstanceStatistics statistics = new ServiceInstanceStatistics(new LoadBalancerProperties());
+    CallbackSupplier supplier = new CallbackSupplier(instances);
+    PowerOfTwoChoicesLoadBalancer loadBalancer = loadBalancer(supplier, statistics);
+    statistics.get(instances.get(0)).requestStarted();
+
+    // both instances are sampled when there are two
+    for (int i = 0; i < 20; i++) {
+      Assertions.assertSame(instances.get(1), loadBalancer.choose(new DefaultRequest<>()).block().getServer());
+    }
+    Assertions.assertEquals(Collections.nCopies(20, instances.get(1)), supplier.selected);
+  }
+
+  @Test
+  public void test_single_and_no_instance() {
+    ServiceInstanceStatistics statistics = new ServiceInstanceStatistics(new LoadBalancerProperties());
+    List<ServiceInstance> instances = instances(1);
+    statistics.get(instances.get(0)).requestStarted();
+    Assertions.assertSame(instances.get(0), loadBalancer(new CallbackSupplier(instances), statistics)
+        .choose(new DefaultRequest<>()).block().getServer());
+
+    CallbackSupplier empty = new CallbackSupplier(Collections.emptyList());
+    Assertions.assertFalse(loadBalancer(empty, statistics).choose(new DefaultRequest<>()).block().hasServer());
+    Assertions.assertTrue(empty.selected.isEmpty());
+  }
+
+  @Test
+  public void test_outstanding_requests_recorded_by_lifecycle() {
+    List<ServiceInstance> instances = instances(2);
+    ServiceInstanceStatistics statistics = new ServiceInstanceStatistics(new LoadBalancerProperties());
+    ServiceInstanceStatisticsLifecycle lifecycle = new ServiceInstanceStatisticsLifecycle(statistics);
+    PowerOfTwoChoicesLoadBalancer loadBalancer = loadBalancer(new CallbackSupplier(instances), statistics);
+
+    // requests in flight are spread to the instance with fewer outstanding
+    List<DefaultRequest<Object>> requests = new ArrayList<>();
+    List<Response<ServiceInstance>> responses = new ArrayList<>();
+    for (int i = 0; i < 6; i++) {
+      DefaultRequest<Object> request = new DefaultRequest<>();
+      Response<ServiceInstance> response = loadBalancer.choose(request).block();
+      lifecycle.onStartRequest(request, response);
+      requests.add(request);
+      responses.add(response);
+    }
+    Assertions.assertEquals(3, statistics.get(instances.get(0)).getOutstandingRequests());
+    Assertions.assertEquals(3, statistics.get(instances.get(1)).getOutstandingRequests());
+
+    // completing requests of one instance makes it preferred
+    for (int i = 0; i < requests.size(); i++) {
+      if (responses.get(i).getServer() == instances.get(0)) {
+        lifecycle.onComplete(new CompletionContext<>(Status.SUCCESS, requests.get(i), responses.get(i)));
+      }
+    }
+    Assertions.assertEquals(0, statistics.get(instances.get(0)).getOutstandingRequests());
+    Assertions.assertSame(instances.get(0), loadBalancer.choose(new DefaultRequest<>()).block().getServer());
+
+    // discarded requests are not counted
+    lifecycle.onComplete(new CompletionContext<>(Status.DISCARD, new DefaultRequest<>()));
+    Assertions.assertEquals(3, statistics.get(instances.get(1)).getOutstandingRequests());
+  }
+}
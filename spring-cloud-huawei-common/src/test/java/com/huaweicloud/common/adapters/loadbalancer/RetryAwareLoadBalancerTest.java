@@ -0,0 +1,168 @@
+/*
+
+ * Copyright (C) 2020-2022 Huawei Technologies Co., Ltd. All rights reserved.
+
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.huaweicloud.common.adapters.loadbalancer;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.DefaultRequest;
+import org.springframework.cloud.loadbalancer.core.SelectedInstanceCallback;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+
+import com.huaweicloud.common.configration.dynamic.LoadBalancerProperties;
+import com.huaweicloud.common.context.InvocationContext;
+import com.huaweicloud.common.context.InvocationContextHolder;
+
+import reactor.core.publisher.Flux;
+
+public class RetryAwareLoadBalancerTest {
+  private static List<ServiceInstance> instances(int count) {
+    List<ServiceInstance> instances = new ArrayList<>();
+    for (int i = 0; i < count; i++) {
+      instances.add(new DefaultServiceInstance("id" + i, "test", "10.0.0." + i, 8080, false));
+    }
+    return instances;
+  }
+
+  // records instances selected, like the same instance preference supplier
+  static class CallbackSupplier implements ServiceInstanceListSupplier, SelectedInstanceCallback {
+    final List<ServiceInstance> instances;
+
+    final List<ServiceInstance> selected = new ArrayList<>();
+
+    CallbackSupplier(List<ServiceInstance> instances) {
+      this.instances = instances;
+    }
+
+    @Override
+    public String getServiceId() {
+      return "test";
+    }
+
+    @Override
+    public Flux<List<ServiceInstance>> get() {
+      return Flux.just(instances);
+    }
+
+    @Override
+    public void selectedServiceInstance(ServiceInstance serviceInstance) {
+      selected.add(serviceInstance);
+    }
+  }
+
+  private static RetryAwareLoadBalancer loadBalancer(List<ServiceInstance> instances, String rule) {
+    return loadBalancer(new CallbackSupplier(instances), rule);
+  }
+
+  private static RetryAwareLoadBalancer loadBalancer(ServiceInstanceListSupplier supplier, String rule) {
+    StaticListableBeanFactory beanFactory = new StaticListableBeanFactory();
+    beanFactory.addBean("supplier", supplier);
+    LoadBalancerProperties loadBalancerProperties = new LoadBalancerProperties();
+    loadBalancerProperties.setRule(rule);
+    return new RetryAwareLoadBalancer(beanFactory.getBeanProvider(ServiceInstanceListSupplier.class), "test",
+        loadBalancerProperties, new ServiceInstanceStatistics(loadBalancerProperties));
+  }
+
+  private static void testExcluded(String rule) {
+    List<ServiceInstance> instances = instances(3);
+    RetryAwareLoadBalancer loadBalancer = loadBalancer(instances, rule);
+    try {
+      for (int i = 0; i < 50; i++) {
+        RetryContext retryContext = new RetryContext(0);
+        retryContext.incrementRetry();
+        retryContext.setExcludedServer(instances.get(1));
+        InvocationContext context = new InvocationContext();
+        context.putLocalContext(RetryContext.RETRY_CONTEXT, retryContext);
+        InvocationContextHolder.setInvocationContext(context);
+
+        ServiceInstance chosen = loadBalancer.choose(new DefaultRequest<>()).block().getServer();
+        Assertions.assertNotSame(instances.get(1), chosen);
+        Assertions.assertSame(chosen, retryContext.getLastServer());
+      }
+    } finally {
+      InvocationContextHolder.setInvocationContext(null);
+    }
+  }
+
+  @Test
+  public void test_excluded_not_chosen_by_random() {
+    testExcluded(LoadBalancerProperties.RULE_RANDOM);
+  }
+
+  @Test
+  public void test_excluded_not_chosen_by_consistent_hash() {
+    testExcluded(LoadBalancerProperties.RULE_CONSISTENT_HASH);
+  }
+
+  @Test
+  public void test_excluded_not_chosen_by_p2c() {
+    testExcluded(LoadBalancerProperties.RULE_P2C);
+  }
+
+  @Test
+  public void test_only_instance_not_excluded() {
+    List<ServiceInstance> instances = instances(1);
+    Assertions.assertSame(instances,
+        RetryAwareLoadBalancer.ExcludingSupplier.exclude(instances, instances.get(0).getInstanceId()));
+    List<ServiceInstance> two = instances(2);
+    Assertions.assertSame(two, RetryAwareLoadBalancer.ExcludingSupplier.exclude(two, "other"));
+    Assertions.assertEquals(1, RetryAwareLoadBalancer.ExcludingSupplier.exclude(two, "id0").size());
+  }
+
+  private static void testSelectedInstanceCallback(String rule) {
+    CallbackSupplier supplier = new CallbackSupplier(instances(3));
+    RetryAwareLoadBalancer loadBalancer = loadBalancer(supplier, rule);
+    try {
+      ServiceInstance chosen = loadBalancer.choose(new DefaultRequest<>()).block().getServer();
+      Assertions.assertEquals(1, supplier.selected.size());
+      Assertions.assertSame(chosen, supplier.selected.get(0));
+
+      RetryContext retryContext = new RetryContext(0);
+      retryContext.setExcludedServer(chosen);
+      InvocationContext context = new InvocationContext();
+      context.putLocalContext(RetryContext.RETRY_CONTEXT, retryContext);
+      InvocationContextHolder.setInvocationContext(context);
+      ServiceInstance hedged = loadBalancer.choose(new DefaultRequest<>()).block().getServer();
+      Assertions.assertNotSame(chosen, hedged);
+      Assertions.assertEquals(2, supplier.selected.size());
+      Assertions.assertSame(hedged, supplier.selected.get(1));
+    } finally {
+      InvocationContextHolder.setInvocationContext(null);
+    }
+  }
+
+  @Test
+  public void test_selected_instance_callback_of_round_robin() {
+    testSelectedInstanceCallback(LoadBalancerProperties.RULE_ROUND_ROBIN);
+  }
+
+  @Test
+  public void test_selected_instance_callback_of_consistent_hash() {
+    testSelectedInstanceCallback(LoadBalancerProperties.RULE_CONSISTENT_HASH);
+  }
+
+  @Test
+  public void test_selected_instance_callback_of_weighted_round_robin() {
+    testSelectedInstanceCallback(LoadBalancerProperties.RULE_WEIGHTED_ROUND_ROBIN);
+  }
+}
@@ -0,0 +1,114 @@
+/*
+
+ * Copyright (C) 2020-2022 Huawei Technologies Co., Ltd. All rights reserved.
+
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.huaweicloud.common.adapters.loadbalancer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.DefaultRequest;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+
+import com.huaweicloud.common.adapters.loadbalancer.RetryAwareLoadBalancerTest.CallbackSupplier;
+import com.huaweicloud.common.adapters.loadbalancer.ServiceInstanceStatistics.InstanceStatistics;
+import com.huaweicloud.common.configration.dynamic.LoadBalancerProperties;
+
+public class ServiceInstanceStatisticsTest {
+  private static final long MILLIS = TimeUnit.MILLISECONDS.toNanos(1);
+
+  private static ServiceInstanceStatistics statistics(long decayTimeInMillis) {
+    LoadBalancerProperties loadBalancerProperties = new LoadBalancerProperties();
+    loadBalancerProperties.setPeakEwmaDecayTimeInMillis(decayTimeInMillis);
+    return new ServiceInstanceStatistics(loadBalancerProperties);
+  }
+
+  private static ServiceInstance instance(String id) {
+    return new DefaultServiceInstance(id, "test", "10.0.0.1", 8080, false);
+  }
+
+  @Test
+  public void test_peak_used_at_once_and_lower_latency_weighted() {
+    InstanceStatistics statistics = statistics(10_000).get(instance("a"));
+    statistics.recordLatency(10 * MILLIS);
+    statistics.recordLatency(100 * MILLIS);
+    Assertions.assertTrue(statistics.getLatencyEwma() > 99 * MILLIS);
+
+    // little time elapsed, the lower sample hardly changes the average
+    statistics.recordLatency(MILLIS);
+    Assertions.assertTrue(statistics.getLatencyEwma() > 90 * MILLIS);
+  }
+
+  @Test
+  public void test_latency_decays_without_samples() throws Exception {
+    InstanceStatistics statistics = statistics(100).get(instance("a"));
+    statistics.recordLatency(100 * MILLIS);
+    Thread.sleep(300);
+    // about 100 * e^-3
+    double latency = statistics.getLatencyEwma();
+    Assertions.assertTrue(latency > 0 && latency < 6 * MILLIS, "latency " + latency);
+  }
+
+  @Test
+  public void test_cost_of_outstanding_requests() {
+    ServiceInstanceStatistics serviceInstanceStatistics = statistics(10_000);
+    InstanceStatistics idle = serviceInstanceStatistics.get(instance("idle"));
+    Assertions.assertEquals(0, idle.getPeakEwmaCost());
+
+    InstanceStatistics sampled = serviceInstanceStatistics.get(instance("sampled"));
+    sampled.recordLatency(1000 * MILLIS);
+    double cost = sampled.getPeakEwmaCost();
+    sampled.requestStarted();
+    sampled.requestStarted();
+    Assertions.assertEquals(3, sampled.getPeakEwmaCost() / cost, 0.01);
+
+    // requests outstanding without latency sampled, e.g. an instance new or hanging, costs the most
+    InstanceStatistics unknown = serviceInstanceStatistics.get(instance("unknown"));
+    unknown.requestStarted();
+    double penalty = unknown.getPeakEwmaCost();
+    Assertions.assertTrue(penalty > sampled.getPeakEwmaCost() * 1000);
+    unknown.requestStarted();
+    Assertions.assertTrue(unknown.getPeakEwmaCost() > penalty);
+  }
+
+  @Test
+  public void test_faster_instance_chosen() {
+    ServiceInstanceStatistics serviceInstanceStatistics = statistics(10_000);
+    List<ServiceInstance> instances = new ArrayList<>();
+    instances.add(instance("fast"));
+    instances.add(instance("slow"));
+    serviceInstanceStatistics.get(instances.get(0)).recordLatency(MILLIS);
+    serviceInstanceStatistics.get(instances.get(1)).recordLatency(50 * MILLIS);
+    StaticListableBeanFactory beanFactory = new StaticListableBeanFactory();
+    beanFactory.addBean("supplier", new CallbackSupplier(instances));
+    PowerOfTwoChoicesLoadBalancer loadBalancer = new PowerOfTwoChoicesLoadBalancer(
+        beanFactory.getBeanProvider(ServiceInstanceListSupplier.class), "test", serviceInstanceStatistics,
+        InstanceStatistics::getPeakEwmaCost);
+    Assertions.assertSame(instances.get(0), loadBalancer.choose(new DefaultRequest<>()).block().getServer());
+
+    // too many requests outstanding on the fast instance
+    for (int i = 0; i < 100; i++) {
+      serviceInstanceStatistics.get(instances.get(0)).requestStarted();
+    }
+    Assertions.assertSame(instances.get(1), loadBalancer.choose(new DefaultRequest<>()).block().getServer());
+  }
+}
@@ -0,0 +1,135 @@
+/*
+
+ * Copyright (C) 2020-2022 Huawei Technologies Co., Ltd. All rights reserved.
+
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.huaweicloud.common.adapters.loadbalancer;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+
+import com.huaweicloud.common.configration.dynamic.LoadBalancerProperties;
+
+public class WeightedRoundRobinLoadBalancerTest {
+  private static ServiceInstance instance(String id, String weight, String timestamp) {
+    Map<String, String> metadata = new HashMap<>();
+    metadata.put(WeightedRoundRobinLoadBalancer.WEIGHT, weight);
+    if (timestamp != null) {
+      metadata.put(WeightedRoundRobinLoadBalancer.TIMESTAMP, timestamp);
+    }
+    return new DefaultServiceInstance(id, "test", "10.0.0.1", 8080, false, metadata);
+  }
+
+  private static Map<String, Integer> choose(WeightedRoundRobinLoadBalancer loadBalancer,
+      List<ServiceInstance> instances, int times) {
+    Map<String, Integer> counts = new HashMap<>();
+    for (int i = 0; i < times; i++) {
+      counts.merge(loadBalancer.getInstanceResponse(instances).getServer().getInstanceId(), 1, Integer::sum);
+    }
+    return counts;
+  }
+
+  @Test
+  public void test_smooth_weights() {
+    WeightedRoundRobinLoadBalancer loadBalancer = new WeightedRoundRobinLoadBalancer(null, "test",
+        new LoadBalancerProperties());
+    List<ServiceInstance> instances = new ArrayList<>();
+    instances.add(instance("a", "50", null));
+    instances.add(instance("b", "10", null));
+    instances.add(instance("c", "10", null));
+
+    Map<String, Integer> counts = choose(loadBalancer, instances, 7);
+    Assertions.assertEquals(5, counts.get("a"));
+    Assertions.assertEquals(1, counts.get("b"));
+    Assertions.assertEquals(1, counts.get("c"));
+  }
+
+  @Test
+  public void test_schedules_of_different_lists() {
+    WeightedRoundRobinLoadBalancer loadBalancer = new WeightedRoundRobinLoadBalancer(null, "test",
+        new LoadBalancerProperties());
+    List<ServiceInstance> zone1 = new ArrayList<>();
+    zone1.add(instance("a", "30", null));
+    zone1.add(instance("b", "10", null));
+    List<ServiceInstance> zone2 = new ArrayList<>();
+    zone2.add(instance("c", "10", null));
+    zone2.add(instance("d", "10", null));
+
+    Map<String, Integer> counts = new HashMap<>();
+    for (int i = 0; i < 40; i++) {
+      List<ServiceInstance> instances = i % 2 == 0 ? zone1 : new ArrayList<>(zone2);
+      counts.merge(loadBalancer.getInstanceResponse(instances).getServer().getInstanceId(), 1, Integer::sum);
+    }
+    Assertions.assertEquals(15, counts.get("a"));
+    Assertions.assertEquals(5, counts.get("b"));
+    Assertions.assertEquals(20, counts.get("c") + counts.get("d"));
+  }
+
+  @Test
+  public void test_slow_start_reads_registration_timestamp() {
+    LoadBalancerProperties properties = new LoadBalancerProperties();
+    properties.setSlowStartWindowInMillis(100_000);
+    WeightedRoundRobinLoadBalancer loadBalancer = new WeightedRoundRobinLoadBalancer(null, "test", properties);
+    List<ServiceInstance> instances = new ArrayList<>();
+    instances.add(instance("old", "100", null));
+    instances.add(instance("new", "100", String.valueOf(System.currentTimeMillis())));
+
+    Map<String, Integer> counts = choose(loadBalancer, instances, 110);
+    Assertions.assertEquals(100, counts.get("old"));
+    Assertions.assertEquals(10, counts.get("new"));
+  }
+
+  @Test
+  public void test_weights_without_common_divisor() {
+    WeightedRoundRobinLoadBalancer loadBalancer = new WeightedRoundRobinLoadBalancer(null, "test",
+        new LoadBalancerProperties());
+    List<ServiceInstance> instances = new ArrayList<>();
+    int total = 0;
+    for (int i = 0; i < 50; i++) {
+      int weight = i % 2 == 0 ? 100 : 99;
+      instances.add(instance("i" + i, String.valueOf(weight), null));
+      total += weight;
+    }
+
+    Map<String, Integer> counts = choose(loadBalancer, instances, total);
+    for (int i = 0; i < 50; i++) {
+      Assertions.assertEquals(i % 2 == 0 ? 100 : 99, counts.get("i" + i));
+    }
+  }
+
+  @Test
+  public void test_zero_weights() {
+    WeightedRoundRobinLoadBalancer loadBalancer = new WeightedRoundRobinLoadBalancer(null, "test",
+        new LoadBalancerProperties());
+    List<ServiceInstance> instances = new ArrayList<>();
+    instances.add(instance("a", "10", null));
+    instances.add(instance("b", "0", null));
+    Assertions.assertEquals(10, choose(loadBalancer, instances, 10).get("a"));
+
+    List<ServiceInstance> zeros = new ArrayList<>();
+    zeros.add(instance("c", "0", null));
+    zeros.add(instance("d", "0", null));
+    Map<String, Integer> counts = choose(loadBalancer, zeros, 10);
+    Assertions.assertEquals(5, counts.get("c"));
+    Assertions.assertEquals(5, counts.get("d"));
+  }
+}
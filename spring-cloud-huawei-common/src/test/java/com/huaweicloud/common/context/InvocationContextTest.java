@@ -17,10 +17,15 @@
 
 package com.huaweicloud.common.context;
 
+import java.util.HashMap;
+import java.util.Map;
+
 import org.apache.commons.codec.net.URLCodec;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 
+import com.huaweicloud.common.util.HeaderUtil;
+
 public class InvocationContextTest {
   URLCodec coded = new URLCodec("UTF-8");
 
@@ -74,4 +79,41 @@ public class InvocationContextTest {
     String context = InvocationContextHolder.serialize(null);
     Assertions.assertEquals("", context);
   }
+
+  @Test
+  public void test_compact_context_round_trip() {
+    InvocationContext invocationContext = new InvocationContext();
+    invocationContext.putContext("foo", "foo");
+    invocationContext.putContext("empty", "");
+    invocationContext.putContext("nullValue", null);
+    invocationContext.putContext("中文", "{\"canary\":\"值=1&v=2\"}");
+
+    String serialized = InvocationContextHolder.serialize(invocationContext, true);
+    Assertions.assertTrue(serialized.startsWith(HeaderUtil.COMPACT_PREFIX));
+    Assertions.assertTrue(serialized.length() < InvocationContextHolder.serialize(invocationContext).length());
+
+    InvocationContext result = InvocationContextHolder.deserializeAndCreate(serialized);
+    Assertions.assertEquals(invocationContext.getContext(), result.getContext());
+    Assertions.assertTrue(result.getContext().containsKey("nullValue"));
+  }
+
+  @Test
+  public void test_compact_context_large_value() {
+    Map<String, String> context = new HashMap<>();
+    StringBuilder token = new StringBuilder();
+    for (int i = 0; i < 1000; i++) {
+      token.append("token-").append(i);
+    }
+    context.put("x-auth-token", token.toString());
+
+    Assertions.assertEquals(context, HeaderUtil.deserialize(HeaderUtil.serializeCompact(context)));
+  }
+
+  @Test
+  public void test_compact_context_malformed() {
+    InvocationContext invocationContext = InvocationContextHolder.deserializeAndCreate(HeaderUtil.COMPACT_PREFIX + "Bw");
+    Assertions.assertTrue(invocationContext.getContext().isEmpty());
+    invocationContext = InvocationContextHolder.deserializeAndCreate(HeaderUtil.COMPACT_PREFIX + "!!");
+    Assertions.assertTrue(invocationContext.getContext().isEmpty());
+  }
 }
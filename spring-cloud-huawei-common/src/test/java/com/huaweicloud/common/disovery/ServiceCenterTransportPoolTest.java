@@ -0,0 +1,59 @@
+/*
+
+  * Copyright (C) 2020-2022 Huawei Technologies Co., Ltd. All rights reserved.
+
+  * Licensed under the Apache License, Version 2.0 (the "License");
+  * you may not use this file except in compliance with the License.
+  * You may obtain a copy of the License at
+  *
+  *     http://www.apache.org/licenses/LICENSE-2.0
+  *
+  * Unless required by applicable law or agreed to in writing, software
+  * distributed under the License is distributed on an "AS IS" BASIS,
+  * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  * See the License for the specific language governing permissions and
+  * limitations under the License.
+  */
+
+package com.huaweicloud.common.disovery;
+
+import org.apache.servicecomb.http.client.common.HttpConfiguration.SSLProperties;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import com.huaweicloud.common.configration.bootstrap.DiscoveryBootstrapProperties;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class ServiceCenterTransportPoolTest {
+  private static int gauges(SimpleMeterRegistry meterRegistry, String address) {
+    return meterRegistry.find("metrics.servicecenter.connections").tag("address", address).gauges().size();
+  }
+
+  @Test
+  public void test_pools_closed_and_metrics_removed() {
+    DiscoveryBootstrapProperties discoveryProperties = new DiscoveryBootstrapProperties();
+    discoveryProperties.setAddress("http://127.0.0.1:30100");
+    SSLProperties sslProperties = new SSLProperties();
+    sslProperties.setEnabled(false);
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    try {
+      ServiceCenterTransportPool.bindMetrics(meterRegistry);
+      ServiceCenterTransportPool.createHttpTransport(discoveryProperties, sslProperties, signRequest -> null);
+      ServiceCenterTransportPool.createHttpTransport(discoveryProperties, sslProperties, signRequest -> null);
+      // leased, available, pending and max of the only pool
+      Assertions.assertEquals(4, gauges(meterRegistry, "http://127.0.0.1:30100"));
+
+      ServiceCenterTransportPool.close();
+      Assertions.assertEquals(0, gauges(meterRegistry, "http://127.0.0.1:30100"));
+
+      // created again by clients of a new context
+      ServiceCenterTransportPool.bindMetrics(meterRegistry);
+      Assertions.assertNotNull(
+          ServiceCenterTransportPool.createHttpTransport(discoveryProperties, sslProperties, signRequest -> null));
+      Assertions.assertEquals(4, gauges(meterRegistry, "http://127.0.0.1:30100"));
+    } finally {
+      ServiceCenterTransportPool.close();
+    }
+  }
+}
@@ -0,0 +1,158 @@
+/*
+
+ * Copyright (C) 2020-2022 Huawei Technologies Co., Ltd. All rights reserved.
+
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.huaweicloud.common.event;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import com.google.common.eventbus.Subscribe;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class AsyncEventDispatcherTest {
+  public static class SignalEvent {
+  }
+
+  public static class Subscriber {
+    final CountDownLatch started = new CountDownLatch(1);
+
+    final CountDownLatch blocked = new CountDownLatch(1);
+
+    final List<Object> events = Collections.synchronizedList(new ArrayList<>());
+
+    @Subscribe
+    public void onSignalEvent(SignalEvent event) throws InterruptedException {
+      started.countDown();
+      blocked.await(10, TimeUnit.SECONDS);
+      events.add(event);
+    }
+
+    @Subscribe
+    public void onInteger(Integer event) {
+      events.add(event);
+    }
+  }
+
+  @Test
+  public void test_events_dispatched_in_order_and_signals_coalesced() throws Exception {
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    AsyncEventDispatcher dispatcher = new AsyncEventDispatcher(2, 100, meterRegistry);
+    DispatchingEventBus eventBus = new DispatchingEventBus();
+    eventBus.setDispatcher(dispatcher);
+    Subscriber subscriber = new Subscriber();
+    eventBus.register(subscriber);
+
+    // first one is dispatching, the others waiting are coalesced to one
+    eventBus.post(new SignalEvent());
+    Assertions.assertTrue(subscriber.started.await(10, TimeUnit.SECONDS));
+    for (int i = 0; i < 5; i++) {
+      eventBus.post(new SignalEvent());
+    }
+    for (int i = 0; i < 10; i++) {
+      eventBus.post(i);
+    }
+    subscriber.blocked.countDown();
+    dispatcher.close();
+
+    long deadline = System.currentTimeMillis() + 10000;
+    while (subscriber.events.size() < 12 && System.currentTimeMillis() < deadline) {
+      Thread.sleep(10);
+    }
+    List<Object> integers = new ArrayList<>();
+    long signals = 0;
+    synchronized (subscriber.events) {
+      for (Object event : subscriber.events) {
+        if (event instanceof Integer) {
+          integers.add(event);
+        } else {
+          signals++;
+        }
+      }
+    }
+    Assertions.assertEquals(2, signals);
+    Assertions.assertEquals(Arrays.asList(0, 1, 2, 3, 4, 5, 6, 7, 8, 9), integers);
+    Assertions.assertTrue(meterRegistry.get(AsyncEventDispatcher.METRICS_EVENT_COALESCED)
+        .tag("event", "SignalEvent").counter().count() >= 4);
+  }
+
+  @Test
+  public void test_posting_thread_waits_when_queue_full() throws Exception {
+    AsyncEventDispatcher dispatcher = new AsyncEventDispatcher(1, 2, new SimpleMeterRegistry());
+    DispatchingEventBus eventBus = new DispatchingEventBus();
+    eventBus.setDispatcher(dispatcher);
+    Subscriber subscriber = new Subscriber();
+    eventBus.register(subscriber);
+
+    // the only dispatcher thread is blocked, integers are waiting
+    eventBus.post(new SignalEvent());
+    Assertions.assertTrue(subscriber.started.await(10, TimeUnit.SECONDS));
+    eventBus.post(0);
+    eventBus.post(1);
+    Thread poster = new Thread(() -> eventBus.post(2));
+    poster.start();
+    poster.join(200);
+    Assertions.assertTrue(poster.isAlive());
+    Assertions.assertTrue(subscriber.events.isEmpty());
+
+    subscriber.blocked.countDown();
+    poster.join(10000);
+    Assertions.assertFalse(poster.isAlive());
+    long deadline = System.currentTimeMillis() + 10000;
+    while (subscriber.events.size() < 4 && System.currentTimeMillis() < deadline) {
+      Thread.sleep(10);
+    }
+    dispatcher.close();
+    Assertions.assertEquals(Arrays.asList(0, 1, 2), subscriber.events.subList(1, subscriber.events.size()));
+  }
+
+  @Test
+  public void test_event_dropped_when_queue_full_over_max_wait() throws Exception {
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    AsyncEventDispatcher dispatcher = new AsyncEventDispatcher(1, 2, 100, meterRegistry);
+    DispatchingEventBus eventBus = new DispatchingEventBus();
+    eventBus.setDispatcher(dispatcher);
+    Subscriber subscriber = new Subscriber();
+    eventBus.register(subscriber);
+
+    eventBus.post(new SignalEvent());
+    Assertions.assertTrue(subscriber.started.await(10, TimeUnit.SECONDS));
+    eventBus.post(0);
+    eventBus.post(1);
+    long begin = System.currentTimeMillis();
+    eventBus.post(2);
+    long used = System.currentTimeMillis() - begin;
+    Assertions.assertTrue(used >= 90 && used < 5000);
+    Assertions.assertEquals(1, meterRegistry.get(AsyncEventDispatcher.METRICS_EVENT_DROPPED)
+        .tag("event", "Integer").counter().count());
+
+    subscriber.blocked.countDown();
+    long deadline = System.currentTimeMillis() + 10000;
+    while (subscriber.events.size() < 3 && System.currentTimeMillis() < deadline) {
+      Thread.sleep(10);
+    }
+    dispatcher.close();
+    Assertions.assertEquals(Arrays.asList(0, 1), subscriber.events.subList(1, subscriber.events.size()));
+  }
+}
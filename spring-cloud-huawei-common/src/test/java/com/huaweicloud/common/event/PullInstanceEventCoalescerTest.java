@@ -0,0 +1,91 @@
+/*
+
+ * Copyright (C) 2020-2022 Huawei Technologies Co., Ltd. All rights reserved.
+
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.huaweicloud.common.event;
+
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.servicecomb.service.center.client.DiscoveryEvents.PullInstanceEvent;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import com.google.common.eventbus.Subscribe;
+import com.huaweicloud.common.configration.bootstrap.DiscoveryBootstrapProperties;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class PullInstanceEventCoalescerTest {
+  public static class Subscriber {
+    // time of each pull
+    final LinkedBlockingQueue<Long> pulls = new LinkedBlockingQueue<>();
+
+    @Subscribe
+    public void onPullInstanceEvent(PullInstanceEvent event) {
+      pulls.add(System.currentTimeMillis());
+    }
+  }
+
+  private static double count(SimpleMeterRegistry meterRegistry, String service, String result) {
+    return meterRegistry.get(PullInstanceEventCoalescer.METRICS_PULL_REQUESTS)
+        .tag("service", service).tag("result", result).counter().count();
+  }
+
+  @Test
+  public void test_requests_coalesced_in_debounce_window() throws Exception {
+    DiscoveryBootstrapProperties properties = new DiscoveryBootstrapProperties();
+    properties.setPullInstanceDebounceInMillis(500);
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    PullInstanceEventCoalescer coalescer = new PullInstanceEventCoalescer(properties, meterRegistry);
+    Subscriber subscriber = new Subscriber();
+    EventManager.register(subscriber);
+    try {
+      // no pull in last window, pull at once
+      long begin = System.currentTimeMillis();
+      coalescer.request("a");
+      Long first = subscriber.pulls.poll(5, TimeUnit.SECONDS);
+      Assertions.assertNotNull(first);
+      Assertions.assertTrue(first - begin < 400);
+
+      // the first request waits for the window, others are suppressed while it is pending
+      coalescer.request("a");
+      for (int i = 0; i < 5; i++) {
+        coalescer.request("b");
+      }
+      coalescer.request(null);
+      Long second = subscriber.pulls.poll(5, TimeUnit.SECONDS);
+      Assertions.assertNotNull(second);
+      Assertions.assertTrue(second - first >= 450, "pulled after " + (second - first));
+      Assertions.assertNull(subscriber.pulls.poll(700, TimeUnit.MILLISECONDS));
+
+      // window passed, pull at once again
+      begin = System.currentTimeMillis();
+      coalescer.request("b");
+      Long third = subscriber.pulls.poll(5, TimeUnit.SECONDS);
+      Assertions.assertNotNull(third);
+      Assertions.assertTrue(third - begin < 400);
+
+      Assertions.assertEquals(2, count(meterRegistry, "a", "accepted"));
+      Assertions.assertEquals(1, count(meterRegistry, "b", "accepted"));
+      Assertions.assertEquals(5, count(meterRegistry, "b", "suppressed"));
+      Assertions.assertEquals(1, count(meterRegistry, "unknown", "suppressed"));
+    } finally {
+      EventManager.getEventBus().unregister(subscriber);
+      coalescer.shutdown();
+    }
+  }
+}
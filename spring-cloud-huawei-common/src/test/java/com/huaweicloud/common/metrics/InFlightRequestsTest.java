@@ -0,0 +1,62 @@
+/*
+
+ * Copyright (C) 2020-2022 Huawei Technologies Co., Ltd. All rights reserved.
+
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.huaweicloud.common.metrics;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class InFlightRequestsTest {
+  @Test
+  public void testWaitQuietTimeWhenNoRequests() {
+    InFlightRequests inFlightRequests = new InFlightRequests(new SimpleMeterRegistry());
+    Assertions.assertTrue(inFlightRequests.awaitDrained(0, 1000) < 100);
+    long used = inFlightRequests.awaitDrained(200, 1000);
+    Assertions.assertTrue(used >= 200 && used < 1000);
+  }
+
+  @Test
+  public void testNewInboundRequestExtendsQuietTime() throws Exception {
+    InFlightRequests inFlightRequests = new InFlightRequests(new SimpleMeterRegistry());
+    Thread thread = new Thread(() -> {
+      try {
+        Thread.sleep(150);
+        inFlightRequests.inboundStarted();
+        Thread.sleep(100);
+        inFlightRequests.inboundFinished();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    });
+    thread.start();
+    long used = inFlightRequests.awaitDrained(200, 2000);
+    thread.join();
+    Assertions.assertTrue(used >= 350 && used < 2000);
+    Assertions.assertEquals(0, inFlightRequests.getInbound());
+  }
+
+  @Test
+  public void testTimeoutWhenNotDrained() {
+    InFlightRequests inFlightRequests = new InFlightRequests(new SimpleMeterRegistry());
+    inFlightRequests.outboundStarted();
+    long used = inFlightRequests.awaitDrained(0, 200);
+    Assertions.assertTrue(used >= 200);
+    Assertions.assertEquals(1, inFlightRequests.getOutbound());
+  }
+}
@@ -17,30 +17,49 @@
 
 package com.huaweicloud.servicecomb.discovery;
 
+import java.util.HashMap;
 import java.util.List;
 
 import org.apache.servicecomb.foundation.auth.AuthHeaderProvider;
+import org.apache.servicecomb.service.center.client.AddressManager;
 import org.apache.servicecomb.service.center.client.ServiceCenterClient;
 import org.apache.servicecomb.service.center.client.ServiceCenterWatch;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.DependsOn;
 
 import com.huaweicloud.common.configration.bootstrap.DiscoveryBootstrapProperties;
 import com.huaweicloud.common.configration.bootstrap.ServiceCombSSLProperties;
+import com.huaweicloud.common.disovery.ServiceCenterTransportPool;
 import com.huaweicloud.common.disovery.ServiceCenterUtils;
+import com.huaweicloud.common.event.EventManager;
+import com.huaweicloud.common.transport.TransportUtils;
 import com.huaweicloud.servicecomb.discovery.discovery.DiscoveryProperties;
+import com.huaweicloud.servicecomb.discovery.discovery.InstanceDeltaWatch;
+
+import io.micrometer.core.instrument.MeterRegistry;
 
 @Configuration
 @ConditionalOnServiceCombDiscoveryEnabled
 @EnableConfigurationProperties({DiscoveryProperties.class})
 public class DiscoveryAutoConfiguration {
+  // destroyed after the client and beans using it, e.g. registry deregistering instance
+  @Bean
+  public DisposableBean serviceCenterTransportPoolCloser() {
+    return ServiceCenterTransportPool::close;
+  }
+
   @Bean
   @ConditionalOnMissingBean
+  @DependsOn("serviceCenterTransportPoolCloser")
   public ServiceCenterClient serviceCenterClient(DiscoveryBootstrapProperties discoveryProperties,
       ServiceCombSSLProperties serviceCombSSLProperties,
-      List<AuthHeaderProvider> authHeaderProviders) {
+      List<AuthHeaderProvider> authHeaderProviders, ObjectProvider<MeterRegistry> meterRegistry) {
+    ServiceCenterTransportPool.bindMetrics(meterRegistry.getIfAvailable());
     return ServiceCenterUtils.serviceCenterClient(discoveryProperties, serviceCombSSLProperties, authHeaderProviders);
   }
 
@@ -49,6 +68,13 @@ public class DiscoveryAutoConfiguration {
   public ServiceCenterWatch serviceCenterWatch(DiscoveryBootstrapProperties discoveryProperties,
       ServiceCombSSLProperties serviceCombSSLProperties,
       List<AuthHeaderProvider> authHeaderProviders) {
-    return ServiceCenterUtils.serviceCenterWatch(discoveryProperties, serviceCombSSLProperties, authHeaderProviders);
+    if (!discoveryProperties.isWatchDelta()) {
+      return ServiceCenterUtils.serviceCenterWatch(discoveryProperties, serviceCombSSLProperties, authHeaderProviders);
+    }
+    AddressManager addressManager = ServiceCenterUtils.createAddressManager(discoveryProperties);
+    return new InstanceDeltaWatch(addressManager,
+        TransportUtils.createSSLProperties(addressManager.sslEnabled(), serviceCombSSLProperties),
+        ServiceCenterUtils.getRequestAuthHeaderProvider(authHeaderProviders),
+        "default", new HashMap<>(), EventManager.getEventBus());
   }
 }
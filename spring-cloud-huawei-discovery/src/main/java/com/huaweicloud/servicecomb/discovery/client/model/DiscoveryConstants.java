@@ -28,6 +28,9 @@ public final class DiscoveryConstants {
 
   public static final String INSTANCE_ZONE = "zone";
 
+  // namespaced, not to override instance property "timestamp" set by users
+  public static final String INSTANCE_TIMESTAMP = "servicecomb.instance.timestamp";
+
   public static final String DEFAULT_PROJECT = "default";
 
   public static final String TENANT_NAME = "servicecomb.config.client.tenantName";
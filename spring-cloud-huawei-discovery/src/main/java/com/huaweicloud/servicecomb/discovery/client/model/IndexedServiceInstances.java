@@ -0,0 +1,130 @@
+/*
+
+  * Copyright (C) 2020-2022 Huawei Technologies Co., Ltd. All rights reserved.
+
+  * Licensed under the Apache License, Version 2.0 (the "License");
+  * you may not use this file except in compliance with the License.
+  * You may obtain a copy of the License at
+  *
+  *     http://www.apache.org/licenses/LICENSE-2.0
+  *
+  * Unless required by applicable law or agreed to in writing, software
+  * distributed under the License is distributed on an "AS IS" BASIS,
+  * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  * See the License for the specific language governing permissions and
+  * limitations under the License.
+  */
+
+package com.huaweicloud.servicecomb.discovery.client.model;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+import org.apache.servicecomb.service.center.client.model.DataCenterInfo;
+import org.apache.servicecomb.service.center.client.model.MicroserviceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+
+/**
+ * Unmodifiable instance list with indexes by version, region, and region and available zone. Indexes are
+ * built at the first query and live as long as the list, so they are rebuilt only when the instance list
+ * changes. Users can keep their own values computed from the list by getDerived.
+ *
+ * Subsets returned are also indexed, so that filters in a chain can query them again.
+ */
+public final class IndexedServiceInstances extends AbstractList<ServiceInstance> implements RandomAccess {
+  private static final String ZONE_SEPARATOR = "/";
+
+  private final List<ServiceInstance> instances;
+
+  private volatile Map<String, List<ServiceInstance>> byVersion;
+
+  private volatile Map<String, List<ServiceInstance>> byRegion;
+
+  private volatile Map<String, List<ServiceInstance>> byZone;
+
+  private final Map<Object, Object> derived = new ConcurrentHashMap<>();
+
+  /**
+   * @param instances all elements must be ServiceCombServiceInstance
+   */
+  public IndexedServiceInstances(List<? extends ServiceInstance> instances) {
+    this.instances = Collections.unmodifiableList(new ArrayList<>(instances));
+  }
+
+  @Override
+  public ServiceInstance get(int index) {
+    return instances.get(index);
+  }
+
+  @Override
+  public int size() {
+    return instances.size();
+  }
+
+  public List<ServiceInstance> getByVersion(String version) {
+    return versionIndex().getOrDefault(version, Collections.emptyList());
+  }
+
+  public Set<String> getVersions() {
+    return versionIndex().keySet();
+  }
+
+  private Map<String, List<ServiceInstance>> versionIndex() {
+    if (byVersion == null) {
+      byVersion = group(MicroserviceInstance::getVersion);
+    }
+    return byVersion;
+  }
+
+  public List<ServiceInstance> getByRegion(String region) {
+    if (byRegion == null) {
+      byRegion = group(instance -> instance.getDataCenterInfo() == null ?
+          null : instance.getDataCenterInfo().getRegion());
+    }
+    return byRegion.getOrDefault(region, Collections.emptyList());
+  }
+
+  public List<ServiceInstance> getByZone(String region, String availableZone) {
+    if (byZone == null) {
+      byZone = group(instance -> zoneKey(instance.getDataCenterInfo()));
+    }
+    return byZone.getOrDefault(region + ZONE_SEPARATOR + availableZone, Collections.emptyList());
+  }
+
+  /**
+   * value computed from this list, computed once for each key and dropped with the list.
+   */
+  @SuppressWarnings("unchecked")
+  public <V> V getDerived(Object key, Function<IndexedServiceInstances, V> builder) {
+    return (V) derived.computeIfAbsent(key, k -> builder.apply(this));
+  }
+
+  private static String zoneKey(DataCenterInfo dataCenterInfo) {
+    if (dataCenterInfo == null) {
+      return null;
+    }
+    return dataCenterInfo.getRegion() + ZONE_SEPARATOR + dataCenterInfo.getAvailableZone();
+  }
+
+  // concurrent first queries may build the same index twice, result is the same.
+  private Map<String, List<ServiceInstance>> group(Function<MicroserviceInstance, String> keyMapper) {
+    Map<String, List<ServiceInstance>> groups = new HashMap<>();
+    for (ServiceInstance instance : instances) {
+      String key = keyMapper.apply(((ServiceCombServiceInstance) instance).getMicroserviceInstance());
+      if (key != null) {
+        groups.computeIfAbsent(key, k -> new ArrayList<>()).add(instance);
+      }
+    }
+    Map<String, List<ServiceInstance>> result = new HashMap<>(groups.size() * 4 / 3 + 1);
+    groups.forEach((key, group) -> result.put(key, new IndexedServiceInstances(group)));
+    return Collections.unmodifiableMap(result);
+  }
+}
@@ -18,26 +18,71 @@
 package com.huaweicloud.servicecomb.discovery.client.model;
 
 import java.net.URI;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 import org.apache.servicecomb.foundation.common.net.URIEndpointObject;
 import org.apache.servicecomb.service.center.client.model.MicroserviceInstance;
 import org.springframework.cloud.client.ServiceInstance;
 
-public class ServiceCombServiceInstance implements ServiceInstance {
-  private final URIEndpointObject uriEndpointObject;
+import com.huaweicloud.common.disovery.ReadOnlyMetadata;
 
+/**
+ * Instances are shared by all requests until the instance list changes, so all values
+ * used by load balancers are computed once here.
+ */
+public class ServiceCombServiceInstance implements ServiceInstance, ReadOnlyMetadata {
   private final MicroserviceInstance microserviceInstance;
 
+  private final String host;
+
+  private final int port;
+
+  private final boolean secure;
+
+  private final String scheme;
+
+  private final URI uri;
+
+  private final Map<String, String> metadata;
+
   public ServiceCombServiceInstance(MicroserviceInstance microserviceInstance) {
     this.microserviceInstance = microserviceInstance;
     String endpoint = this.microserviceInstance.getEndpoints().stream().filter(e -> e.startsWith("rest://"))
             .findFirst().orElse(null);
     if (endpoint != null) {
-      this.uriEndpointObject = new URIEndpointObject(endpoint);
+      URIEndpointObject uriEndpointObject = new URIEndpointObject(endpoint);
+      this.host = uriEndpointObject.getHostOrIp();
+      this.port = uriEndpointObject.getPort();
+      this.secure = uriEndpointObject.isSslEnabled();
+      this.scheme = this.secure ? "https" : "http";
+      this.uri = URI.create(this.scheme + "://" + this.host + ":" + this.port);
     } else {
-      this.uriEndpointObject = null;
+      this.host = this.microserviceInstance.getInstanceId(); // compatible to ribbon default host name
+      this.port = 0;
+      this.secure = false;
+      this.scheme = "http";
+      this.uri = null;
     }
+    this.metadata = Collections.unmodifiableMap(createMetadata(microserviceInstance));
+  }
+
+  private static Map<String, String> createMetadata(MicroserviceInstance microserviceInstance) {
+    Map<String, String> map = new HashMap<>();
+    if (microserviceInstance.getProperties() != null) {
+      map.putAll(microserviceInstance.getProperties());
+    }
+    if (microserviceInstance.getStatus() != null) {
+      map.put(DiscoveryConstants.INSTANCE_STATUS, microserviceInstance.getStatus().name());
+    }
+    if (microserviceInstance.getDataCenterInfo() != null) {
+      map.put(DiscoveryConstants.INSTANCE_ZONE, microserviceInstance.getDataCenterInfo().getAvailableZone());
+    }
+    // registration time, used by slow start of weighted load balance rule
+    if (microserviceInstance.getTimestamp() != null) {
+      map.put(DiscoveryConstants.INSTANCE_TIMESTAMP, microserviceInstance.getTimestamp());
+    }
+    return map;
   }
 
   public MicroserviceInstance getMicroserviceInstance() {
@@ -56,53 +101,42 @@ public class ServiceCombServiceInstance implements ServiceInstance {
 
   @Override
   public String getHost() {
-    if (uriEndpointObject == null) {
-      return this.microserviceInstance.getInstanceId(); // compatible to ribbon default host name
-    }
-    return uriEndpointObject.getHostOrIp();
+    return this.host;
   }
 
   @Override
   public int getPort() {
-    if (uriEndpointObject == null) {
-      return 0;
-    }
-    return uriEndpointObject.getPort();
+    return this.port;
   }
 
   @Override
   public boolean isSecure() {
-    if (uriEndpointObject == null) {
-      return false;
-    }
-    return uriEndpointObject.isSslEnabled();
+    return this.secure;
   }
 
   @Override
   public URI getUri() {
-    String scheme = this.getScheme();
-    String uri = String.format("%s://%s:%s", scheme, uriEndpointObject.getHostOrIp(), uriEndpointObject.getPort());
-    return URI.create(uri);
+    return this.uri;
   }
 
+  /**
+   * Returns a modifiable copy as before, callers only reading metadata should use getReadOnlyMetadata.
+   */
   @Override
   public Map<String, String> getMetadata() {
-    Map<String, String> map = new HashMap<>();
-    map.putAll(this.microserviceInstance.getProperties());
-    if (this.microserviceInstance.getStatus() != null) {
-      map.put(DiscoveryConstants.INSTANCE_STATUS, this.microserviceInstance.getStatus().name());
-    }
-    if (this.microserviceInstance.getDataCenterInfo() != null) {
-      map.put(DiscoveryConstants.INSTANCE_ZONE, this.microserviceInstance.getDataCenterInfo().getAvailableZone());
-    }
-    return map;
+    return new HashMap<>(this.metadata);
+  }
+
+  /**
+   * Metadata shared by requests, it is unmodifiable.
+   */
+  @Override
+  public Map<String, String> getReadOnlyMetadata() {
+    return this.metadata;
   }
 
   @Override
   public String getScheme() {
-    if (uriEndpointObject == null) {
-      return "http";
-    }
-    return uriEndpointObject.isSslEnabled() ? "https" : "http";
+    return this.scheme;
   }
 }
@@ -0,0 +1,191 @@
+/*
+
+ * Copyright (C) 2020-2022 Huawei Technologies Co., Ltd. All rights reserved.
+
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.huaweicloud.servicecomb.discovery.discovery;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.servicecomb.service.center.client.DiscoveryEvents.InstanceChangedEvent;
+import org.apache.servicecomb.service.center.client.DiscoveryEvents.PullInstanceEvent;
+import org.apache.servicecomb.service.center.client.ServiceCenterDiscovery;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.eventbus.Subscribe;
+import com.huaweicloud.common.configration.bootstrap.DiscoveryBootstrapProperties;
+import com.huaweicloud.common.event.EventManager;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Pull instances with random jitter, and back off when nothing changed.
+ *
+ * The fixed interval task of ServiceCenterDiscovery is set to max interval, and pulls are triggered by
+ * PullInstanceEvent. Interval doubles after every BACK_OFF_POLLS unchanged pulls until the max interval,
+ * and is half of the configured interval for FAST_POLLS pulls after a change is found. A change applied by
+ * watch message is also a change found, and the next pull is done soon to reconcile it.
+ */
+public class AdaptivePollScheduler {
+  private static final Logger LOGGER = LoggerFactory.getLogger(AdaptivePollScheduler.class);
+
+  public static final String METRICS_POLL_INTERVAL = "metrics.discovery.poll.interval";
+
+  public static final String METRICS_POLL_UNCHANGED_RATIO = "metrics.discovery.poll.unchanged.ratio";
+
+  private static final int BACK_OFF_POLLS = 4;
+
+  private static final int FAST_POLLS = 3;
+
+  private final DiscoveryBootstrapProperties discoveryProperties;
+
+  private final AtomicBoolean changed = new AtomicBoolean(false);
+
+  private final AtomicLong currentInterval = new AtomicLong();
+
+  private final AtomicLong polls = new AtomicLong();
+
+  private final AtomicLong unchangedPolls = new AtomicLong();
+
+  private int unchangedStreak;
+
+  private int fastPolls;
+
+  // guarded by this
+  private ScheduledFuture<?> next;
+
+  private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(r -> {
+    Thread thread = new Thread(r, "discovery-adaptive-poll");
+    thread.setDaemon(true);
+    return thread;
+  });
+
+  public AdaptivePollScheduler(DiscoveryBootstrapProperties discoveryProperties,
+      ServiceCenterDiscovery serviceCenterDiscovery) {
+    this.discoveryProperties = discoveryProperties;
+    this.currentInterval.set(discoveryProperties.getPollInterval());
+    serviceCenterDiscovery.setPollInterval(ServiceCenterDiscovery.MAX_INTERVAL);
+    EventManager.register(this);
+  }
+
+  public void bindMetrics(MeterRegistry meterRegistry) {
+    Gauge.builder(METRICS_POLL_INTERVAL, currentInterval, AtomicLong::get)
+        .baseUnit("milliseconds")
+        .register(meterRegistry);
+    Gauge.builder(METRICS_POLL_UNCHANGED_RATIO, this, AdaptivePollScheduler::unchangedRatio)
+        .register(meterRegistry);
+  }
+
+  public void start() {
+    schedule();
+  }
+
+  public void stop() {
+    EventManager.getEventBus().unregister(this);
+    executor.shutdownNow();
+  }
+
+  @Subscribe
+  public void onInstanceChangedEvent(InstanceChangedEvent event) {
+    changed.set(true);
+  }
+
+  @Subscribe
+  public void onInstanceDeltaEvent(InstanceDeltaEvent event) {
+    changed.set(true);
+    long fastInterval = fastInterval();
+    synchronized (this) {
+      if (next != null && next.getDelay(TimeUnit.MILLISECONDS) > fastInterval && next.cancel(false)) {
+        next = null;
+        schedule(fastInterval);
+      }
+    }
+  }
+
+  private double unchangedRatio() {
+    long total = polls.get();
+    return total == 0 ? 0 : (double) unchangedPolls.get() / total;
+  }
+
+  private void schedule() {
+    schedule(currentInterval.get());
+  }
+
+  private synchronized void schedule(long interval) {
+    if (!executor.isShutdown()) {
+      next = executor.schedule(this::poll, jitter(interval), TimeUnit.MILLISECONDS);
+    }
+  }
+
+  private void poll() {
+    try {
+      recordPoll();
+      EventManager.post(new PullInstanceEvent());
+    } catch (RuntimeException e) {
+      LOGGER.warn("adaptive poll failed, message={}", e.getMessage());
+    } finally {
+      schedule();
+    }
+  }
+
+  /**
+   * @return interval to the next poll
+   */
+  long recordPoll() {
+    // changes found by last pull, or by pull of other triggers
+    if (changed.getAndSet(false)) {
+      unchangedStreak = 0;
+      fastPolls = FAST_POLLS;
+    } else {
+      unchangedStreak++;
+      unchangedPolls.incrementAndGet();
+    }
+    polls.incrementAndGet();
+    currentInterval.set(nextInterval());
+    return currentInterval.get();
+  }
+
+  private long nextInterval() {
+    long base = discoveryProperties.getPollInterval();
+    if (fastPolls > 0) {
+      fastPolls--;
+      return fastInterval();
+    }
+    int backOff = Math.min(unchangedStreak / BACK_OFF_POLLS, 30);
+    return Math.min(discoveryProperties.getPollIntervalMaxInMillis(), base << backOff);
+  }
+
+  private long fastInterval() {
+    return Math.max(ServiceCenterDiscovery.MIN_INTERVAL, discoveryProperties.getPollInterval() / 2);
+  }
+
+  long jitter(long interval) {
+    double ratio = discoveryProperties.getPollJitterRatio();
+    if (ratio <= 0) {
+      return interval;
+    }
+    long delta = (long) (interval * ratio);
+    return Math.max(ServiceCenterDiscovery.MIN_INTERVAL,
+        interval - delta + ThreadLocalRandom.current().nextLong(2 * delta + 1));
+  }
+}
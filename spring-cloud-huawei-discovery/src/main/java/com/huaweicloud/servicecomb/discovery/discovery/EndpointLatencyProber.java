@@ -0,0 +1,202 @@
+/*
+
+ * Copyright (C) 2020-2022 Huawei Technologies Co., Ltd. All rights reserved.
+
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.huaweicloud.servicecomb.discovery.discovery;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.servicecomb.foundation.common.net.URIEndpointObject;
+import org.apache.servicecomb.http.client.event.RefreshEndpointEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.huaweicloud.common.configration.bootstrap.DiscoveryBootstrapProperties;
+import com.huaweicloud.common.event.EventManager;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+
+/**
+ * Measure connect time and error rate of service center, config center and dashboard addresses, and refresh
+ * address managers to use the fastest healthy addresses first.
+ *
+ * Address managers choose from "sameZone" addresses and use "sameRegion" addresses when all of them are
+ * isolated, so healthy addresses close to the fastest one are set as "sameZone", others as "sameRegion".
+ */
+public class EndpointLatencyProber {
+  private static final Logger LOGGER = LoggerFactory.getLogger(EndpointLatencyProber.class);
+
+  public static final String METRICS_ENDPOINT_LATENCY = "metrics.discovery.endpoint.latency";
+
+  public static final String METRICS_ENDPOINT_ERROR_RATE = "metrics.discovery.endpoint.error.rate";
+
+  private static final String SAME_ZONE = "sameZone";
+
+  private static final String SAME_REGION = "sameRegion";
+
+  private static final int CONNECT_TIMEOUT = 3000;
+
+  // weight of the latest probe
+  private static final double ALPHA = 0.3;
+
+  private static final double UNHEALTHY_ERROR_RATE = 0.5;
+
+  // addresses slower than fastest * 1.5 + 5ms are not preferred
+  private static final double PREFER_RATIO = 1.5;
+
+  private static final long PREFER_DELTA_MILLIS = 5;
+
+  static class EndpointStats {
+    final String endpoint;
+
+    volatile double latency = -1;
+
+    volatile double errorRate;
+
+    volatile boolean lastSucceeded = true;
+
+    EndpointStats(String endpoint) {
+      this.endpoint = endpoint;
+    }
+
+    void record(boolean succeeded, long millis) {
+      lastSucceeded = succeeded;
+      errorRate = errorRate * (1 - ALPHA) + (succeeded ? 0 : ALPHA);
+      if (succeeded) {
+        latency = latency < 0 ? millis : latency * (1 - ALPHA) + millis * ALPHA;
+      }
+    }
+
+    boolean isHealthy() {
+      return lastSucceeded && latency >= 0 && errorRate < UNHEALTHY_ERROR_RATE;
+    }
+  }
+
+  private final MeterRegistry meterRegistry;
+
+  // type -> endpoint -> stats
+  private final Map<String, Map<String, EndpointStats>> endpoints = new ConcurrentHashMap<>();
+
+  private final Map<String, Map<String, List<String>>> published = new ConcurrentHashMap<>();
+
+  private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(r -> {
+    Thread thread = new Thread(r, "discovery-endpoint-prober");
+    thread.setDaemon(true);
+    return thread;
+  });
+
+  public EndpointLatencyProber(DiscoveryBootstrapProperties discoveryProperties, MeterRegistry meterRegistry) {
+    this.meterRegistry = meterRegistry;
+    long interval = discoveryProperties.getAddressProbeInterval();
+    executor.scheduleWithFixedDelay(this::probeAll, interval, interval, TimeUnit.MILLISECONDS);
+  }
+
+  public void update(String type, List<String> addresses) {
+    Map<String, EndpointStats> stats = endpoints.computeIfAbsent(type, k -> new ConcurrentHashMap<>());
+    for (String address : addresses) {
+      stats.computeIfAbsent(address, k -> createStats(type, k));
+    }
+    stats.keySet().retainAll(addresses);
+  }
+
+  private EndpointStats createStats(String type, String endpoint) {
+    EndpointStats stats = new EndpointStats(endpoint);
+    if (meterRegistry != null) {
+      Tags tags = Tags.of("type", type, "endpoint", endpoint);
+      Gauge.builder(METRICS_ENDPOINT_LATENCY, stats, s -> s.latency)
+          .baseUnit("milliseconds").tags(tags).register(meterRegistry);
+      Gauge.builder(METRICS_ENDPOINT_ERROR_RATE, stats, s -> s.errorRate)
+          .tags(tags).register(meterRegistry);
+    }
+    return stats;
+  }
+
+  public void stop() {
+    executor.shutdownNow();
+  }
+
+  private void probeAll() {
+    endpoints.forEach((type, stats) -> {
+      try {
+        stats.values().forEach(this::probe);
+        publish(type, new ArrayList<>(stats.values()));
+      } catch (RuntimeException e) {
+        LOGGER.warn("probe addresses of {} failed, message={}", type, e.getMessage());
+      }
+    });
+  }
+
+  private void probe(EndpointStats stats) {
+    URIEndpointObject endpoint = new URIEndpointObject(stats.endpoint);
+    long begin = System.nanoTime();
+    try (Socket socket = new Socket()) {
+      socket.connect(new InetSocketAddress(endpoint.getHostOrIp(), endpoint.getPort()), CONNECT_TIMEOUT);
+      stats.record(true, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - begin));
+    } catch (IOException e) {
+      stats.record(false, 0);
+    }
+  }
+
+  private void publish(String type, List<EndpointStats> stats) {
+    List<EndpointStats> healthy = new ArrayList<>();
+    List<String> unhealthy = new ArrayList<>();
+    for (EndpointStats item : stats) {
+      if (item.isHealthy()) {
+        healthy.add(item);
+      } else {
+        unhealthy.add(item.endpoint);
+      }
+    }
+    if (healthy.isEmpty()) {
+      // keep current addresses, address managers will check them
+      return;
+    }
+    healthy.sort(Comparator.comparingDouble(item -> item.latency));
+    double threshold = healthy.get(0).latency * PREFER_RATIO + PREFER_DELTA_MILLIS;
+    List<String> sameZone = new ArrayList<>();
+    List<String> sameRegion = new ArrayList<>();
+    for (EndpointStats item : healthy) {
+      if (item.latency <= threshold) {
+        sameZone.add(item.endpoint);
+      } else {
+        sameRegion.add(item.endpoint);
+      }
+    }
+    sameRegion.addAll(unhealthy);
+    Map<String, List<String>> zoneAndRegion = new HashMap<>();
+    zoneAndRegion.put(SAME_ZONE, sameZone);
+    zoneAndRegion.put(SAME_REGION, sameRegion);
+    if (zoneAndRegion.equals(published.get(type))) {
+      return;
+    }
+    published.put(type, zoneAndRegion);
+    LOGGER.info("prefer {} addresses {}, others {}.", type, sameZone, sameRegion);
+    EventManager.post(new RefreshEndpointEvent(zoneAndRegion, type));
+  }
+}
@@ -0,0 +1,67 @@
+/*
+
+ * Copyright (C) 2020-2022 Huawei Technologies Co., Ltd. All rights reserved.
+
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.huaweicloud.servicecomb.discovery.discovery;
+
+import org.apache.servicecomb.service.center.client.model.MicroserviceInstance;
+
+/**
+ * One instance changed, carried by a watch message of service center.
+ */
+public class InstanceDeltaEvent {
+  public enum Action {
+    CREATE,
+    UPDATE,
+    DELETE,
+    EXPIRE
+  }
+
+  private final Action action;
+
+  private final String appId;
+
+  private final String serviceName;
+
+  private final MicroserviceInstance instance;
+
+  public InstanceDeltaEvent(Action action, String appId, String serviceName, MicroserviceInstance instance) {
+    this.action = action;
+    this.appId = appId;
+    this.serviceName = serviceName;
+    this.instance = instance;
+  }
+
+  public Action getAction() {
+    return action;
+  }
+
+  public String getAppId() {
+    return appId;
+  }
+
+  public String getServiceName() {
+    return serviceName;
+  }
+
+  public MicroserviceInstance getInstance() {
+    return instance;
+  }
+
+  public boolean isRemoved() {
+    return action == Action.DELETE || action == Action.EXPIRE;
+  }
+}
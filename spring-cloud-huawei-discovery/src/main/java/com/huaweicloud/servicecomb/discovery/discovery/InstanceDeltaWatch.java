@@ -0,0 +1,93 @@
+/*
+
+ * Copyright (C) 2020-2022 Huawei Technologies Co., Ltd. All rights reserved.
+
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.huaweicloud.servicecomb.discovery.discovery;
+
+import java.io.IOException;
+import java.util.Map;
+
+import org.apache.servicecomb.http.client.auth.RequestAuthHeaderProvider;
+import org.apache.servicecomb.http.client.common.HttpConfiguration.SSLProperties;
+import org.apache.servicecomb.service.center.client.AddressManager;
+import org.apache.servicecomb.service.center.client.ServiceCenterWatch;
+import org.apache.servicecomb.service.center.client.model.Microservice;
+import org.apache.servicecomb.service.center.client.model.MicroserviceInstance;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.eventbus.EventBus;
+import com.huaweicloud.servicecomb.discovery.discovery.InstanceDeltaEvent.Action;
+
+/**
+ * Watch that applies the changed instance of a watch message to the instance cache, instead of pulling all
+ * instances again. Messages that can not be parsed fall back to pulling.
+ *
+ * Message format: {"action":"UPDATE","key":{"appId":"app","serviceName":"service",...},"instance":{...}}
+ */
+public class InstanceDeltaWatch extends ServiceCenterWatch {
+  private static final Logger LOGGER = LoggerFactory.getLogger(InstanceDeltaWatch.class);
+
+  private static final ObjectMapper MAPPER = new ObjectMapper()
+      .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+  private final EventBus eventBus;
+
+  public InstanceDeltaWatch(AddressManager addressManager, SSLProperties sslProperties,
+      RequestAuthHeaderProvider requestAuthHeaderProvider, String tenantName,
+      Map<String, String> extraGlobalHeaders, EventBus eventBus) {
+    super(addressManager, sslProperties, requestAuthHeaderProvider, tenantName, extraGlobalHeaders, eventBus);
+    this.eventBus = eventBus;
+  }
+
+  @Override
+  public void onMessage(String message) {
+    InstanceDeltaEvent event = parse(message);
+    if (event == null) {
+      super.onMessage(message);
+      return;
+    }
+    LOGGER.info("instance {} of {}:{} changed, action={}.", event.getInstance().getInstanceId(),
+        event.getAppId(), event.getServiceName(), event.getAction());
+    eventBus.post(event);
+  }
+
+  static InstanceDeltaEvent parse(String message) {
+    try {
+      JsonNode root = MAPPER.readTree(message);
+      JsonNode key = root.path("key");
+      JsonNode instanceNode = root.path("instance");
+      if (!root.hasNonNull("action") || !key.hasNonNull("appId") || !key.hasNonNull("serviceName")
+          || !instanceNode.hasNonNull("instanceId")) {
+        return null;
+      }
+      Action action = Action.valueOf(root.get("action").asText());
+      String appId = key.get("appId").asText();
+      String serviceName = key.get("serviceName").asText();
+      MicroserviceInstance instance = MAPPER.treeToValue(instanceNode, MicroserviceInstance.class);
+      Microservice microservice = new Microservice(serviceName);
+      microservice.setAppId(appId);
+      instance.setMicroservice(microservice);
+      return new InstanceDeltaEvent(action, appId, serviceName, instance);
+    } catch (IOException | RuntimeException e) {
+      LOGGER.warn("parse watch message failed, pull instances instead. message={}", e.getMessage());
+      return null;
+    }
+  }
+}
@@ -0,0 +1,241 @@
+/*
+
+ * Copyright (C) 2020-2022 Huawei Technologies Co., Ltd. All rights reserved.
+
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.huaweicloud.servicecomb.discovery.discovery;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.apache.servicecomb.service.center.client.model.Microservice;
+import org.apache.servicecomb.service.center.client.model.MicroserviceInstance;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.huaweicloud.servicecomb.discovery.client.model.DiscoveryConstants;
+
+/**
+ * Local snapshot of the subscribed instance caches, used before the first successful pull from service center.
+ *
+ * File layout (gzip compressed): version, entry count, then for each entry application, service name,
+ * saved time and the JSON encoded instance list.
+ */
+public class InstancesCacheStore {
+  private static final Logger LOGGER = LoggerFactory.getLogger(InstancesCacheStore.class);
+
+  private static final int FILE_VERSION = 1;
+
+  private static final long CLOSE_TIMEOUT_IN_MILLIS = 3000;
+
+  private static final ObjectMapper MAPPER = new ObjectMapper()
+      .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false)
+      .addMixIn(MicroserviceInstance.class, MicroserviceInstanceMixIn.class);
+
+  private static final TypeReference<List<MicroserviceInstance>> INSTANCES_TYPE =
+      new TypeReference<List<MicroserviceInstance>>() {
+      };
+
+  // names are read from microservice, which is not serialized and set when loading.
+  @JsonIgnoreProperties({"serviceName", "applicationName"})
+  private interface MicroserviceInstanceMixIn {
+  }
+
+  public static class CachedInstances {
+    private final String appId;
+
+    private final String serviceName;
+
+    private final long savedTime;
+
+    private final List<MicroserviceInstance> instances;
+
+    public CachedInstances(String appId, String serviceName, long savedTime, List<MicroserviceInstance> instances) {
+      this.appId = appId;
+      this.serviceName = serviceName;
+      this.savedTime = savedTime;
+      this.instances = instances;
+    }
+
+    public String getAppId() {
+      return appId;
+    }
+
+    public String getServiceName() {
+      return serviceName;
+    }
+
+    public long getSavedTime() {
+      return savedTime;
+    }
+
+    public long getAge() {
+      return System.currentTimeMillis() - savedTime;
+    }
+
+    public List<MicroserviceInstance> getInstances() {
+      return instances;
+    }
+  }
+
+  private final Path file;
+
+  private final long maxAgeInMillis;
+
+  private final Map<String, CachedInstances> entries = new ConcurrentHashMap<>();
+
+  private final AtomicBoolean flushScheduled = new AtomicBoolean(false);
+
+  private final ExecutorService executorService = Executors.newSingleThreadExecutor(r -> {
+    Thread thread = new Thread(r, "discovery-cache-writer");
+    thread.setDaemon(true);
+    return thread;
+  });
+
+  public InstancesCacheStore(String path, long maxAgeInMillis) {
+    this.file = Paths.get(path);
+    this.maxAgeInMillis = maxAgeInMillis;
+  }
+
+  private static String key(String appId, String serviceName) {
+    return appId + DiscoveryConstants.APP_SERVICE_SEPRATOR + serviceName;
+  }
+
+  /**
+   * load entries saved by last run, entries older than max age are dropped.
+   */
+  public void load() {
+    if (!Files.isRegularFile(file)) {
+      return;
+    }
+    try (DataInputStream in = new DataInputStream(
+        new GZIPInputStream(new BufferedInputStream(Files.newInputStream(file))))) {
+      if (in.readInt() != FILE_VERSION) {
+        LOGGER.warn("ignore discovery cache file {} of unknown version.", file);
+        return;
+      }
+      int count = in.readInt();
+      for (int i = 0; i < count; i++) {
+        String appId = in.readUTF();
+        String serviceName = in.readUTF();
+        long savedTime = in.readLong();
+        byte[] content = new byte[in.readInt()];
+        in.readFully(content);
+        CachedInstances cached = new CachedInstances(appId, serviceName, savedTime,
+            restore(appId, serviceName, MAPPER.readValue(content, INSTANCES_TYPE)));
+        if (cached.getAge() > maxAgeInMillis) {
+          continue;
+        }
+        entries.put(key(appId, serviceName), cached);
+      }
+      LOGGER.info("loaded {} services from discovery cache file {}.", entries.size(), file);
+    } catch (IOException | RuntimeException e) {
+      LOGGER.warn("read discovery cache file {} failed, ignore it. message={}", file, e.getMessage());
+      entries.clear();
+    }
+  }
+
+  private static List<MicroserviceInstance> restore(String appId, String serviceName,
+      List<MicroserviceInstance> instances) {
+    Microservice microservice = new Microservice(serviceName);
+    microservice.setAppId(appId);
+    instances.forEach(instance -> instance.setMicroservice(microservice));
+    return instances;
+  }
+
+  public CachedInstances get(String appId, String serviceName) {
+    return entries.get(key(appId, serviceName));
+  }
+
+  /**
+   * record instances of a new revision and write the file asynchronously.
+   */
+  public void update(String appId, String serviceName, List<MicroserviceInstance> instances) {
+    entries.put(key(appId, serviceName),
+        new CachedInstances(appId, serviceName, System.currentTimeMillis(), instances));
+    if (flushScheduled.compareAndSet(false, true)) {
+      try {
+        executorService.execute(this::flush);
+      } catch (RejectedExecutionException e) {
+        // closed
+        flush();
+      }
+    }
+  }
+
+  private void flush() {
+    flushScheduled.set(false);
+    Map<String, CachedInstances> current = new HashMap<>(entries);
+    Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+    try {
+      if (file.getParent() != null) {
+        Files.createDirectories(file.getParent());
+      }
+      try (OutputStream os = Files.newOutputStream(temp);
+          DataOutputStream out = new DataOutputStream(new GZIPOutputStream(new BufferedOutputStream(os)))) {
+        out.writeInt(FILE_VERSION);
+        out.writeInt(current.size());
+        for (CachedInstances cached : current.values()) {
+          out.writeUTF(cached.getAppId());
+          out.writeUTF(cached.getServiceName());
+          out.writeLong(cached.getSavedTime());
+          byte[] content = MAPPER.writeValueAsBytes(cached.getInstances());
+          out.writeInt(content.length);
+          out.write(content);
+        }
+      }
+      Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    } catch (IOException | RuntimeException e) {
+      LOGGER.warn("write discovery cache file {} failed. message={}", file, e.getMessage());
+    }
+  }
+
+  /**
+   * wait for the scheduled write, the writer thread is daemon and the last write may be lost when exit.
+   */
+  public void close() {
+    executorService.shutdown();
+    try {
+      if (!executorService.awaitTermination(CLOSE_TIMEOUT_IN_MILLIS, TimeUnit.MILLISECONDS)) {
+        LOGGER.warn("write discovery cache file {} timeout when close.", file);
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
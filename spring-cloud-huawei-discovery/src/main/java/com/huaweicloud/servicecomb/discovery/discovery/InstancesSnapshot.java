@@ -0,0 +1,103 @@
+/*
+
+ * Copyright (C) 2020-2022 Huawei Technologies Co., Ltd. All rights reserved.
+
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.huaweicloud.servicecomb.discovery.discovery;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.servicecomb.service.center.client.model.MicroserviceInstance;
+import org.apache.servicecomb.service.center.client.model.MicroserviceInstanceStatus;
+import org.springframework.cloud.client.ServiceInstance;
+
+import com.huaweicloud.servicecomb.discovery.client.model.IndexedServiceInstances;
+import com.huaweicloud.servicecomb.discovery.client.model.ServiceCombServiceInstance;
+
+/**
+ * Immutable view of one instance cache revision of ServiceCenterDiscovery.
+ *
+ * ServiceCenterDiscovery replaces the cached instance list only when the revision changes, so the identity
+ * of the source list is used as the revision of this snapshot.
+ *
+ * Changes of watch events are applied to a copy of the source, and the snapshot keeps the revision it is
+ * derived from. Changes applied are only a fast path, the snapshot is replaced when ServiceCenterDiscovery pulls
+ * a new revision, or built from the pulled revision again after reconcile time, when a pull after the first
+ * change must be done, so that duplicated or out of order watch messages do not change instances forever.
+ */
+public final class InstancesSnapshot {
+  private final List<MicroserviceInstance> base;
+
+  private final List<MicroserviceInstance> source;
+
+  private final List<ServiceInstance> serviceInstances;
+
+  // time in milliseconds to build from the pulled revision again, if changes are applied
+  private final long reconcileAt;
+
+  public InstancesSnapshot(List<MicroserviceInstance> source) {
+    this(source, source, Long.MAX_VALUE);
+  }
+
+  private InstancesSnapshot(List<MicroserviceInstance> base, List<MicroserviceInstance> source, long reconcileAt) {
+    this.base = base;
+    this.source = source;
+    this.reconcileAt = reconcileAt;
+    List<ServiceInstance> result = new ArrayList<>(source.size());
+    for (MicroserviceInstance instance : source) {
+      if (!MicroserviceInstanceStatus.DOWN.equals(instance.getStatus())) {
+        result.add(new ServiceCombServiceInstance(instance));
+      }
+    }
+    this.serviceInstances = new IndexedServiceInstances(result);
+  }
+
+  public boolean isBuiltFrom(List<MicroserviceInstance> instances, long now) {
+    return this.base == instances && now < reconcileAt;
+  }
+
+  public boolean isChangesApplied() {
+    return this.base != this.source;
+  }
+
+  /**
+   * copy on write, returns a new snapshot with the changed instance applied.
+   *
+   * @param reconcileAt time to build from the pulled revision again, later changes do not delay the time of the
+   * first change
+   */
+  public InstancesSnapshot apply(InstanceDeltaEvent event, long reconcileAt) {
+    String instanceId = event.getInstance().getInstanceId();
+    List<MicroserviceInstance> result = new ArrayList<>(source.size() + 1);
+    for (MicroserviceInstance instance : source) {
+      if (!instanceId.equals(instance.getInstanceId())) {
+        result.add(instance);
+      }
+    }
+    if (!event.isRemoved()) {
+      result.add(event.getInstance());
+    }
+    return new InstancesSnapshot(base, result, Math.min(this.reconcileAt, reconcileAt));
+  }
+
+  public List<MicroserviceInstance> getSource() {
+    return source;
+  }
+
+  public List<ServiceInstance> getServiceInstances() {
+    return serviceInstances;
+  }
+}
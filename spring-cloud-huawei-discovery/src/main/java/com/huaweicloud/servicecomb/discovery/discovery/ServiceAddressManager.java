@@ -36,15 +36,24 @@ import org.slf4j.LoggerFactory;
 
 import com.google.common.eventbus.Subscribe;
 import com.huaweicloud.common.event.EventManager;
+import com.huaweicloud.common.configration.bootstrap.BootstrapProperties;
+import com.huaweicloud.common.configration.bootstrap.ConfigBootstrapProperties;
 import com.huaweicloud.common.configration.bootstrap.DiscoveryBootstrapProperties;
+import com.huaweicloud.common.configration.dynamic.DashboardProperties;
 import com.huaweicloud.common.util.Type;
+import com.huaweicloud.common.util.URLUtil;
 import com.huaweicloud.servicecomb.discovery.client.model.DiscoveryConstants;
 import com.huaweicloud.servicecomb.discovery.registry.ServiceCombRegistration;
 
+import io.micrometer.core.instrument.MeterRegistry;
+
 public class ServiceAddressManager {
 
   private static final Logger LOGGER = LoggerFactory.getLogger(ServiceAddressManager.class);
 
+  // dashboard addresses are only discovered and refreshed when address probe is enabled
+  private static final String DASHBOARD = "CseMonitoring";
+
   private boolean initialized = false;
 
   private final ServiceCenterClient serviceCenterClient;
@@ -57,16 +66,44 @@ public class ServiceAddressManager {
 
   private final String myselfServiceId;
 
-  public ServiceAddressManager(DiscoveryBootstrapProperties discoveryProperties,
+  private final EndpointLatencyProber endpointLatencyProber;
+
+  public ServiceAddressManager(BootstrapProperties bootstrapProperties,
       ServiceCenterClient serviceCenterClient,
-      ServiceCombRegistration serviceCombRegistration) {
-    this.discoveryProperties = discoveryProperties;
+      ServiceCombRegistration serviceCombRegistration, DashboardProperties dashboardProperties,
+      MeterRegistry meterRegistry) {
+    this.discoveryProperties = bootstrapProperties.getDiscoveryBootstrapProperties();
     this.serviceCenterClient = serviceCenterClient;
     this.myselfInstance = serviceCombRegistration.getMicroserviceInstance();
     this.myselfServiceId = serviceCombRegistration.getMicroservice().getServiceId();
+    if (discoveryProperties.isEnableAddressProbe()) {
+      this.endpointLatencyProber = new EndpointLatencyProber(discoveryProperties, meterRegistry);
+      probeConfiguredAddresses(bootstrapProperties.getConfigBootstrapProperties(), dashboardProperties);
+    } else {
+      this.endpointLatencyProber = null;
+    }
     EventManager.getEventBus().register(this);
   }
 
+  private void probeConfiguredAddresses(ConfigBootstrapProperties configProperties,
+      DashboardProperties dashboardProperties) {
+    probeAddresses(DiscoveryConstants.SERVICE_CENTER, URLUtil.dealMultiUrl(discoveryProperties.getAddress()));
+    if (configProperties != null && configProperties.isEnabled()) {
+      String type = "kie".equalsIgnoreCase(configProperties.getServerType()) ? Type.KIE.name()
+          : Type.CseConfigCenter.name();
+      probeAddresses(type, URLUtil.dealMultiUrl(configProperties.getServerAddr()));
+    }
+    if (dashboardProperties != null) {
+      probeAddresses(DASHBOARD, URLUtil.dealMultiUrl(dashboardProperties.getAddress()));
+    }
+  }
+
+  private void probeAddresses(String type, List<String> addresses) {
+    if (!addresses.isEmpty()) {
+      endpointLatencyProber.update(type, addresses);
+    }
+  }
+
   @Subscribe
   public void onHeartBeatEvent(HeartBeatEvent event) {
     if (initialized) {
@@ -76,6 +113,9 @@ public class ServiceAddressManager {
       for (Type type : Type.values()) {
         initEndPort(type.name());
       }
+      if (endpointLatencyProber != null) {
+        initEndPort(DASHBOARD);
+      }
     }
   }
 
@@ -90,6 +130,11 @@ public class ServiceAddressManager {
       return;
     }
     EventManager.post(new RefreshEndpointEvent(zoneAndRegion, key));
+    if (endpointLatencyProber != null) {
+      List<String> addresses = new ArrayList<>();
+      zoneAndRegion.values().forEach(addresses::addAll);
+      probeAddresses(key, addresses);
+    }
   }
 
   private Map<String, List<String>> generateZoneAndRegionAddress(List<MicroserviceInstance> instances) {
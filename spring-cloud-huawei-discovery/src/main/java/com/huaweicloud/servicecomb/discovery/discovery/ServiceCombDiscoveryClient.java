@@ -19,9 +19,14 @@ package com.huaweicloud.servicecomb.discovery.discovery;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
-import java.util.stream.Collectors;
 
 import org.apache.commons.lang.StringUtils;
 import org.apache.servicecomb.service.center.client.DiscoveryEvents.InstanceChangedEvent;
@@ -32,13 +37,14 @@ import org.apache.servicecomb.service.center.client.ServiceCenterDiscovery.Subsc
 import org.apache.servicecomb.service.center.client.exception.OperationException;
 import org.apache.servicecomb.service.center.client.model.Microservice;
 import org.apache.servicecomb.service.center.client.model.MicroserviceInstance;
-import org.apache.servicecomb.service.center.client.model.MicroserviceInstanceStatus;
 import org.apache.servicecomb.service.center.client.model.MicroservicesResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.cloud.client.ServiceInstance;
 import org.springframework.cloud.client.discovery.DiscoveryClient;
 import org.springframework.cloud.client.discovery.event.HeartbeatEvent;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.ApplicationContextAware;
 import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.context.ApplicationEventPublisherAware;
 
@@ -47,11 +53,15 @@ import com.huaweicloud.common.configration.bootstrap.BootstrapProperties;
 import com.huaweicloud.common.configration.bootstrap.DiscoveryBootstrapProperties;
 import com.huaweicloud.common.configration.bootstrap.MicroserviceProperties;
 import com.huaweicloud.common.event.EventManager;
+import com.huaweicloud.common.event.InstancesChangedEvent;
 import com.huaweicloud.servicecomb.discovery.client.model.DiscoveryConstants;
-import com.huaweicloud.servicecomb.discovery.client.model.ServiceCombServiceInstance;
+import com.huaweicloud.servicecomb.discovery.discovery.InstancesCacheStore.CachedInstances;
 import com.huaweicloud.servicecomb.discovery.registry.ServiceCombRegistration;
 
-public class ServiceCombDiscoveryClient implements DiscoveryClient, ApplicationEventPublisherAware {
+import io.micrometer.core.instrument.MeterRegistry;
+
+public class ServiceCombDiscoveryClient implements DiscoveryClient, ApplicationEventPublisherAware,
+    ApplicationContextAware {
   private static final Logger LOGGER = LoggerFactory.getLogger(ServiceCombDiscoveryClient.class);
 
   private final ServiceCenterClient serviceCenterClient;
@@ -66,12 +76,30 @@ public class ServiceCombDiscoveryClient implements DiscoveryClient, ApplicationE
 
   private ApplicationEventPublisher applicationEventPublisher;
 
+  private ApplicationContext applicationContext;
+
+  private final AtomicBoolean warmedUp = new AtomicBoolean(false);
+
   private final AtomicLong changeId = new AtomicLong(0);
 
   private final List<String> serviceIds = new ArrayList<>();
 
+  // service id to modify time of the last polled services
+  private Map<String, String> servicesRevision = Collections.emptyMap();
+
+  private final Map<String, SubscriptionKey> subscriptionKeys = new ConcurrentHashMap<>();
+
+  private final Map<SubscriptionKey, InstancesSnapshot> instancesSnapshots = new ConcurrentHashMap<>();
+
+  private final Map<SubscriptionKey, InstancesSnapshot> cachedSnapshots = new ConcurrentHashMap<>();
+
+  private final InstancesCacheStore instancesCacheStore;
+
+  private final AdaptivePollScheduler adaptivePollScheduler;
+
   public ServiceCombDiscoveryClient(BootstrapProperties bootstrapProperties,
-      ServiceCenterClient serviceCenterClient, ServiceCombRegistration serviceCombRegistration) {
+      ServiceCenterClient serviceCenterClient, ServiceCombRegistration serviceCombRegistration,
+      MeterRegistry meterRegistry) {
     this.discoveryProperties = bootstrapProperties.getDiscoveryBootstrapProperties();
     this.microserviceProperties = bootstrapProperties.getMicroserviceProperties();
     this.serviceCenterClient = serviceCenterClient;
@@ -79,6 +107,21 @@ public class ServiceCombDiscoveryClient implements DiscoveryClient, ApplicationE
 
     serviceCenterDiscovery = new ServiceCenterDiscovery(serviceCenterClient, EventManager.getEventBus());
     serviceCenterDiscovery.setPollInterval(discoveryProperties.getPollInterval());
+    if (discoveryProperties.isEnableLocalCache()) {
+      instancesCacheStore = new InstancesCacheStore(discoveryProperties.getLocalCachePath(),
+          discoveryProperties.getLocalCacheMaxAgeInMillis());
+      instancesCacheStore.load();
+    } else {
+      instancesCacheStore = null;
+    }
+    if (discoveryProperties.isEnableAdaptivePoll()) {
+      adaptivePollScheduler = new AdaptivePollScheduler(discoveryProperties, serviceCenterDiscovery);
+      if (meterRegistry != null) {
+        adaptivePollScheduler.bindMetrics(meterRegistry);
+      }
+    } else {
+      adaptivePollScheduler = null;
+    }
     EventManager.getEventBus().register(this);
   }
 
@@ -89,22 +132,112 @@ public class ServiceCombDiscoveryClient implements DiscoveryClient, ApplicationE
       // startDiscovery will check if already started, can call several times
       serviceCenterDiscovery.startDiscovery();
 
-      if (discoveryProperties.isEnableServicePolling()) {
-        List<String> services = getServices();
-        if (!serviceIds.equals(services)) {
-          serviceIds.clear();
-          serviceIds.addAll(services);
-          this.applicationEventPublisher.publishEvent(new HeartbeatEvent(this, changeId.getAndIncrement()));
+      if (warmedUp.compareAndSet(false, true)) {
+        warmUp();
+        if (adaptivePollScheduler != null) {
+          adaptivePollScheduler.start();
         }
       }
+
+      if (discoveryProperties.isEnableServicePolling()) {
+        pollServices();
+      }
+    }
+  }
+
+  // subscribe dependencies in registration thread, not in the first request
+  private void warmUp() {
+    Set<String> services = new WarmUpServicesDetector(discoveryProperties).detect(applicationContext);
+    if (services.isEmpty()) {
+      return;
+    }
+    long begin = System.currentTimeMillis();
+    int failed = 0;
+    for (String service : services) {
+      try {
+        getInstances(service);
+      } catch (RuntimeException e) {
+        failed++;
+        LOGGER.warn("warm up service {} failed, message={}", service, e.getMessage());
+      }
+    }
+    LOGGER.info("warm up {} services, {} failed, used {} ms. services={}", services.size(), failed,
+        System.currentTimeMillis() - begin, services);
+  }
+
+  private void pollServices() {
+    MicroservicesResponse microServiceResponse = getMicroserviceList();
+    if (microServiceResponse == null) {
+      return;
+    }
+    // service center do not provide revision of service list, use service id and modify time instead.
+    Map<String, String> revision = servicesRevision(microServiceResponse);
+    if (revision.equals(servicesRevision)) {
+      return;
+    }
+    servicesRevision = revision;
+    List<String> services = toServiceNames(microServiceResponse);
+    if (!serviceIds.equals(services)) {
+      serviceIds.clear();
+      serviceIds.addAll(services);
+      this.applicationEventPublisher.publishEvent(new HeartbeatEvent(this, changeId.getAndIncrement()));
+    }
+  }
+
+  private static Map<String, String> servicesRevision(MicroservicesResponse microServiceResponse) {
+    if (microServiceResponse.getServices() == null) {
+      return Collections.emptyMap();
+    }
+    Map<String, String> revision = new HashMap<>();
+    for (Microservice microservice : microServiceResponse.getServices()) {
+      revision.put(microservice.getServiceId(), microservice.getModTimestamp());
     }
+    return revision;
   }
 
-  // 适配 Spring Cloud HeartbeatEvent 事件。 当实例发生变更的时候，通过 HeartbeatEvent 通知
-  // DiscoveryClient 拉取实例。
+  // 实例发生变更的时候，只通知变更服务的缓存刷新，服务列表变化才发送 HeartbeatEvent。
   @Subscribe
   public void onInstanceChangedEvent(InstanceChangedEvent event) {
-    this.applicationEventPublisher.publishEvent(new HeartbeatEvent(this, changeId.getAndIncrement()));
+    if (event.getInstances() != null) {
+      instancesSnapshots.put(new SubscriptionKey(event.getAppName(), event.getServiceName()),
+          new InstancesSnapshot(event.getInstances()));
+      if (instancesCacheStore != null) {
+        instancesCacheStore.update(event.getAppName(), event.getServiceName(), event.getInstances());
+      }
+    }
+    publishInstancesChanged(event.getAppName(), event.getServiceName());
+  }
+
+  // watch message carries the changed instance, apply it to the snapshot and wait for next pull to reconcile.
+  @Subscribe
+  public void onInstanceDeltaEvent(InstanceDeltaEvent event) {
+    SubscriptionKey subscriptionKey = new SubscriptionKey(event.getAppId(), event.getServiceName());
+    InstancesSnapshot current = instancesSnapshots.get(subscriptionKey);
+    if (current == null) {
+      // not subscribed
+      return;
+    }
+    // a pull is done in poll interval, or sooner by adaptive poll, pulled revision is right after that
+    InstancesSnapshot applied = current.apply(event,
+        System.currentTimeMillis() + 2 * discoveryProperties.getPollInterval());
+    if (!instancesSnapshots.replace(subscriptionKey, current, applied)) {
+      // a new revision is pulled at the same time, which already contains the change
+      return;
+    }
+    if (instancesCacheStore != null) {
+      instancesCacheStore.update(event.getAppId(), event.getServiceName(), applied.getSource());
+    }
+    publishInstancesChanged(event.getAppId(), event.getServiceName());
+  }
+
+  private void publishInstancesChanged(String appName, String serviceName) {
+    // service id can be "service" in the same application or "application.service"
+    Set<String> changed = new HashSet<>();
+    changed.add(appName + DiscoveryConstants.APP_SERVICE_SEPRATOR + serviceName);
+    if (appName.equals(microserviceProperties.getApplication())) {
+      changed.add(serviceName);
+    }
+    this.applicationEventPublisher.publishEvent(new InstancesChangedEvent(this, changed));
   }
 
   @Override
@@ -116,42 +249,94 @@ public class ServiceCombDiscoveryClient implements DiscoveryClient, ApplicationE
    * assert that app name and service name do not contain "."
    */
   private SubscriptionKey parseMicroserviceName(String serviceId) {
+    return new SubscriptionKey(parseAppId(serviceId), parseServiceName(serviceId));
+  }
+
+  private String parseAppId(String serviceId) {
     int idxAt = serviceId.indexOf(DiscoveryConstants.APP_SERVICE_SEPRATOR);
-    if (idxAt == -1) {
-      return new SubscriptionKey(microserviceProperties.getApplication(), serviceId);
-    }
-    return new SubscriptionKey(serviceId.substring(0, idxAt), serviceId.substring(idxAt + 1));
+    return idxAt == -1 ? microserviceProperties.getApplication() : serviceId.substring(0, idxAt);
+  }
+
+  private String parseServiceName(String serviceId) {
+    int idxAt = serviceId.indexOf(DiscoveryConstants.APP_SERVICE_SEPRATOR);
+    return idxAt == -1 ? serviceId : serviceId.substring(idxAt + 1);
   }
 
   @Override
   public List<ServiceInstance> getInstances(String serviceId) {
-    SubscriptionKey subscriptionKey = parseMicroserviceName(serviceId);
-    serviceCenterDiscovery.registerIfNotPresent(subscriptionKey);
+    SubscriptionKey subscriptionKey = subscriptionKeys.computeIfAbsent(serviceId, this::parseMicroserviceName);
+    InstancesSnapshot snapshot = instancesSnapshots.get(subscriptionKey);
+    if (snapshot == null) {
+      // subscription is never removed, so only check for the first time
+      serviceCenterDiscovery.registerIfNotPresent(subscriptionKey);
+    }
     List<MicroserviceInstance> instances = serviceCenterDiscovery.getInstanceCache(subscriptionKey);
 
     if (instances == null) {
+      return getCachedInstances(serviceId, subscriptionKey);
+    }
+    if (snapshot == null || !snapshot.isBuiltFrom(instances, System.currentTimeMillis())) {
+      // revision changed or changes applied need reconcile, rebuild the immutable list once and share it
+      InstancesSnapshot previous = snapshot;
+      snapshot = new InstancesSnapshot(instances);
+      instancesSnapshots.put(subscriptionKey, snapshot);
+      if (instancesCacheStore != null) {
+        instancesCacheStore.update(parseAppId(serviceId), parseServiceName(serviceId), instances);
+      }
+      if (previous != null && previous.isChangesApplied()) {
+        publishInstancesChanged(parseAppId(serviceId), parseServiceName(serviceId));
+      }
+    }
+    return snapshot.getServiceInstances();
+  }
+
+  // service center is not available, use instances saved by last run if local cache is enabled.
+  private List<ServiceInstance> getCachedInstances(String serviceId, SubscriptionKey subscriptionKey) {
+    if (instancesCacheStore == null) {
       return Collections.emptyList();
     }
-    return instances.stream().filter(instance -> !MicroserviceInstanceStatus.DOWN.equals(instance.getStatus()))
-        .map(ServiceCombServiceInstance::new).collect(Collectors.toList());
+    InstancesSnapshot snapshot = cachedSnapshots.get(subscriptionKey);
+    if (snapshot == null) {
+      CachedInstances cached = instancesCacheStore.get(parseAppId(serviceId), parseServiceName(serviceId));
+      if (cached == null) {
+        return Collections.emptyList();
+      }
+      LOGGER.warn("service center is not available, use local cached instances of {}, cache age {} ms.",
+          serviceId, cached.getAge());
+      snapshot = new InstancesSnapshot(cached.getInstances());
+      cachedSnapshots.put(subscriptionKey, snapshot);
+    }
+    return snapshot.getServiceInstances();
   }
 
   @Override
   public List<String> getServices() {
-    List<String> serviceList = new ArrayList<>();
+    MicroservicesResponse microServiceResponse = getMicroserviceList();
+    if (microServiceResponse == null) {
+      return new ArrayList<>();
+    }
+    return toServiceNames(microServiceResponse);
+  }
+
+  private MicroservicesResponse getMicroserviceList() {
     try {
-      MicroservicesResponse microServiceResponse = serviceCenterClient.getMicroserviceList();
-      if (microServiceResponse == null || microServiceResponse.getServices() == null) {
-        return serviceList;
-      }
-      for (Microservice microservice : microServiceResponse.getServices()) {
-        String validServiceName = validMicroserviceName(microservice);
-        if (validServiceName != null) {
-          serviceList.add(validServiceName);
-        }
-      }
+      return serviceCenterClient.getMicroserviceList();
     } catch (OperationException e) {
       LOGGER.error("Get services failed", e);
+      return null;
+    }
+  }
+
+  private List<String> toServiceNames(MicroservicesResponse microServiceResponse) {
+    List<String> serviceList = new ArrayList<>();
+    if (microServiceResponse.getServices() == null) {
+      return serviceList;
+    }
+    for (Microservice microservice : microServiceResponse.getServices()) {
+      String validServiceName = validMicroserviceName(microservice);
+      if (validServiceName != null) {
+        serviceList.add(validServiceName);
+      }
     }
     return serviceList;
   }
@@ -183,6 +368,23 @@ public class ServiceCombDiscoveryClient implements DiscoveryClient, ApplicationE
     return StringUtils.equals(microservice.getEnvironment(), microserviceProperties.getEnvironment());
   }
 
+  /**
+   * stop polling, and write instances not flushed yet to the local cache file.
+   */
+  public void close() {
+    if (adaptivePollScheduler != null) {
+      adaptivePollScheduler.stop();
+    }
+    if (instancesCacheStore != null) {
+      instancesCacheStore.close();
+    }
+  }
+
+  @Override
+  public void setApplicationContext(ApplicationContext applicationContext) {
+    this.applicationContext = applicationContext;
+  }
+
   @Override
   public void setApplicationEventPublisher(ApplicationEventPublisher applicationEventPublisher) {
     this.applicationEventPublisher = applicationEventPublisher;
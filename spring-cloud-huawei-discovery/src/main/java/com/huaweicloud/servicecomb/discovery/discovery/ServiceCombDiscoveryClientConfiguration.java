@@ -18,6 +18,7 @@
 package com.huaweicloud.servicecomb.discovery.discovery;
 
 import org.apache.servicecomb.service.center.client.ServiceCenterClient;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.boot.autoconfigure.AutoConfigureBefore;
 import org.springframework.cloud.client.CommonsClientAutoConfiguration;
 import org.springframework.cloud.client.discovery.DiscoveryClient;
@@ -26,12 +27,14 @@ import org.springframework.context.annotation.Configuration;
 import org.springframework.core.annotation.Order;
 
 import com.huaweicloud.common.configration.bootstrap.BootstrapProperties;
-import com.huaweicloud.common.configration.bootstrap.DiscoveryBootstrapProperties;
 import com.huaweicloud.common.configration.bootstrap.ServiceCombRBACProperties;
 import com.huaweicloud.common.configration.bootstrap.ServiceCombSSLProperties;
+import com.huaweicloud.common.configration.dynamic.DashboardProperties;
 import com.huaweicloud.servicecomb.discovery.ConditionalOnServiceCombDiscoveryEnabled;
 import com.huaweicloud.servicecomb.discovery.registry.ServiceCombRegistration;
 
+import io.micrometer.core.instrument.MeterRegistry;
+
 @Configuration
 @ConditionalOnServiceCombDiscoveryEnabled
 @AutoConfigureBefore({CommonsClientAutoConfiguration.class})
@@ -47,18 +50,21 @@ public class ServiceCombDiscoveryClientConfiguration {
     return new ServiceCombRBACProperties();
   }
 
-  @Bean
+  @Bean(destroyMethod = "close")
   @Order(100)
   public DiscoveryClient serviceCombDiscoveryClient(
       BootstrapProperties bootstrapProperties, ServiceCenterClient serviceCenterClient,
-      ServiceCombRegistration serviceCombRegistration) {
-    return new ServiceCombDiscoveryClient(bootstrapProperties, serviceCenterClient, serviceCombRegistration);
+      ServiceCombRegistration serviceCombRegistration, ObjectProvider<MeterRegistry> meterRegistry) {
+    return new ServiceCombDiscoveryClient(bootstrapProperties, serviceCenterClient, serviceCombRegistration,
+        meterRegistry.getIfAvailable());
   }
 
   @Bean
   @Order(100)
-  public ServiceAddressManager serviceAddressManager(DiscoveryBootstrapProperties discoveryProperties,
-      ServiceCenterClient serviceCenterClient, ServiceCombRegistration serviceCombRegistration) {
-    return new ServiceAddressManager(discoveryProperties, serviceCenterClient, serviceCombRegistration);
+  public ServiceAddressManager serviceAddressManager(BootstrapProperties bootstrapProperties,
+      ServiceCenterClient serviceCenterClient, ServiceCombRegistration serviceCombRegistration,
+      ObjectProvider<DashboardProperties> dashboardProperties, ObjectProvider<MeterRegistry> meterRegistry) {
+    return new ServiceAddressManager(bootstrapProperties, serviceCenterClient, serviceCombRegistration,
+        dashboardProperties.getIfAvailable(), meterRegistry.getIfAvailable());
   }
 }
@@ -16,17 +16,37 @@
   */
 package com.huaweicloud.servicecomb.discovery.discovery;
 
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.cloud.client.ServiceInstance;
 import org.springframework.cloud.client.discovery.DiscoveryClient;
 import org.springframework.cloud.client.discovery.ReactiveDiscoveryClient;
+import org.springframework.context.ApplicationListener;
+
+import com.huaweicloud.common.event.InstancesChangedEvent;
 
 import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
 import reactor.core.scheduler.Schedulers;
 
-public class ServiceCombReactiveDiscoveryClient implements ReactiveDiscoveryClient {
+/**
+ * Keeps the latest instance list of each service in a replay sink. Only the first query of a service is
+ * loaded on bounded elastic scheduler, later queries are answered from the sink on the calling thread, and
+ * the sink is refreshed when InstancesChangedEvent of the service is published by ServiceCombDiscoveryClient.
+ */
+public class ServiceCombReactiveDiscoveryClient implements ReactiveDiscoveryClient,
+    ApplicationListener<InstancesChangedEvent> {
+  private static final Logger LOGGER = LoggerFactory.getLogger(ServiceCombReactiveDiscoveryClient.class);
 
   private final DiscoveryClient discoveryClient;
 
+  private final Map<String, Sinks.Many<List<ServiceInstance>>> instancesSinks = new ConcurrentHashMap<>();
+
   public ServiceCombReactiveDiscoveryClient(DiscoveryClient discoveryClient) {
     this.discoveryClient = discoveryClient;
   }
@@ -36,10 +56,52 @@ public class ServiceCombReactiveDiscoveryClient implements ReactiveDiscoveryClie
     return "SerivceComb Reactive Discovery";
   }
 
+  @Override
+  public void onApplicationEvent(InstancesChangedEvent event) {
+    // published after the snapshot of ServiceCombDiscoveryClient updated, include changes of watch events
+    event.getServiceIds().forEach(this::refresh);
+  }
+
+  private void refresh(String serviceId) {
+    Sinks.Many<List<ServiceInstance>> sink = instancesSinks.get(serviceId);
+    if (sink != null) {
+      emit(sink, discoveryClient.getInstances(serviceId));
+    }
+  }
+
+  private static void emit(Sinks.Many<List<ServiceInstance>> sink, List<ServiceInstance> instances) {
+    // event thread and first load may emit at the same time
+    synchronized (sink) {
+      sink.tryEmitNext(instances);
+    }
+  }
+
   @Override
   public Flux<ServiceInstance> getInstances(String serviceId) {
-    return Flux.defer(() -> Flux.fromIterable(discoveryClient.getInstances(serviceId)))
-        .subscribeOn(Schedulers.boundedElastic());
+    Sinks.Many<List<ServiceInstance>> sink = instancesSinks.get(serviceId);
+    if (sink == null) {
+      sink = createSink(serviceId);
+    }
+    return sink.asFlux().next().flatMapIterable(instances -> instances);
+  }
+
+  private Sinks.Many<List<ServiceInstance>> createSink(String serviceId) {
+    Sinks.Many<List<ServiceInstance>> sink = Sinks.many().replay().latest();
+    Sinks.Many<List<ServiceInstance>> exists = instancesSinks.putIfAbsent(serviceId, sink);
+    if (exists != null) {
+      return exists;
+    }
+    Mono.fromCallable(() -> discoveryClient.getInstances(serviceId))
+        .subscribeOn(Schedulers.boundedElastic())
+        .subscribe(instances -> emit(sink, instances), error -> {
+          LOGGER.warn("load instances of {} failed, message={}", serviceId, error.getMessage());
+          // let next query try again
+          instancesSinks.remove(serviceId, sink);
+          synchronized (sink) {
+            sink.tryEmitError(error);
+          }
+        });
+    return sink;
   }
 
   @Override
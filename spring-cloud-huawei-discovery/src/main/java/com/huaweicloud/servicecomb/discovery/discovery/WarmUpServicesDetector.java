@@ -0,0 +1,117 @@
+/*
+
+ * Copyright (C) 2020-2022 Huawei Technologies Co., Ltd. All rights reserved.
+
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.huaweicloud.servicecomb.discovery.discovery;
+
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.FactoryBean;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.cloud.gateway.config.GatewayProperties;
+import org.springframework.cloud.gateway.route.RouteDefinition;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.core.annotation.AnnotationAttributes;
+import org.springframework.util.ClassUtils;
+
+import com.huaweicloud.common.configration.bootstrap.DiscoveryBootstrapProperties;
+
+/**
+ * Find services this application depends on: configured warm up services, names of @FeignClient and
+ * lb:// routes of spring cloud gateway.
+ */
+public class WarmUpServicesDetector {
+  private static final Logger LOGGER = LoggerFactory.getLogger(WarmUpServicesDetector.class);
+
+  private static final String FEIGN_CLIENT_ANNOTATION = "org.springframework.cloud.openfeign.FeignClient";
+
+  private static final String GATEWAY_PROPERTIES_CLASS = "org.springframework.cloud.gateway.config.GatewayProperties";
+
+  private static final String LOAD_BALANCE_SCHEME = "lb";
+
+  private final DiscoveryBootstrapProperties discoveryProperties;
+
+  public WarmUpServicesDetector(DiscoveryBootstrapProperties discoveryProperties) {
+    this.discoveryProperties = discoveryProperties;
+  }
+
+  public Set<String> detect(ApplicationContext applicationContext) {
+    Set<String> services = new LinkedHashSet<>();
+    discoveryProperties.getWarmUpServices().stream().filter(StringUtils::isNotBlank).map(String::trim)
+        .forEach(services::add);
+    if (!discoveryProperties.isAutoDetectWarmUpServices()
+        || !(applicationContext instanceof ConfigurableApplicationContext)) {
+      return services;
+    }
+    try {
+      ConfigurableApplicationContext context = (ConfigurableApplicationContext) applicationContext;
+      addFeignClients(context, services);
+      if (ClassUtils.isPresent(GATEWAY_PROPERTIES_CLASS, null)) {
+        GatewayRoutes.addServices(context, services);
+      }
+    } catch (RuntimeException e) {
+      LOGGER.warn("detect warm up services failed, message={}", e.getMessage());
+    }
+    return services;
+  }
+
+  // feign clients are registered as factory beans, read the annotation from the object type without creating them.
+  private static void addFeignClients(ConfigurableApplicationContext context, Set<String> services) {
+    ConfigurableListableBeanFactory beanFactory = context.getBeanFactory();
+    for (String beanName : beanFactory.getBeanDefinitionNames()) {
+      BeanDefinition definition = beanFactory.getBeanDefinition(beanName);
+      Object objectType = definition.getAttribute(FactoryBean.OBJECT_TYPE_ATTRIBUTE);
+      if (!(objectType instanceof String) || !ClassUtils.isPresent((String) objectType, context.getClassLoader())) {
+        continue;
+      }
+      AnnotationAttributes attributes = AnnotatedElementUtils.getMergedAnnotationAttributes(
+          ClassUtils.resolveClassName((String) objectType, context.getClassLoader()), FEIGN_CLIENT_ANNOTATION);
+      if (attributes == null) {
+        continue;
+      }
+      String name = StringUtils.isNotEmpty(attributes.getString("name")) ?
+          attributes.getString("name") : attributes.getString("value");
+      name = context.getEnvironment().resolvePlaceholders(name);
+      // clients with url do not use discovery
+      if (StringUtils.isNotBlank(name) && StringUtils.isEmpty(attributes.getString("url"))) {
+        services.add(name);
+      }
+    }
+  }
+
+  // separate class, gateway is optional
+  private static class GatewayRoutes {
+    static void addServices(ConfigurableApplicationContext context, Set<String> services) {
+      Map<String, GatewayProperties> gatewayProperties = context.getBeansOfType(GatewayProperties.class);
+      for (GatewayProperties properties : gatewayProperties.values()) {
+        for (RouteDefinition route : properties.getRoutes()) {
+          if (route.getUri() != null && LOAD_BALANCE_SCHEME.equalsIgnoreCase(route.getUri().getScheme())
+              && route.getUri().getHost() != null) {
+            services.add(route.getUri().getHost());
+          }
+        }
+      }
+    }
+  }
+}
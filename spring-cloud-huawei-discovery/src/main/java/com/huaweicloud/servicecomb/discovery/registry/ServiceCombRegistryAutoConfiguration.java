@@ -34,6 +34,7 @@ import org.springframework.context.annotation.Configuration;
 import com.huaweicloud.common.configration.bootstrap.BootstrapProperties;
 import com.huaweicloud.common.configration.bootstrap.DiscoveryBootstrapProperties;
 import com.huaweicloud.common.event.ClosedEventListener;
+import com.huaweicloud.common.metrics.InFlightRequests;
 import com.huaweicloud.servicecomb.discovery.ConditionalOnServiceCombEnabled;
 import com.huaweicloud.servicecomb.discovery.DiscoveryAutoConfiguration;
 import com.huaweicloud.servicecomb.discovery.discovery.DiscoveryProperties;
@@ -51,9 +52,11 @@ public class ServiceCombRegistryAutoConfiguration {
       DiscoveryBootstrapProperties discoveryBootstrapProperties,
       ClosedEventListener closedEventListener,
       ServiceCenterClient serviceCenterClient,
-      ServiceCenterWatch serviceCenterWatch) {
+      ServiceCenterWatch serviceCenterWatch,
+      InFlightRequests inFlightRequests) {
     return new ServiceCombServiceRegistry(
-        discoveryBootstrapProperties, closedEventListener, serviceCenterClient, serviceCenterWatch);
+        discoveryBootstrapProperties, closedEventListener, serviceCenterClient, serviceCenterWatch,
+        inFlightRequests);
   }
 
   @Bean
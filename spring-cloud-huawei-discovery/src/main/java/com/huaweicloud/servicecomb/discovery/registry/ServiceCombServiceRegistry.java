@@ -45,6 +45,7 @@ import com.huaweicloud.common.configration.bootstrap.DiscoveryBootstrapPropertie
 import com.huaweicloud.common.event.ClosedEventListener;
 import com.huaweicloud.common.event.ClosedEventProcessor;
 import com.huaweicloud.common.event.EventManager;
+import com.huaweicloud.common.metrics.InFlightRequests;
 import com.huaweicloud.common.schema.ServiceCombSwaggerHandler;
 import com.huaweicloud.servicecomb.discovery.client.model.DiscoveryConstants;
 
@@ -69,10 +70,14 @@ public class ServiceCombServiceRegistry implements
 
   private ApplicationContext applicationContext;
 
+  private final InFlightRequests inFlightRequests;
+
   public ServiceCombServiceRegistry(DiscoveryBootstrapProperties discoveryBootstrapProperties,
       ClosedEventListener closedEventListener,
-      ServiceCenterClient serviceCenterClient, @Autowired(required = false) ServiceCenterWatch watch) {
+      ServiceCenterClient serviceCenterClient, @Autowired(required = false) ServiceCenterWatch watch,
+      InFlightRequests inFlightRequests) {
     this.serviceCenterClient = serviceCenterClient;
+    this.inFlightRequests = inFlightRequests;
     this.watch = watch;
     this.discoveryBootstrapProperties = discoveryBootstrapProperties;
     this.serviceCenterConfiguration = new ServiceCenterConfiguration()
@@ -185,11 +190,15 @@ public class ServiceCombServiceRegistry implements
               serviceCombRegistration.getMicroserviceInstance().getServiceId(),
               serviceCombRegistration.getMicroserviceInstance().getInstanceId());
 
-          // wait a while for un registration event broadcast to others
+          // wait for consumers to stop sending new requests and requests in processing done,
+          // at most waitTimeForShutDownInMillis
           if (discoveryBootstrapProperties.getWaitTimeForShutDownInMillis() > 0) {
-            LOGGER.info("wait {}ms for un registration event broadcast to others",
+            LOGGER.info("wait at most {}ms for requests done, quiet time {}ms",
+                discoveryBootstrapProperties.getWaitTimeForShutDownInMillis(),
+                discoveryBootstrapProperties.getQuietTimeForShutDownInMillis());
+            long used = inFlightRequests.awaitDrained(discoveryBootstrapProperties.getQuietTimeForShutDownInMillis(),
                 discoveryBootstrapProperties.getWaitTimeForShutDownInMillis());
-            Thread.sleep(discoveryBootstrapProperties.getWaitTimeForShutDownInMillis());
+            LOGGER.info("requests drained in {}ms.", used);
           }
         } catch (Exception e) {
           LOGGER.error("delete microservice failed. ", e);
@@ -0,0 +1,72 @@
+/*
+
+ * Copyright (C) 2020-2022 Huawei Technologies Co., Ltd. All rights reserved.
+
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.huaweicloud.servicecomb.discovery.client.model;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.servicecomb.service.center.client.model.MicroserviceInstance;
+import org.apache.servicecomb.service.center.client.model.MicroserviceInstanceStatus;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import com.huaweicloud.common.disovery.ReadOnlyMetadata;
+
+public class ServiceCombServiceInstanceTest {
+  private static MicroserviceInstance microserviceInstance() {
+    MicroserviceInstance instance = new MicroserviceInstance();
+    instance.setInstanceId("instance-1");
+    instance.setStatus(MicroserviceInstanceStatus.UP);
+    instance.setEndpoints(Collections.singletonList("rest://127.0.0.1:8080?sslEnabled=true"));
+    Map<String, String> properties = new HashMap<>();
+    properties.put("weight", "50");
+    instance.setProperties(properties);
+    return instance;
+  }
+
+  @Test
+  public void test_endpoint_computed() {
+    ServiceCombServiceInstance instance = new ServiceCombServiceInstance(microserviceInstance());
+    Assertions.assertEquals("127.0.0.1", instance.getHost());
+    Assertions.assertEquals(8080, instance.getPort());
+    Assertions.assertTrue(instance.isSecure());
+    Assertions.assertEquals("https://127.0.0.1:8080", instance.getUri().toString());
+  }
+
+  @Test
+  public void test_metadata_modifiable_copy() {
+    ServiceCombServiceInstance instance = new ServiceCombServiceInstance(microserviceInstance());
+    Map<String, String> metadata = instance.getMetadata();
+    Assertions.assertEquals("50", metadata.get("weight"));
+    Assertions.assertEquals("UP", metadata.get(DiscoveryConstants.INSTANCE_STATUS));
+
+    metadata.put("weight", "100");
+    Assertions.assertEquals("50", instance.getMetadata().get("weight"));
+    Assertions.assertEquals("50", instance.getReadOnlyMetadata().get("weight"));
+  }
+
+  @Test
+  public void test_read_only_metadata_shared() {
+    ServiceCombServiceInstance instance = new ServiceCombServiceInstance(microserviceInstance());
+    Assertions.assertSame(instance.getReadOnlyMetadata(), instance.getReadOnlyMetadata());
+    Assertions.assertSame(instance.getReadOnlyMetadata(), ReadOnlyMetadata.of(instance));
+    Assertions.assertThrows(UnsupportedOperationException.class,
+        () -> instance.getReadOnlyMetadata().put("weight", "100"));
+  }
+}
@@ -0,0 +1,101 @@
+/*
+
+ * Copyright (C) 2020-2022 Huawei Technologies Co., Ltd. All rights reserved.
+
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.huaweicloud.servicecomb.discovery.discovery;
+
+import org.apache.servicecomb.service.center.client.DiscoveryEvents.InstanceChangedEvent;
+import org.apache.servicecomb.service.center.client.ServiceCenterDiscovery;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import com.google.common.eventbus.EventBus;
+import com.huaweicloud.common.configration.bootstrap.DiscoveryBootstrapProperties;
+
+public class AdaptivePollSchedulerTest {
+  private static AdaptivePollScheduler scheduler(DiscoveryBootstrapProperties properties) {
+    return new AdaptivePollScheduler(properties, new ServiceCenterDiscovery(null, new EventBus()));
+  }
+
+  @Test
+  public void test_back_off_after_unchanged_polls() {
+    DiscoveryBootstrapProperties properties = new DiscoveryBootstrapProperties();
+    properties.setPollInterval(15000);
+    properties.setPollIntervalMaxInMillis(100000);
+    AdaptivePollScheduler scheduler = scheduler(properties);
+    try {
+      long[] expected = {15000, 15000, 15000, 30000, 30000, 30000, 30000, 60000, 60000, 60000, 60000,
+          100000, 100000, 100000, 100000, 100000};
+      for (long interval : expected) {
+        Assertions.assertEquals(interval, scheduler.recordPoll());
+      }
+    } finally {
+      scheduler.stop();
+    }
+  }
+
+  @Test
+  public void test_fast_polls_after_changed() {
+    DiscoveryBootstrapProperties properties = new DiscoveryBootstrapProperties();
+    properties.setPollInterval(15000);
+    properties.setPollIntervalMaxInMillis(100000);
+    AdaptivePollScheduler scheduler = scheduler(properties);
+    try {
+      for (int i = 0; i < 8; i++) {
+        scheduler.recordPoll();
+      }
+      Assertions.assertEquals(60000, scheduler.recordPoll());
+
+      // back off restarts after three fast polls
+      scheduler.onInstanceChangedEvent(new InstanceChangedEvent("app", "service", null));
+      Assertions.assertEquals(7500, scheduler.recordPoll());
+      Assertions.assertEquals(7500, scheduler.recordPoll());
+      Assertions.assertEquals(7500, scheduler.recordPoll());
+      Assertions.assertEquals(15000, scheduler.recordPoll());
+      Assertions.assertEquals(30000, scheduler.recordPoll());
+    } finally {
+      scheduler.stop();
+    }
+  }
+
+  @Test
+  public void test_jitter_bounds() {
+    DiscoveryBootstrapProperties properties = new DiscoveryBootstrapProperties();
+    properties.setPollJitterRatio(0.2);
+    AdaptivePollScheduler scheduler = scheduler(properties);
+    try {
+      long min = Long.MAX_VALUE;
+      long max = 0;
+      for (int i = 0; i < 1000; i++) {
+        long interval = scheduler.jitter(10000);
+        min = Math.min(min, interval);
+        max = Math.max(max, interval);
+      }
+      Assertions.assertTrue(min >= 8000 && min < 8500, "min " + min);
+      Assertions.assertTrue(max <= 12000 && max > 11500, "max " + max);
+
+      // not below min interval of service center discovery
+      for (int i = 0; i < 100; i++) {
+        Assertions.assertTrue(scheduler.jitter(1000) >= ServiceCenterDiscovery.MIN_INTERVAL);
+      }
+
+      properties.setPollJitterRatio(0);
+      Assertions.assertEquals(10000, scheduler.jitter(10000));
+    } finally {
+      scheduler.stop();
+    }
+  }
+}
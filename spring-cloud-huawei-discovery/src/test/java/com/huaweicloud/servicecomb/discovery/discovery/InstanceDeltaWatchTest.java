@@ -0,0 +1,58 @@
+/*
+
+ * Copyright (C) 2020-2022 Huawei Technologies Co., Ltd. All rights reserved.
+
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.huaweicloud.servicecomb.discovery.discovery;
+
+import org.apache.servicecomb.service.center.client.model.MicroserviceInstanceStatus;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import com.huaweicloud.servicecomb.discovery.discovery.InstanceDeltaEvent.Action;
+
+public class InstanceDeltaWatchTest {
+  private static String message(String action) {
+    return "{\"action\":\"" + action + "\",\"key\":{\"appId\":\"app\",\"serviceName\":\"service\","
+        + "\"version\":\"1.0.0\"},\"instance\":{\"instanceId\":\"i1\",\"serviceId\":\"s1\","
+        + "\"status\":\"UP\",\"endpoints\":[\"rest://127.0.0.1:8080\"],\"unknown\":1}}";
+  }
+
+  @Test
+  public void test_parse_create_update_delete() {
+    InstanceDeltaEvent created = InstanceDeltaWatch.parse(message("CREATE"));
+    Assertions.assertEquals(Action.CREATE, created.getAction());
+    Assertions.assertEquals("app", created.getAppId());
+    Assertions.assertEquals("service", created.getServiceName());
+    Assertions.assertEquals("i1", created.getInstance().getInstanceId());
+    Assertions.assertEquals(MicroserviceInstanceStatus.UP, created.getInstance().getStatus());
+    Assertions.assertEquals("rest://127.0.0.1:8080", created.getInstance().getEndpoints().get(0));
+    Assertions.assertFalse(created.isRemoved());
+
+    Assertions.assertEquals(Action.UPDATE, InstanceDeltaWatch.parse(message("UPDATE")).getAction());
+    Assertions.assertTrue(InstanceDeltaWatch.parse(message("DELETE")).isRemoved());
+    Assertions.assertTrue(InstanceDeltaWatch.parse(message("EXPIRE")).isRemoved());
+  }
+
+  @Test
+  public void test_parse_malformed_message() {
+    Assertions.assertNull(InstanceDeltaWatch.parse("not json"));
+    Assertions.assertNull(InstanceDeltaWatch.parse("{}"));
+    Assertions.assertNull(InstanceDeltaWatch.parse(message("UNKNOWN")));
+    Assertions.assertNull(InstanceDeltaWatch.parse(message("CREATE").replace("\"instanceId\":\"i1\",", "")));
+    Assertions.assertNull(InstanceDeltaWatch.parse(message("CREATE").replace("\"appId\":\"app\",", "")));
+    Assertions.assertNull(InstanceDeltaWatch.parse(message("CREATE").replace("\"UP\"", "\"BROKEN\"")));
+  }
+}
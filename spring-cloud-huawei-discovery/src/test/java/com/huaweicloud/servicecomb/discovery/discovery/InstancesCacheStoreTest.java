@@ -0,0 +1,100 @@
+/*
+
+ * Copyright (C) 2020-2022 Huawei Technologies Co., Ltd. All rights reserved.
+
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.huaweicloud.servicecomb.discovery.discovery;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+import org.apache.servicecomb.service.center.client.model.MicroserviceInstance;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import com.huaweicloud.servicecomb.discovery.discovery.InstancesCacheStore.CachedInstances;
+
+public class InstancesCacheStoreTest {
+  private static void delete(Path dir) throws IOException {
+    try (Stream<Path> paths = Files.walk(dir)) {
+      paths.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+    }
+  }
+
+  @Test
+  public void test_close_flush_and_load() throws IOException {
+    Path dir = Files.createTempDirectory("discovery-cache");
+    try {
+      String path = dir.resolve("cache").resolve("instances.gz").toString();
+      MicroserviceInstance instance = new MicroserviceInstance();
+      instance.setInstanceId("instance-1");
+      instance.setEndpoints(Collections.singletonList("rest://127.0.0.1:8080"));
+
+      InstancesCacheStore store = new InstancesCacheStore(path, 60000);
+      store.update("default", "provider", Collections.singletonList(instance));
+      store.close();
+
+      InstancesCacheStore loaded = new InstancesCacheStore(path, 60000);
+      loaded.load();
+      CachedInstances cached = loaded.get("default", "provider");
+      Assertions.assertNotNull(cached);
+      Assertions.assertEquals(1, cached.getInstances().size());
+      Assertions.assertEquals("instance-1", cached.getInstances().get(0).getInstanceId());
+      Assertions.assertEquals("provider", cached.getInstances().get(0).getServiceName());
+    } finally {
+      delete(dir);
+    }
+  }
+
+  @Test
+  public void test_update_after_close() throws IOException {
+    Path dir = Files.createTempDirectory("discovery-cache");
+    try {
+      String path = dir.resolve("instances.gz").toString();
+      InstancesCacheStore store = new InstancesCacheStore(path, 60000);
+      store.close();
+      store.update("default", "provider", Collections.emptyList());
+
+      InstancesCacheStore loaded = new InstancesCacheStore(path, 60000);
+      loaded.load();
+      Assertions.assertNotNull(loaded.get("default", "provider"));
+    } finally {
+      delete(dir);
+    }
+  }
+
+  @Test
+  public void test_expired_entries_dropped() throws Exception {
+    Path dir = Files.createTempDirectory("discovery-cache");
+    try {
+      String path = dir.resolve("instances.gz").toString();
+      InstancesCacheStore store = new InstancesCacheStore(path, 60000);
+      store.update("default", "provider", Collections.emptyList());
+      store.close();
+
+      Thread.sleep(20);
+      InstancesCacheStore loaded = new InstancesCacheStore(path, 10);
+      loaded.load();
+      Assertions.assertNull(loaded.get("default", "provider"));
+    } finally {
+      delete(dir);
+    }
+  }
+}
@@ -0,0 +1,122 @@
+/*
+
+ * Copyright (C) 2020-2022 Huawei Technologies Co., Ltd. All rights reserved.
+
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.huaweicloud.servicecomb.discovery.discovery;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.servicecomb.service.center.client.model.MicroserviceInstance;
+import org.apache.servicecomb.service.center.client.model.MicroserviceInstanceStatus;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import com.huaweicloud.servicecomb.discovery.client.model.ServiceCombServiceInstance;
+import com.huaweicloud.servicecomb.discovery.discovery.InstanceDeltaEvent.Action;
+
+public class InstancesSnapshotTest {
+  private static MicroserviceInstance instance(String id, MicroserviceInstanceStatus status) {
+    MicroserviceInstance instance = new MicroserviceInstance();
+    instance.setInstanceId(id);
+    instance.setStatus(status);
+    instance.setEndpoints(Collections.singletonList("rest://127.0.0.1:8080"));
+    Map<String, String> properties = new HashMap<>();
+    properties.put("group", "blue");
+    instance.setProperties(properties);
+    return instance;
+  }
+
+  @Test
+  public void test_source_instances_not_changed() {
+    MicroserviceInstance first = instance("1", MicroserviceInstanceStatus.UP);
+    MicroserviceInstance second = instance("2", MicroserviceInstanceStatus.UP);
+    Map<String, String> properties = first.getProperties();
+
+    InstancesSnapshot snapshot = new InstancesSnapshot(Arrays.asList(first, second));
+    Assertions.assertSame(properties, first.getProperties());
+    properties.put("changed", "true");
+
+    ServiceCombServiceInstance a = (ServiceCombServiceInstance) snapshot.getServiceInstances().get(0);
+    Assertions.assertNull(a.getReadOnlyMetadata().get("changed"));
+  }
+
+  @Test
+  public void test_down_instances_removed() {
+    List<MicroserviceInstance> source = Arrays.asList(instance("1", MicroserviceInstanceStatus.UP),
+        instance("2", MicroserviceInstanceStatus.DOWN));
+    InstancesSnapshot snapshot = new InstancesSnapshot(source);
+    Assertions.assertEquals(1, snapshot.getServiceInstances().size());
+    Assertions.assertTrue(snapshot.isBuiltFrom(source, System.currentTimeMillis()));
+  }
+
+  private static List<String> instanceIds(InstancesSnapshot snapshot) {
+    List<String> result = new ArrayList<>();
+    snapshot.getServiceInstances().forEach(instance -> result.add(instance.getInstanceId()));
+    return result;
+  }
+
+  @Test
+  public void test_apply_create_update_delete() {
+    List<MicroserviceInstance> source = Arrays.asList(instance("1", MicroserviceInstanceStatus.UP),
+        instance("2", MicroserviceInstanceStatus.UP));
+    InstancesSnapshot snapshot = new InstancesSnapshot(source);
+
+    InstancesSnapshot created = snapshot.apply(
+        new InstanceDeltaEvent(Action.CREATE, "app", "service", instance("3", MicroserviceInstanceStatus.UP)),
+        Long.MAX_VALUE);
+    Assertions.assertEquals(Arrays.asList("1", "2", "3"), instanceIds(created));
+    Assertions.assertEquals(2, snapshot.getServiceInstances().size());
+
+    InstancesSnapshot updated = created.apply(
+        new InstanceDeltaEvent(Action.UPDATE, "app", "service", instance("1", MicroserviceInstanceStatus.DOWN)),
+        Long.MAX_VALUE);
+    Assertions.assertEquals(Arrays.asList("2", "3"), instanceIds(updated));
+
+    InstancesSnapshot deleted = updated.apply(
+        new InstanceDeltaEvent(Action.DELETE, "app", "service", instance("2", MicroserviceInstanceStatus.UP)),
+        Long.MAX_VALUE);
+    Assertions.assertEquals(Collections.singletonList("3"), instanceIds(deleted));
+    Assertions.assertTrue(deleted.isChangesApplied());
+    Assertions.assertFalse(snapshot.isChangesApplied());
+    Assertions.assertTrue(deleted.isBuiltFrom(source, System.currentTimeMillis()));
+  }
+
+  @Test
+  public void test_changes_applied_reconciled_with_pulled_revision() {
+    List<MicroserviceInstance> source = Collections.singletonList(instance("1", MicroserviceInstanceStatus.UP));
+    InstancesSnapshot snapshot = new InstancesSnapshot(source);
+
+    // duplicated delete message of an instance that is still registered
+    InstancesSnapshot applied = snapshot.apply(
+        new InstanceDeltaEvent(Action.DELETE, "app", "service", instance("1", MicroserviceInstanceStatus.UP)),
+        1000);
+    Assertions.assertTrue(applied.getServiceInstances().isEmpty());
+    Assertions.assertTrue(applied.isBuiltFrom(source, 999));
+    Assertions.assertFalse(applied.isBuiltFrom(source, 1000));
+
+    // later changes do not delay reconcile
+    InstancesSnapshot later = applied.apply(
+        new InstanceDeltaEvent(Action.CREATE, "app", "service", instance("2", MicroserviceInstanceStatus.UP)),
+        2000);
+    Assertions.assertFalse(later.isBuiltFrom(source, 1000));
+    Assertions.assertTrue(snapshot.isBuiltFrom(source, Long.MAX_VALUE - 1));
+  }
+}
@@ -37,6 +37,8 @@ import org.springframework.context.annotation.Configuration;
 import com.huaweicloud.common.event.ConfigRefreshEvent;
 import com.huaweicloud.governance.authentication.AuthHandlerBoot;
 import com.huaweicloud.governance.authentication.consumer.RSAConsumerTokenManager;
+import com.huaweicloud.governance.hedge.HedgeHandler;
+import com.huaweicloud.governance.hedge.HedgeProperties;
 import com.huaweicloud.servicecomb.discovery.registry.ServiceCombRegistration;
 
 @Configuration
@@ -68,6 +70,16 @@ public class GovernanceConfiguration {
     return new SpringCloudInstanceIsolationExtension(statusCodeExtractors);
   }
 
+  @Bean
+  public HedgeProperties hedgeProperties() {
+    return new HedgeProperties();
+  }
+
+  @Bean
+  public HedgeHandler hedgeHandler(HedgeProperties hedgeProperties) {
+    return new HedgeHandler(hedgeProperties);
+  }
+
   @Bean
   @ConditionalOnExpression("${"+GovernanceProperties.WEBMVC_PUBLICKEY_CONSUMER_ENABLED +":true}"
       + " or ${"+GovernanceProperties.WEBMVC_PUBLICKEY_PROVIDER_ENABLED +":true}")
@@ -31,7 +31,9 @@ import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
 import com.huaweicloud.common.configration.dynamic.GovernanceProperties;
+import com.huaweicloud.common.event.PullInstanceEventCoalescer;
 import com.huaweicloud.governance.authentication.consumer.RSAConsumerTokenManager;
+import com.huaweicloud.governance.hedge.HedgeHandler;
 
 import feign.Client;
 import feign.Response;
@@ -46,12 +48,14 @@ public class FeignConfiguration {
       FaultInjectionHandler faultInjectionHandler,
       InstanceIsolationHandler instanceIsolationHandler,
       InstanceBulkheadHandler instanceBulkheadHandler,
+      HedgeHandler hedgeHandler,
+      PullInstanceEventCoalescer pullInstanceEventCoalescer,
       @Autowired(required = false) ClientRecoverPolicy<Response> clientRecoverPolicy,
       LoadBalancerClient loadBalancerClient,
       LoadBalancerClientFactory loadBalancerClientFactory) {
     return new GovernanceFeignBlockingLoadBalancerClient(
         retryHandler, faultInjectionHandler, instanceIsolationHandler,
-        instanceBulkheadHandler, clientRecoverPolicy,
+        instanceBulkheadHandler, hedgeHandler, pullInstanceEventCoalescer, clientRecoverPolicy,
         new Client.Default(null, null), loadBalancerClient,
         loadBalancerClientFactory);
   }
@@ -40,7 +40,6 @@ import org.apache.servicecomb.http.client.common.HttpUtils;
 import org.apache.servicecomb.injection.Fault;
 import org.apache.servicecomb.injection.FaultInjectionDecorators;
 import org.apache.servicecomb.injection.FaultInjectionDecorators.FaultInjectionDecorateCheckedSupplier;
-import org.apache.servicecomb.service.center.client.DiscoveryEvents.PullInstanceEvent;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.cloud.client.ServiceInstance;
@@ -63,7 +62,9 @@ import org.springframework.util.Assert;
 import com.huaweicloud.common.adapters.loadbalancer.RetryContext;
 import com.huaweicloud.common.context.InvocationContext;
 import com.huaweicloud.common.context.InvocationContextHolder;
-import com.huaweicloud.common.event.EventManager;
+import com.huaweicloud.common.event.PullInstanceEventCoalescer;
+import com.huaweicloud.governance.hedge.Hedge;
+import com.huaweicloud.governance.hedge.HedgeHandler;
 
 import io.github.resilience4j.bulkhead.Bulkhead;
 import io.github.resilience4j.bulkhead.BulkheadFullException;
@@ -107,12 +108,18 @@ public class GovernanceFeignBlockingLoadBalancerClient implements Client {
 
   private final InstanceBulkheadHandler instanceBulkheadHandler;
 
+  private final HedgeHandler hedgeHandler;
+
+  private final PullInstanceEventCoalescer pullInstanceEventCoalescer;
+
   private final ClientRecoverPolicy<Response> clientRecoverPolicy;
 
   public GovernanceFeignBlockingLoadBalancerClient(RetryHandler retryHandler,
       FaultInjectionHandler faultInjectionHandler,
       InstanceIsolationHandler instanceIsolationHandler,
       InstanceBulkheadHandler instanceBulkheadHandler,
+      HedgeHandler hedgeHandler,
+      PullInstanceEventCoalescer pullInstanceEventCoalescer,
       ClientRecoverPolicy<Response> clientRecoverPolicy,
       Client delegate, LoadBalancerClient loadBalancerClient,
       LoadBalancerClientFactory loadBalancerClientFactory) {
@@ -120,6 +127,8 @@ public class GovernanceFeignBlockingLoadBalancerClient implements Client {
     this.faultInjectionHandler = faultInjectionHandler;
     this.instanceIsolationHandler = instanceIsolationHandler;
     this.instanceBulkheadHandler = instanceBulkheadHandler;
+    this.hedgeHandler = hedgeHandler;
+    this.pullInstanceEventCoalescer = pullInstanceEventCoalescer;
     this.clientRecoverPolicy = clientRecoverPolicy;
     this.delegate = delegate;
     this.loadBalancerClient = loadBalancerClient;
@@ -133,7 +142,7 @@ public class GovernanceFeignBlockingLoadBalancerClient implements Client {
     GovernanceRequest governanceRequest = convert(request);
     governanceRequest.setServiceName(originalUri.getHost());
 
-    CheckedFunction0<Response> next = () -> doExecute(originalUri, request, options, governanceRequest);
+    CheckedFunction0<Response> next = addHedge(request, options, originalUri, governanceRequest);
 
     DecorateCheckedSupplier<Response> dcs = Decorators.ofCheckedSupplier(next);
 
@@ -173,6 +182,23 @@ public class GovernanceFeignBlockingLoadBalancerClient implements Client {
     }
   }
 
+  private CheckedFunction0<Response> addHedge(Request request, Options options, URI originalUri,
+      GovernanceRequest governanceRequest) {
+    Hedge hedge = hedgeHandler.getActuator(governanceRequest);
+    if (hedge == null) {
+      return () -> doExecute(originalUri, request, options, governanceRequest);
+    }
+    return () -> hedge.execute(attempt -> {
+      if (attempt == 0) {
+        return doExecute(originalUri, request, options, governanceRequest);
+      }
+      // instance id of governance request is changed in execution
+      GovernanceRequest hedgeRequest = convert(request);
+      hedgeRequest.setServiceName(originalUri.getHost());
+      return doExecute(originalUri, request, options, hedgeRequest);
+    }, Response::close);
+  }
+
   private Response doExecute(URI originalUri, Request request, Options options, GovernanceRequest governanceRequest)
       throws IOException {
     String serviceId = originalUri.getHost();
@@ -298,7 +324,7 @@ public class GovernanceFeignBlockingLoadBalancerClient implements Client {
       if (e instanceof CallNotPermittedException) {
         // when instance isolated, request to pull instances.
         LOG.error("instance isolated [{}]", governanceRequest.getInstanceId());
-        EventManager.post(new PullInstanceEvent());
+        pullInstanceEventCoalescer.request(governanceRequest.getServiceName());
         return Response.builder().status(503).reason("instance isolated.").request(feignRequest).build();
       }
 
@@ -32,6 +32,7 @@ import org.springframework.context.annotation.Configuration;
 import org.springframework.web.server.WebFilter;
 
 import com.huaweicloud.common.configration.dynamic.GovernanceProperties;
+import com.huaweicloud.common.event.PullInstanceEventCoalescer;
 import com.huaweicloud.governance.authentication.consumer.RSAConsumerTokenManager;
 
 @Configuration
@@ -50,8 +51,9 @@ public class GatewayConfiguration {
   @ConditionalOnEnabledFilter
   @ConditionalOnProperty(value = GovernanceProperties.GATEWAY_INSTANCE_ISOLATION_ENABLED,
       havingValue = "true", matchIfMissing = true)
-  public InstanceIsolationGlobalFilter instanceIsolationGlobalFilter(InstanceIsolationHandler handler) {
-    return new InstanceIsolationGlobalFilter(handler);
+  public InstanceIsolationGlobalFilter instanceIsolationGlobalFilter(InstanceIsolationHandler handler,
+      PullInstanceEventCoalescer pullInstanceEventCoalescer) {
+    return new InstanceIsolationGlobalFilter(handler, pullInstanceEventCoalescer);
   }
 
   @Bean
@@ -20,7 +20,6 @@ package com.huaweicloud.governance.adapters.gateway;
 import org.apache.servicecomb.governance.handler.InstanceIsolationHandler;
 import org.apache.servicecomb.governance.marker.GovernanceRequest;
 import org.apache.servicecomb.governance.policy.CircuitBreakerPolicy;
-import org.apache.servicecomb.service.center.client.DiscoveryEvents.PullInstanceEvent;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.cloud.client.ServiceInstance;
@@ -34,7 +33,7 @@ import org.springframework.http.HttpStatus;
 import org.springframework.web.server.ResponseStatusException;
 import org.springframework.web.server.ServerWebExchange;
 
-import com.huaweicloud.common.event.EventManager;
+import com.huaweicloud.common.event.PullInstanceEventCoalescer;
 
 import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
 import io.github.resilience4j.circuitbreaker.CircuitBreaker;
@@ -46,8 +45,12 @@ public class InstanceIsolationGlobalFilter implements GlobalFilter, Ordered {
 
   private final InstanceIsolationHandler isolationHandler;
 
-  public InstanceIsolationGlobalFilter(InstanceIsolationHandler isolationHandler) {
+  private final PullInstanceEventCoalescer pullInstanceEventCoalescer;
+
+  public InstanceIsolationGlobalFilter(InstanceIsolationHandler isolationHandler,
+      PullInstanceEventCoalescer pullInstanceEventCoalescer) {
     this.isolationHandler = isolationHandler;
+    this.pullInstanceEventCoalescer = pullInstanceEventCoalescer;
   }
 
   @Override
@@ -90,7 +93,7 @@ public class InstanceIsolationGlobalFilter implements GlobalFilter, Ordered {
       mono = toRun.transformDeferred(CircuitBreakerOperator.of(circuitBreaker))
           .onErrorResume(CallNotPermittedException.class, (t) -> {
             LOGGER.error("instance isolated [{}]", governanceRequest.getInstanceId());
-            EventManager.post(new PullInstanceEvent());
+            pullInstanceEventCoalescer.request(governanceRequest.getServiceName());
             return Mono.error(new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE,
                 "instance isolated.", t));
           });
@@ -47,6 +47,8 @@ import com.huaweicloud.common.adapters.loadbalancer.RetryContext;
 import com.huaweicloud.common.adapters.web.FallbackClientHttpResponse;
 import com.huaweicloud.common.context.InvocationContext;
 import com.huaweicloud.common.context.InvocationContextHolder;
+import com.huaweicloud.governance.hedge.Hedge;
+import com.huaweicloud.governance.hedge.HedgeHandler;
 
 import io.github.resilience4j.decorators.Decorators;
 import io.github.resilience4j.decorators.Decorators.DecorateCheckedSupplier;
@@ -69,13 +71,17 @@ public class GovernanceRestTemplate extends RestTemplate {
 
   private final FaultInjectionHandler faultInjectionHandler;
 
+  private final HedgeHandler hedgeHandler;
+
   private final ClientRecoverPolicy<Object> clientRecoverPolicy;
 
   public GovernanceRestTemplate(RetryHandler retryHandler,
       FaultInjectionHandler faultInjectionHandler,
+      HedgeHandler hedgeHandler,
       ClientRecoverPolicy<Object> clientRecoverPolicy) {
     this.retryHandler = retryHandler;
     this.faultInjectionHandler = faultInjectionHandler;
+    this.hedgeHandler = hedgeHandler;
     this.clientRecoverPolicy = clientRecoverPolicy;
   }
 
@@ -133,7 +139,8 @@ public class GovernanceRestTemplate extends RestTemplate {
       return execution.execute();
     };
 
-    DecorateCheckedSupplier<ClientHttpResponse> dcs = Decorators.ofCheckedSupplier(next);
+    DecorateCheckedSupplier<ClientHttpResponse> dcs = Decorators.ofCheckedSupplier(
+        addHedge(next, governanceRequest, url, method, requestCallback));
 
     try {
       addRetry(dcs, governanceRequest);
@@ -176,6 +183,25 @@ public class GovernanceRestTemplate extends RestTemplate {
     return governanceRequest;
   }
 
+  private CheckedFunction0<ClientHttpResponse> addHedge(CheckedFunction0<ClientHttpResponse> next,
+      GovernanceRequest request, URI url, @Nullable HttpMethod method, @Nullable RequestCallback requestCallback) {
+    Hedge hedge = hedgeHandler.getActuator(request);
+    if (hedge == null) {
+      return next;
+    }
+    return () -> hedge.execute(attempt -> {
+      if (attempt == 0) {
+        return next.apply();
+      }
+      // hedged request is sent with a new request
+      ClientHttpRequest execution = createRequest(url, method);
+      if (requestCallback != null) {
+        requestCallback.doWithRequest(execution);
+      }
+      return execution.execute();
+    }, ClientHttpResponse::close);
+  }
+
   private void addRetry(DecorateCheckedSupplier<ClientHttpResponse> dcs, GovernanceRequest request) {
     Retry retry = retryHandler.getActuator(request);
     if (retry != null) {
@@ -21,7 +21,6 @@ import org.apache.servicecomb.governance.handler.InstanceIsolationHandler;
 import org.apache.servicecomb.governance.handler.ext.ClientRecoverPolicy;
 import org.apache.servicecomb.governance.marker.GovernanceRequest;
 import org.apache.servicecomb.governance.policy.CircuitBreakerPolicy;
-import org.apache.servicecomb.service.center.client.DiscoveryEvents.PullInstanceEvent;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.core.Ordered;
@@ -33,7 +32,7 @@ import org.springframework.http.client.ClientHttpResponse;
 import com.huaweicloud.common.adapters.loadbalancer.RetryContext;
 import com.huaweicloud.common.adapters.web.FallbackClientHttpResponse;
 import com.huaweicloud.common.context.InvocationContextHolder;
-import com.huaweicloud.common.event.EventManager;
+import com.huaweicloud.common.event.PullInstanceEventCoalescer;
 
 import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
 import io.github.resilience4j.circuitbreaker.CircuitBreaker;
@@ -50,10 +49,14 @@ public class IsolationClientHttpRequestInterceptor implements ClientHttpRequestI
 
   private final ClientRecoverPolicy<ClientHttpResponse> clientRecoverPolicy;
 
+  private final PullInstanceEventCoalescer pullInstanceEventCoalescer;
+
   public IsolationClientHttpRequestInterceptor(InstanceIsolationHandler instanceIsolationHandler,
-      ClientRecoverPolicy<ClientHttpResponse> clientRecoverPolicy) {
+      ClientRecoverPolicy<ClientHttpResponse> clientRecoverPolicy,
+      PullInstanceEventCoalescer pullInstanceEventCoalescer) {
     this.instanceIsolationHandler = instanceIsolationHandler;
     this.clientRecoverPolicy = clientRecoverPolicy;
+    this.pullInstanceEventCoalescer = pullInstanceEventCoalescer;
   }
 
   @Override
@@ -79,7 +82,7 @@ public class IsolationClientHttpRequestInterceptor implements ClientHttpRequestI
       if (e instanceof CallNotPermittedException) {
         // when instance isolated, request to pull instances.
         LOG.warn("instance isolated [{}]", governanceRequest.getInstanceId());
-        EventManager.post(new PullInstanceEvent());
+        pullInstanceEventCoalescer.request(governanceRequest.getServiceName());
         return new FallbackClientHttpResponse(503, "instance isolated");
       }
       if (clientRecoverPolicy != null) {
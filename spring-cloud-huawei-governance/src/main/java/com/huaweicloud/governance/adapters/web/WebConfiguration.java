@@ -37,7 +37,9 @@ import org.springframework.web.client.RestTemplate;
 
 import com.huaweicloud.common.configration.dynamic.GovernanceProperties;
 import com.huaweicloud.common.configration.dynamic.HttpClientProperties;
+import com.huaweicloud.common.event.PullInstanceEventCoalescer;
 import com.huaweicloud.governance.authentication.consumer.RSAConsumerTokenManager;
+import com.huaweicloud.governance.hedge.HedgeHandler;
 
 @Configuration
 @ConditionalOnClass(name = {"org.springframework.http.client.ClientHttpRequestInterceptor",
@@ -50,10 +52,11 @@ public class WebConfiguration {
   @Primary
   public RestTemplate retryableRestTemplate(RetryHandler retryHandler,
       FaultInjectionHandler faultInjectionHandler,
+      HedgeHandler hedgeHandler,
       @Autowired(required = false) ClientRecoverPolicy<Object> recoverPolicy,
       HttpClientProperties httpClientProperties) {
     GovernanceRestTemplate restTemplate = new GovernanceRestTemplate(retryHandler, faultInjectionHandler,
-        recoverPolicy);
+        hedgeHandler, recoverPolicy);
     restTemplate.setRequestFactory(getClientHttpRequestFactory(httpClientProperties));
     return restTemplate;
   }
@@ -70,8 +73,9 @@ public class WebConfiguration {
   @ConditionalOnProperty(value = "spring.cloud.servicecomb.restTemplate.isolation.enabled",
       havingValue = "true", matchIfMissing = true)
   public ClientHttpRequestInterceptor isolationClientHttpRequestInterceptor(InstanceIsolationHandler isolationHandler,
-      @Autowired(required = false) ClientRecoverPolicy<ClientHttpResponse> recoverPolicy) {
-    return new IsolationClientHttpRequestInterceptor(isolationHandler, recoverPolicy);
+      @Autowired(required = false) ClientRecoverPolicy<ClientHttpResponse> recoverPolicy,
+      PullInstanceEventCoalescer pullInstanceEventCoalescer) {
+    return new IsolationClientHttpRequestInterceptor(isolationHandler, recoverPolicy, pullInstanceEventCoalescer);
   }
 
   @Bean
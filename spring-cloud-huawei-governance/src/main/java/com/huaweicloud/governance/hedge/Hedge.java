@@ -0,0 +1,260 @@
+/*
+
+ * Copyright (C) 2020-2022 Huawei Technologies Co., Ltd. All rights reserved.
+
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.huaweicloud.governance.hedge;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+import org.slf4j.MDC;
+import org.springframework.util.ClassUtils;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import com.huaweicloud.common.adapters.loadbalancer.RetryContext;
+import com.huaweicloud.common.context.InvocationContext;
+import com.huaweicloud.common.context.InvocationContextHolder;
+
+import io.vavr.CheckedFunction1;
+
+/**
+ * Send hedged requests of one policy.
+ *
+ * All requests are executed in the bounded hedge threads and the caller thread waits for the first response, so
+ * that a slow request blocked in socket read does not delay the caller. Thread locals of the caller, invocation
+ * context, logging context and request attributes, are copied to the request threads, and hedged requests use a
+ * copy of invocation context excluding the instance of the first request. Responses received later are
+ * discarded. When hedge threads are all busy, the request is executed in the caller thread without hedging.
+ *
+ * Every call adds budget tokens and every hedged request costs one token, so that hedged requests are not
+ * more than the budget ratio of calls.
+ */
+public class Hedge {
+  private static final int SAMPLE_SIZE = 128;
+
+  private static final int MIN_SAMPLES = 16;
+
+  // tokens saved when there are no slow requests, hedged requests are limited after bursts of them.
+  private static final double MAX_TOKENS = 10;
+
+  // spring-web is optional
+  private static final boolean REQUEST_ATTRIBUTES_PRESENT = ClassUtils.isPresent(
+      "org.springframework.web.context.request.RequestContextHolder", Hedge.class.getClassLoader());
+
+  private final HedgePolicy policy;
+
+  private final ExecutorService executorService;
+
+  private final long delayInNanos;
+
+  // latency of recent successful requests
+  private final long[] samples = new long[SAMPLE_SIZE];
+
+  private int sampleCount;
+
+  private volatile long percentileDelayInNanos = -1;
+
+  private double tokens;
+
+  private static final class Attempt<T> {
+    final T result;
+
+    final Throwable error;
+
+    Attempt(T result, Throwable error) {
+      this.result = result;
+      this.error = error;
+    }
+  }
+
+  // thread locals of the caller thread
+  private static final class CallerContext {
+    final InvocationContext invocationContext = InvocationContextHolder.getOrCreateInvocationContext();
+
+    final Map<String, String> mdc = MDC.getCopyOfContextMap();
+
+    final Object requestAttributes = REQUEST_ATTRIBUTES_PRESENT ? RequestContextHolder.getRequestAttributes() : null;
+
+    void attach(InvocationContext context) {
+      InvocationContextHolder.setInvocationContext(context);
+      if (mdc != null) {
+        MDC.setContextMap(mdc);
+      }
+      if (requestAttributes != null) {
+        RequestContextHolder.setRequestAttributes((RequestAttributes) requestAttributes);
+      }
+    }
+
+    void detach() {
+      InvocationContextHolder.setInvocationContext(null);
+      MDC.clear();
+      if (requestAttributes != null) {
+        RequestContextHolder.resetRequestAttributes();
+      }
+    }
+  }
+
+  public Hedge(HedgePolicy policy, ExecutorService executorService) {
+    this.policy = policy;
+    this.executorService = executorService;
+    this.delayInNanos = Duration.parse(policy.getDelay()).toNanos();
+  }
+
+  /**
+   * @param function execute the request, argument is the attempt number, 0 is the first request
+   * @param discard release the response not used, e.g. close the connection
+   * @param <T> type of the response
+   * @return the first successful response
+   * @throws Throwable error of the last request failed, when all requests failed
+   */
+  public <T> T execute(CheckedFunction1<Integer, T> function, Consumer<T> discard) throws Throwable {
+    deposit();
+    if (policy.getMaxAttempts() <= 1) {
+      return function.apply(0);
+    }
+
+    CallerContext caller = new CallerContext();
+    BlockingQueue<Attempt<T>> attempts = new LinkedBlockingQueue<>();
+    AtomicBoolean responded = new AtomicBoolean(false);
+    List<Future<?>> futures = new ArrayList<>(policy.getMaxAttempts());
+    try {
+      futures.add(submit(function, discard, 0, caller, caller.invocationContext, attempts, responded));
+    } catch (RejectedExecutionException e) {
+      // hedge threads are all busy
+      return function.apply(0);
+    }
+
+    long delay = getDelayInNanos();
+    boolean hedging = true;
+    int finished = 0;
+    Throwable lastError = null;
+    try {
+      while (finished < futures.size()) {
+        Attempt<T> attempt = hedging ? attempts.poll(delay, TimeUnit.NANOSECONDS) : attempts.take();
+        if (attempt == null) {
+          hedge(function, discard, caller, attempts, responded, futures);
+          hedging = futures.size() < policy.getMaxAttempts() && tokensAvailable();
+          continue;
+        }
+        finished++;
+        if (attempt.error == null) {
+          return attempt.result;
+        }
+        lastError = attempt.error;
+      }
+      throw lastError;
+    } finally {
+      // requests not completed are discarded when finished
+      futures.forEach(future -> future.cancel(true));
+    }
+  }
+
+  private <T> void hedge(CheckedFunction1<Integer, T> function, Consumer<T> discard, CallerContext caller,
+      BlockingQueue<Attempt<T>> attempts, AtomicBoolean responded, List<Future<?>> futures) {
+    if (!acquire()) {
+      return;
+    }
+    try {
+      futures.add(submit(function, discard, futures.size(), caller, hedgeContext(caller.invocationContext),
+          attempts, responded));
+    } catch (RejectedExecutionException e) {
+      // hedge threads are all busy, try again after delay
+      release();
+    }
+  }
+
+  private <T> Future<?> submit(CheckedFunction1<Integer, T> function, Consumer<T> discard, int index,
+      CallerContext caller, InvocationContext context, BlockingQueue<Attempt<T>> attempts,
+      AtomicBoolean responded) {
+    return executorService.submit(() -> {
+      caller.attach(context);
+      long start = System.nanoTime();
+      try {
+        T result = function.apply(index);
+        if (responded.compareAndSet(false, true)) {
+          record(System.nanoTime() - start);
+          attempts.add(new Attempt<>(result, null));
+        } else {
+          discard.accept(result);
+        }
+      } catch (Throwable e) {
+        attempts.add(new Attempt<>(null, e));
+      } finally {
+        caller.detach();
+      }
+    });
+  }
+
+  private static InvocationContext hedgeContext(InvocationContext context) {
+    InvocationContext result = new InvocationContext();
+    result.putContext(context.getContext());
+    RetryContext retryContext = new RetryContext(0);
+    RetryContext first = context.getLocalContext(RetryContext.RETRY_CONTEXT);
+    if (first != null) {
+      retryContext.setExcludedServer(first.getLastServer());
+    }
+    result.putLocalContext(RetryContext.RETRY_CONTEXT, retryContext);
+    return result;
+  }
+  private long getDelayInNanos() {
+    long percentileDelay = percentileDelayInNanos;
+    return percentileDelay >= 0 ? percentileDelay : delayInNanos;
+  }
+
+  private synchronized void record(long latencyInNanos) {
+    samples[sampleCount % SAMPLE_SIZE] = latencyInNanos;
+    sampleCount++;
+    if (policy.getDelayPercentile() <= 0 || sampleCount < MIN_SAMPLES || sampleCount % MIN_SAMPLES != 0) {
+      return;
+    }
+    long[] sorted = Arrays.copyOf(samples, Math.min(sampleCount, SAMPLE_SIZE));
+    Arrays.sort(sorted);
+    percentileDelayInNanos = sorted[(int) (policy.getDelayPercentile() * (sorted.length - 1))];
+  }
+
+  private synchronized void deposit() {
+    tokens = Math.min(tokens + policy.getBudget(), MAX_TOKENS);
+  }
+
+  private synchronized boolean acquire() {
+    if (tokens < 1) {
+      return false;
+    }
+    tokens -= 1;
+    return true;
+  }
+
+  private synchronized boolean tokensAvailable() {
+    return tokens >= 1;
+  }
+
+  private synchronized void release() {
+    tokens = Math.min(tokens + 1, MAX_TOKENS);
+  }
+}
@@ -0,0 +1,81 @@
+/*
+
+ * Copyright (C) 2020-2022 Huawei Technologies Co., Ltd. All rights reserved.
+
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.huaweicloud.governance.hedge;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.servicecomb.governance.handler.AbstractGovernanceHandler;
+import org.apache.servicecomb.governance.handler.Disposable;
+import org.apache.servicecomb.governance.handler.DisposableHolder;
+import org.apache.servicecomb.governance.marker.GovernanceRequest;
+
+/**
+ * Create Hedge of the matched policy. Only idempotent requests are hedged.
+ */
+public class HedgeHandler extends AbstractGovernanceHandler<Hedge, HedgePolicy> {
+  private static final Set<String> IDEMPOTENT_METHODS = new HashSet<>(
+      Arrays.asList("GET", "HEAD", "OPTIONS", "PUT", "DELETE"));
+
+  // requests are executed in the caller thread without hedging when all hedge threads are busy
+  private static final int MAX_HEDGE_THREADS = 256;
+
+  private final HedgeProperties hedgeProperties;
+
+  private final AtomicInteger threadIndex = new AtomicInteger(0);
+
+  private final ExecutorService executorService = new ThreadPoolExecutor(0, MAX_HEDGE_THREADS,
+      60, TimeUnit.SECONDS, new SynchronousQueue<>(), r -> {
+    Thread thread = new Thread(r, "governance-hedge-" + threadIndex.getAndIncrement());
+    thread.setDaemon(true);
+    return thread;
+  });
+
+  public HedgeHandler(HedgeProperties hedgeProperties) {
+    this.hedgeProperties = hedgeProperties;
+  }
+
+  @Override
+  protected String createKey(GovernanceRequest governanceRequest, HedgePolicy policy) {
+    return HedgeProperties.MATCH_HEDGE_KEY + "." + policy.getName();
+  }
+
+  @Override
+  public HedgePolicy matchPolicy(GovernanceRequest governanceRequest) {
+    if (governanceRequest.getMethod() == null || !IDEMPOTENT_METHODS.contains(governanceRequest.getMethod())) {
+      return null;
+    }
+    return matchersManager.match(governanceRequest, hedgeProperties.getParsedEntity());
+  }
+
+  @Override
+  protected Disposable<Hedge> createProcessor(String key, GovernanceRequest governanceRequest, HedgePolicy policy) {
+    return new DisposableHolder<>(key, new Hedge(policy, executorService));
+  }
+
+  public void shutdown() {
+    executorService.shutdownNow();
+  }
+}
@@ -0,0 +1,108 @@
+/*
+
+ * Copyright (C) 2020-2022 Huawei Technologies Co., Ltd. All rights reserved.
+
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.huaweicloud.governance.hedge;
+
+import java.time.Duration;
+
+import org.apache.servicecomb.governance.policy.AbstractPolicy;
+
+/**
+ * Hedged requests. When the response is not received after delay, another request is sent to a different
+ * instance, and the first response is used.
+ */
+public class HedgePolicy extends AbstractPolicy {
+  public static final Duration DEFAULT_DELAY = Duration.ofMillis(100);
+
+  public static final double DEFAULT_DELAY_PERCENTILE = 0.95;
+
+  public static final int DEFAULT_MAX_ATTEMPTS = 2;
+
+  public static final double DEFAULT_BUDGET = 0.1;
+
+  // delay of hedged requests, used when delayPercentile is 0 or latency samples are not enough.
+  private String delay = DEFAULT_DELAY.toString();
+
+  // delay is the latency of this percentile of recent requests.
+  private double delayPercentile = DEFAULT_DELAY_PERCENTILE;
+
+  // max requests sent for one call, including the first one.
+  private int maxAttempts = DEFAULT_MAX_ATTEMPTS;
+
+  // max ratio of hedged requests to all calls.
+  private double budget = DEFAULT_BUDGET;
+
+  public String getDelay() {
+    return delay;
+  }
+
+  public void setDelay(String delay) {
+    this.delay = stringOfDuration(delay, DEFAULT_DELAY);
+  }
+
+  public double getDelayPercentile() {
+    return delayPercentile;
+  }
+
+  public void setDelayPercentile(double delayPercentile) {
+    this.delayPercentile = delayPercentile;
+  }
+
+  public int getMaxAttempts() {
+    return maxAttempts;
+  }
+
+  public void setMaxAttempts(int maxAttempts) {
+    this.maxAttempts = maxAttempts;
+  }
+
+  public double getBudget() {
+    return budget;
+  }
+
+  public void setBudget(double budget) {
+    this.budget = budget;
+  }
+
+  @Override
+  public boolean isValid() {
+    if (maxAttempts < 1) {
+      return false;
+    }
+    if (Duration.parse(delay).toMillis() < 0) {
+      return false;
+    }
+    if (delayPercentile < 0 || delayPercentile >= 1) {
+      return false;
+    }
+    if (budget < 0) {
+      return false;
+    }
+    return super.isValid();
+  }
+
+  @Override
+  public String toString() {
+    return "HedgePolicy{" +
+        "delay=" + delay +
+        ", delayPercentile=" + delayPercentile +
+        ", maxAttempts=" + maxAttempts +
+        ", budget=" + budget +
+        '}';
+  }
+}
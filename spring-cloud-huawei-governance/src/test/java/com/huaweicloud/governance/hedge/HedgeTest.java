@@ -0,0 +1,232 @@
+/*
+
+  * Copyright (C) 2020-2022 Huawei Technologies Co., Ltd. All rights reserved.
+
+  * Licensed under the Apache License, Version 2.0 (the "License");
+  * you may not use this file except in compliance with the License.
+  * You may obtain a copy of the License at
+  *
+  *     http://www.apache.org/licenses/LICENSE-2.0
+  *
+  * Unless required by applicable law or agreed to in writing, software
+  * distributed under the License is distributed on an "AS IS" BASIS,
+  * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  * See the License for the specific language governing permissions and
+  * limitations under the License.
+  */
+
+package com.huaweicloud.governance.hedge;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.slf4j.MDC;
+
+import com.huaweicloud.common.context.InvocationContext;
+import com.huaweicloud.common.context.InvocationContextHolder;
+
+public class HedgeTest {
+  private static HedgePolicy createPolicy(String delay, double budget) {
+    HedgePolicy policy = new HedgePolicy();
+    policy.setDelay(delay);
+    policy.setDelayPercentile(0);
+    policy.setMaxAttempts(2);
+    policy.setBudget(budget);
+    return policy;
+  }
+
+  private static String sleep(long millis, String result) {
+    try {
+      TimeUnit.MILLISECONDS.sleep(millis);
+      return result;
+    } catch (InterruptedException e) {
+      return "interrupted";
+    }
+  }
+
+  // responds "slow" after 3 seconds to the first request "0", and "fast" at once to others
+  private static ServerSocket startServer(ExecutorService executorService) throws IOException {
+    ServerSocket serverSocket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+    executorService.submit(() -> {
+      while (!serverSocket.isClosed()) {
+        Socket socket = serverSocket.accept();
+        executorService.submit(() -> {
+          try (Socket accepted = socket) {
+            String line = new BufferedReader(
+                new InputStreamReader(accepted.getInputStream(), StandardCharsets.UTF_8)).readLine();
+            String response = "0".equals(line) ? sleep(3000, "slow") : "fast";
+            accepted.getOutputStream().write((response + "\n").getBytes(StandardCharsets.UTF_8));
+          }
+          return null;
+        });
+      }
+      return null;
+    });
+    return serverSocket;
+  }
+
+  // socket read does not respond to interruption
+  private static String request(int port, int attempt) throws IOException {
+    try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), port)) {
+      socket.setSoTimeout(10000);
+      OutputStream output = socket.getOutputStream();
+      output.write((attempt + "\n").getBytes(StandardCharsets.UTF_8));
+      output.flush();
+      return new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8)).readLine();
+    }
+  }
+
+  @Test
+  public void testNotHedgedBeforeDelay() throws Throwable {
+    ExecutorService executorService = Executors.newCachedThreadPool();
+    InvocationContext context = new InvocationContext();
+    context.putContext("key", "value");
+    InvocationContextHolder.setInvocationContext(context);
+    MDC.put("traceId", "trace");
+    try {
+      Hedge hedge = new Hedge(createPolicy("500", 1), executorService);
+      List<Integer> attempts = new CopyOnWriteArrayList<>();
+      List<String> threadLocals = new CopyOnWriteArrayList<>();
+
+      String result = hedge.execute(attempt -> {
+        attempts.add(attempt);
+        threadLocals.add(InvocationContextHolder.getOrCreateInvocationContext().getContext("key"));
+        threadLocals.add(MDC.get("traceId"));
+        return sleep(10, "primary");
+      }, r -> {
+      });
+      TimeUnit.MILLISECONDS.sleep(600);
+
+      Assertions.assertEquals("primary", result);
+      Assertions.assertEquals(1, attempts.size());
+      // thread locals of the caller are copied to request thread
+      Assertions.assertEquals("value", threadLocals.get(0));
+      Assertions.assertEquals("trace", threadLocals.get(1));
+    } finally {
+      MDC.clear();
+      InvocationContextHolder.setInvocationContext(null);
+      executorService.shutdownNow();
+    }
+  }
+
+  @Test
+  public void testHedgedResponseWinsOverBlockingSocketRead() throws Throwable {
+    ExecutorService executorService = Executors.newCachedThreadPool();
+    ExecutorService serverExecutor = Executors.newCachedThreadPool();
+    ServerSocket serverSocket = startServer(serverExecutor);
+    try {
+      Hedge hedge = new Hedge(createPolicy("50", 1), executorService);
+      List<String> discarded = new CopyOnWriteArrayList<>();
+      int port = serverSocket.getLocalPort();
+
+      long begin = System.nanoTime();
+      String result = hedge.execute(attempt -> request(port, attempt), discarded::add);
+      long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - begin);
+
+      Assertions.assertEquals("fast", result);
+      Assertions.assertTrue(millis >= 50 && millis < 2000, "elapsed " + millis);
+      // the slow response received later is discarded
+      long deadline = System.currentTimeMillis() + 10000;
+      while (discarded.isEmpty() && System.currentTimeMillis() < deadline) {
+        TimeUnit.MILLISECONDS.sleep(10);
+      }
+      Assertions.assertEquals("slow", discarded.get(0));
+    } finally {
+      serverSocket.close();
+      serverExecutor.shutdownNow();
+      executorService.shutdownNow();
+    }
+  }
+
+  @Test
+  public void testFirstRequestWinsWhenHedgedRequestSlower() throws Throwable {
+    ExecutorService executorService = Executors.newCachedThreadPool();
+    try {
+      Hedge hedge = new Hedge(createPolicy("50", 1), executorService);
+
+      String result = hedge.execute(attempt -> attempt == 0 ? sleep(200, "primary") : sleep(5000, "hedge"),
+          r -> {
+          });
+
+      Assertions.assertEquals("primary", result);
+    } finally {
+      executorService.shutdownNow();
+    }
+  }
+
+  @Test
+  public void testHedgedRequestUsedWhenFirstRequestFailed() throws Throwable {
+    ExecutorService executorService = Executors.newCachedThreadPool();
+    try {
+      Hedge hedge = new Hedge(createPolicy("50", 1), executorService);
+
+      String result = hedge.execute(attempt -> {
+        if (attempt == 0) {
+          sleep(100, "primary");
+          throw new IllegalStateException("primary failed");
+        }
+        return sleep(200, "hedge");
+      }, r -> {
+      });
+
+      Assertions.assertEquals("hedge", result);
+    } finally {
+      executorService.shutdownNow();
+    }
+  }
+
+  @Test
+  public void testNoBudgetNoHedge() throws Throwable {
+    ExecutorService executorService = Executors.newCachedThreadPool();
+    try {
+      Hedge hedge = new Hedge(createPolicy("10", 0), executorService);
+      List<Integer> attempts = new CopyOnWriteArrayList<>();
+
+      String result = hedge.execute(attempt -> {
+        attempts.add(attempt);
+        return sleep(100, "primary");
+      }, r -> {
+      });
+
+      Assertions.assertEquals("primary", result);
+      Assertions.assertEquals(1, attempts.size());
+    } finally {
+      executorService.shutdownNow();
+    }
+  }
+
+  @Test
+  public void testHedgesLimitedByBudget() throws Throwable {
+    ExecutorService executorService = Executors.newCachedThreadPool();
+    try {
+      Hedge hedge = new Hedge(createPolicy("10", 0.5), executorService);
+      List<Integer> attempts = new CopyOnWriteArrayList<>();
+
+      for (int i = 0; i < 4; i++) {
+        hedge.execute(attempt -> {
+          attempts.add(attempt);
+          return attempt == 0 ? sleep(100, "primary") : "hedge";
+        }, r -> {
+        });
+      }
+
+      // every call adds 0.5 token, the 2nd and 4th calls are hedged
+      Assertions.assertEquals(2, attempts.stream().filter(attempt -> attempt == 1).count());
+    } finally {
+      executorService.shutdownNow();
+    }
+  }
+}
@@ -17,6 +17,7 @@
 package com.huaweicloud.router.client;
 
 import org.apache.servicecomb.router.RouterFilter;
+import org.apache.servicecomb.router.cache.RouterRuleCache;
 import org.apache.servicecomb.router.distribute.AbstractRouterDistributor;
 import org.apache.servicecomb.service.center.client.model.MicroserviceInstance;
 import org.springframework.boot.autoconfigure.AutoConfigureAfter;
@@ -28,8 +29,11 @@ import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.context.annotation.Configuration;
 
+import com.huaweicloud.common.configration.dynamic.LoadBalancerProperties;
 import com.huaweicloud.router.client.loadbalancer.CanaryServiceInstanceFilter;
+import com.huaweicloud.router.client.loadbalancer.SubsettingServiceInstanceFilter;
 import com.huaweicloud.router.client.loadbalancer.ZoneAwareServiceInstanceFilter;
+import com.huaweicloud.servicecomb.discovery.registry.ServiceCombRegistration;
 
 @Configuration
 @ComponentScan(basePackages = {"org.apache.servicecomb.router"})
@@ -43,8 +47,9 @@ public class RouterClientAutoConfiguration {
   @Bean
   @ConditionalOnMissingBean(CanaryServiceInstanceFilter.class)
   public CanaryServiceInstanceFilter canaryServiceInstanceFilter(
-      AbstractRouterDistributor<ServiceInstance, MicroserviceInstance> routerDistributor, RouterFilter routerFilter) {
-    return new CanaryServiceInstanceFilter(routerDistributor, routerFilter);
+      AbstractRouterDistributor<ServiceInstance, MicroserviceInstance> routerDistributor, RouterFilter routerFilter,
+      RouterRuleCache routerRuleCache) {
+    return new CanaryServiceInstanceFilter(routerDistributor, routerFilter, routerRuleCache);
   }
 
   @Bean
@@ -53,4 +58,11 @@ public class RouterClientAutoConfiguration {
   public ZoneAwareServiceInstanceFilter zoneAwareServiceInstanceFilter() {
     return new ZoneAwareServiceInstanceFilter();
   }
+
+  @Bean
+  @ConditionalOnMissingBean(SubsettingServiceInstanceFilter.class)
+  public SubsettingServiceInstanceFilter subsettingServiceInstanceFilter(
+      ServiceCombRegistration serviceCombRegistration, LoadBalancerProperties loadBalancerProperties) {
+    return new SubsettingServiceInstanceFilter(serviceCombRegistration, loadBalancerProperties);
+  }
 }
\ No newline at end of file
@@ -16,18 +16,172 @@
   */
 package com.huaweicloud.router.client;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import org.apache.servicecomb.router.cache.RouterRuleCache;
 import org.apache.servicecomb.router.distribute.AbstractRouterDistributor;
+import org.apache.servicecomb.router.model.PolicyRuleItem;
+import org.apache.servicecomb.router.model.RouteItem;
+import org.apache.servicecomb.router.model.ServiceInfoCache;
+import org.apache.servicecomb.router.model.TagItem;
+import org.apache.servicecomb.router.util.VersionCompareUtil;
 import org.apache.servicecomb.service.center.client.model.MicroserviceInstance;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.cloud.client.ServiceInstance;
 
+import com.huaweicloud.servicecomb.discovery.client.model.IndexedServiceInstances;
 import com.huaweicloud.servicecomb.discovery.client.model.ServiceCombServiceInstance;
 
+/**
+ * For instance lists of discovery, the latest version and the instances of each route of a rule are computed
+ * once for each list, so that choosing the instances of a request does not scan all instances. Results are the
+ * same as AbstractRouterDistributor.
+ */
 public class SpringCloudRouterDistributor extends
     AbstractRouterDistributor<ServiceInstance, MicroserviceInstance> {
+  private static final Object LATEST_VERSION_KEY = new Object();
+
+  private RouterRuleCache routerRuleCache;
+
   public SpringCloudRouterDistributor() {
     init(server -> ((ServiceCombServiceInstance) server).getMicroserviceInstance(),
         MicroserviceInstance::getVersion,
         MicroserviceInstance::getServiceName,
         MicroserviceInstance::getProperties);
   }
+
+  @Override
+  @Autowired
+  public void setRouterRuleCache(RouterRuleCache routerRuleCache) {
+    super.setRouterRuleCache(routerRuleCache);
+    this.routerRuleCache = routerRuleCache;
+  }
+
+  @Override
+  public List<ServiceInstance> distribute(String targetServiceName, List<ServiceInstance> list,
+      PolicyRuleItem invokeRule) {
+    if (!(list instanceof IndexedServiceInstances) || routerRuleCache == null) {
+      return super.distribute(targetServiceName, list, invokeRule);
+    }
+    IndexedServiceInstances instances = (IndexedServiceInstances) list;
+    initLatestVersion(targetServiceName, list);
+    TagItem latestVersionTag = routerRuleCache.getServiceInfoCacheMap().get(targetServiceName)
+        .getLatestVersionTag();
+    // may add a route of the latest version to the rule
+    invokeRule.check(latestVersionTag);
+
+    Map<TagItem, List<ServiceInstance>> distribution = instances.getDerived(
+        new DistributionKey(invokeRule, latestVersionTag.getVersion()),
+        i -> distribution(targetServiceName, i, invokeRule, latestVersionTag.getVersion()));
+    if (distribution.isEmpty()) {
+      return getLatestVersionList(list, targetServiceName);
+    }
+    TagItem targetTag = getFiltedServerTagItem(invokeRule, targetServiceName);
+    List<ServiceInstance> result = distribution.get(targetTag);
+    return result != null ? result : getLatestVersionList(list, targetServiceName);
+  }
+
+  // instances grouped by the route matching most tags, same as AbstractRouterDistributor
+  private static Map<TagItem, List<ServiceInstance>> distribution(String targetServiceName,
+      IndexedServiceInstances instances, PolicyRuleItem invokeRule, String latestVersion) {
+    Map<TagItem, List<ServiceInstance>> groups = new HashMap<>();
+    for (ServiceInstance instance : instances) {
+      MicroserviceInstance microserviceInstance = ((ServiceCombServiceInstance) instance).getMicroserviceInstance();
+      if (!targetServiceName.equals(microserviceInstance.getServiceName())) {
+        continue;
+      }
+      TagItem tagItem = new TagItem(microserviceInstance.getVersion(), microserviceInstance.getProperties());
+      TagItem targetTag = null;
+      int maxMatch = 0;
+      for (RouteItem route : invokeRule.getRoute()) {
+        if (route.getTagitem() == null) {
+          continue;
+        }
+        int match = route.getTagitem().matchNum(tagItem);
+        if (match > maxMatch) {
+          maxMatch = match;
+          targetTag = route.getTagitem();
+        }
+      }
+      if (invokeRule.isWeightLess() && microserviceInstance.getVersion().equals(latestVersion)) {
+        groups.computeIfAbsent(invokeRule.getRoute().get(invokeRule.getRoute().size() - 1).getTagitem(),
+            k -> new ArrayList<>()).add(instance);
+      }
+      if (targetTag != null) {
+        groups.computeIfAbsent(targetTag, k -> new ArrayList<>()).add(instance);
+      }
+    }
+    Map<TagItem, List<ServiceInstance>> result = new HashMap<>(groups.size() * 4 / 3 + 1);
+    groups.forEach((tag, group) -> result.put(tag, Collections.unmodifiableList(group)));
+    return result;
+  }
+
+  // use version index of discovery instead of scanning all instances
+  @Override
+  public void initLatestVersion(String serviceName, List<ServiceInstance> list) {
+    ServiceInfoCache serviceInfoCache = routerRuleCache == null ?
+        null : routerRuleCache.getServiceInfoCacheMap().get(serviceName);
+    if (!(list instanceof IndexedServiceInstances) || serviceInfoCache == null) {
+      super.initLatestVersion(serviceName, list);
+      return;
+    }
+    String latestVersion = ((IndexedServiceInstances) list).getDerived(LATEST_VERSION_KEY,
+        SpringCloudRouterDistributor::latestVersion);
+    serviceInfoCache.setLatestVersionTag(new TagItem(latestVersion));
+  }
+
+  private static String latestVersion(IndexedServiceInstances instances) {
+    String latestVersion = null;
+    for (String version : instances.getVersions()) {
+      if (latestVersion == null || VersionCompareUtil.compareVersion(latestVersion, version) == -1) {
+        latestVersion = version;
+      }
+    }
+    return latestVersion;
+  }
+
+  @Override
+  public List<ServiceInstance> getLatestVersionList(List<ServiceInstance> list, String targetServiceName) {
+    if (list instanceof IndexedServiceInstances && routerRuleCache != null) {
+      ServiceInfoCache serviceInfoCache = routerRuleCache.getServiceInfoCacheMap().get(targetServiceName);
+      if (serviceInfoCache != null && serviceInfoCache.getLatestVersionTag() != null) {
+        return ((IndexedServiceInstances) list).getByVersion(serviceInfoCache.getLatestVersionTag().getVersion());
+      }
+    }
+    return super.getLatestVersionList(list, targetServiceName);
+  }
+
+  // rule is compared by identity, routes may be added to the rule when checked
+  private static final class DistributionKey {
+    private final PolicyRuleItem rule;
+
+    private final int routes;
+
+    private final String latestVersion;
+
+    DistributionKey(PolicyRuleItem rule, String latestVersion) {
+      this.rule = rule;
+      this.routes = rule.getRoute().size();
+      this.latestVersion = latestVersion;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (!(o instanceof DistributionKey)) {
+        return false;
+      }
+      DistributionKey that = (DistributionKey) o;
+      return rule == that.rule && routes == that.routes && Objects.equals(latestVersion, that.latestVersion);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(System.identityHashCode(rule), routes, latestVersion);
+    }
+  }
 }
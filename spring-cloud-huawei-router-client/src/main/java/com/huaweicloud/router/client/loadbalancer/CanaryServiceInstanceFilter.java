@@ -17,12 +17,19 @@
 
 package com.huaweicloud.router.client.loadbalancer;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
 
 import org.apache.servicecomb.router.RouterFilter;
+import org.apache.servicecomb.router.cache.RouterRuleCache;
 import org.apache.servicecomb.router.distribute.AbstractRouterDistributor;
+import org.apache.servicecomb.router.model.Matcher;
+import org.apache.servicecomb.router.model.PolicyRuleItem;
+import org.apache.servicecomb.router.model.ServiceInfoCache;
 import org.apache.servicecomb.service.center.client.model.MicroserviceInstance;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -45,15 +52,22 @@ import com.huaweicloud.router.client.RouterConstant;
 public class CanaryServiceInstanceFilter implements ServiceInstanceFilter {
   private static final Logger LOGGER = LoggerFactory.getLogger(CanaryServiceInstanceFilter.class);
 
+  private static final String NO_RULES = "no-rules";
+
+  private static final int FULL_WEIGHT = 100;
+
   private final AbstractRouterDistributor<ServiceInstance, MicroserviceInstance> routerDistributor;
 
   private final RouterFilter routerFilter;
 
+  private final RouterRuleCache routerRuleCache;
+
   @Autowired
   public CanaryServiceInstanceFilter(AbstractRouterDistributor<ServiceInstance, MicroserviceInstance> routerDistributor,
-      RouterFilter routerFilter) {
+      RouterFilter routerFilter, RouterRuleCache routerRuleCache) {
     this.routerDistributor = routerDistributor;
     this.routerFilter = routerFilter;
+    this.routerRuleCache = routerRuleCache;
   }
 
   @Override
@@ -63,6 +77,14 @@ public class CanaryServiceInstanceFilter implements ServiceInstanceFilter {
       return instances;
     }
 
+    String targetServiceName = instances.get(0).getServiceId();
+    Map<String, String> canaryHeaders = canaryHeaders(request);
+    return routerFilter
+        .getFilteredListOfServers(instances, targetServiceName, canaryHeaders,
+            routerDistributor);
+  }
+
+  private Map<String, String> canaryHeaders(Request<?> request) {
     Map<String, String> canaryHeaders = new HashMap<>();
 
     // headers from outer request
@@ -74,7 +96,6 @@ public class CanaryServiceInstanceFilter implements ServiceInstanceFilter {
     // headers from invocation context
     canaryHeaders.putAll(invocationContext.getContext());
     // headers from current request
-    String targetServiceName = instances.get(0).getServiceId();
     Object context = request.getContext();
     if (context instanceof DefaultRequestContext) {
       Object clientRequest = ((DefaultRequestContext) context).getClientRequest();
@@ -94,9 +115,70 @@ public class CanaryServiceInstanceFilter implements ServiceInstanceFilter {
       LOGGER.warn("not implemented context {}.", context == null ? null : context.getClass());
     }
 
-    return routerFilter
-        .getFilteredListOfServers(instances, targetServiceName, canaryHeaders,
-            routerDistributor);
+    return canaryHeaders;
+  }
+
+  /**
+   * result is reused when rules of the target service are not changed and headers referenced by rules are
+   * the same. Rules distribute by weight can not be reused.
+   */
+  @Override
+  public Object cacheKey(ServiceInstanceListSupplier supplier, List<ServiceInstance> instances,
+      Request<?> request) {
+    if (CollectionUtils.isEmpty(instances)) {
+      return NO_RULES;
+    }
+    String targetServiceName = instances.get(0).getServiceId();
+    if (!routerRuleCache.doInit(targetServiceName)) {
+      return NO_RULES;
+    }
+    // rules cache is replaced when configuration changed
+    ServiceInfoCache rules = routerRuleCache.getServiceInfoCacheMap().get(targetServiceName);
+    if (rules == null || rules.getAllrule() == null) {
+      return null;
+    }
+    Set<String> headerNames = new TreeSet<>();
+    for (PolicyRuleItem rule : rules.getAllrule()) {
+      if (!isDeterministic(rule)) {
+        return null;
+      }
+      if (rule.getMatch() != null && rule.getMatch().getHeaders() != null) {
+        headerNames.addAll(rule.getMatch().getHeaders().keySet());
+      }
+    }
+    Map<String, String> canaryHeaders = canaryHeaders(request);
+    List<Object> key = new ArrayList<>(headerNames.size() + 1);
+    key.add(new IdentityKey(rules));
+    headerNames.forEach(name -> key.add(canaryHeaders.get(name)));
+    return key;
+  }
+
+  private static boolean isDeterministic(PolicyRuleItem rule) {
+    Matcher match = rule.getMatch();
+    if (match != null && (match.getSource() != null || match.getSourceTags() != null || match.getRefer() != null)) {
+      return false;
+    }
+    return rule.getRoute() != null && rule.getRoute().size() == 1
+        && Integer.valueOf(FULL_WEIGHT).equals(rule.getRoute().get(0).getWeight());
+  }
+
+  // rules object compared by identity
+  private static final class IdentityKey {
+    private final Object value;
+
+    IdentityKey(Object value) {
+      this.value = value;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      return o instanceof IdentityKey && ((IdentityKey) o).value == value;
+    }
+
+    @Override
+    public int hashCode() {
+      return System.identityHashCode(value);
+    }
   }
 
   @Override
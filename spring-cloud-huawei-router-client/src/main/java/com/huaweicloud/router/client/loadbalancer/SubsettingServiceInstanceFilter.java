@@ -0,0 +1,183 @@
+/*
+
+  * Copyright (C) 2020-2022 Huawei Technologies Co., Ltd. All rights reserved.
+
+  * Licensed under the Apache License, Version 2.0 (the "License");
+  * you may not use this file except in compliance with the License.
+  * You may obtain a copy of the License at
+  *
+  *     http://www.apache.org/licenses/LICENSE-2.0
+  *
+  * Unless required by applicable law or agreed to in writing, software
+  * distributed under the License is distributed on an "AS IS" BASIS,
+  * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  * See the License for the specific language governing permissions and
+  * limitations under the License.
+  */
+
+package com.huaweicloud.router.client.loadbalancer;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.servicecomb.service.center.client.model.DataCenterInfo;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.Request;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+
+import com.google.common.hash.Hashing;
+import com.huaweicloud.common.adapters.loadbalancer.ServiceInstanceFilter;
+import com.huaweicloud.common.configration.dynamic.LoadBalancerProperties;
+import com.huaweicloud.servicecomb.discovery.client.model.IndexedServiceInstances;
+import com.huaweicloud.servicecomb.discovery.client.model.ServiceCombServiceInstance;
+import com.huaweicloud.servicecomb.discovery.registry.ServiceCombRegistration;
+
+/**
+ * Deterministic subsetting. Each consumer connects to a stable subset of subsetSize provider instances of each
+ * zone, so that connections of each provider instance do not grow with the number of consumers.
+ *
+ * Instances of a zone are ranked by the hash of the client id and the instance, which is rendezvous hashing,
+ * and each consumer takes the top subsetSize of them. Adding or removing a provider instance only changes
+ * subsets that rank it in the top, and each of them changes by one instance, so deploying providers does not
+ * move connections of the whole fleet. The tradeoff is that instances are evenly used only on average, the
+ * number of consumers of an instance is binomial, not exactly the same as slicing a shuffled list, which moves
+ * nearly all subsets when the instance count changes. Subsets are taken within zones, so zone aware filter
+ * after this still has local instances, and a consumer connects to at most subsetSize instances of each zone.
+ * The client id of a consumer is the hash of its instance id.
+ */
+public class SubsettingServiceInstanceFilter implements ServiceInstanceFilter {
+  private final ServiceCombRegistration serviceCombRegistration;
+
+  private final LoadBalancerProperties loadBalancerProperties;
+
+  // subset of the latest instance list of each service
+  private final Map<String, Subset> subsets = new ConcurrentHashMap<>();
+
+  static final class Subset {
+    final List<ServiceInstance> instances;
+
+    final int subsetSize;
+
+    final List<ServiceInstance> result;
+
+    Subset(List<ServiceInstance> instances, int subsetSize, List<ServiceInstance> result) {
+      this.instances = instances;
+      this.subsetSize = subsetSize;
+      this.result = result;
+    }
+  }
+
+  public SubsettingServiceInstanceFilter(ServiceCombRegistration serviceCombRegistration,
+      LoadBalancerProperties loadBalancerProperties) {
+    this.serviceCombRegistration = serviceCombRegistration;
+    this.loadBalancerProperties = loadBalancerProperties;
+  }
+
+  @Override
+  public List<ServiceInstance> filter(ServiceInstanceListSupplier supplier, List<ServiceInstance> instances,
+      Request<?> request) {
+    int subsetSize = loadBalancerProperties.getSubsetSize();
+    String clientInstanceId = serviceCombRegistration.getInstanceId();
+    // each zone has no more than subset size instances when all instances do not
+    if (subsetSize <= 0 || instances.size() <= subsetSize || clientInstanceId == null) {
+      return instances;
+    }
+
+    String serviceId = instances.get(0).getServiceId();
+    Subset current = subsets.get(serviceId);
+    if (current != null && current.instances == instances && current.subsetSize == subsetSize) {
+      return current.result;
+    }
+    List<ServiceInstance> result = subset(instances, subsetSize, clientId(clientInstanceId));
+    if (instances instanceof IndexedServiceInstances) {
+      // keep indexed so that filters after this can query it
+      result = new IndexedServiceInstances(result);
+    }
+    current = new Subset(instances, subsetSize, result);
+    subsets.put(serviceId, current);
+    return current.result;
+  }
+
+  // result only depends on instances and subset size, client id does not change after registered
+  @Override
+  public Object cacheKey(ServiceInstanceListSupplier supplier, List<ServiceInstance> instances,
+      Request<?> request) {
+    if (serviceCombRegistration.getInstanceId() == null) {
+      return null;
+    }
+    return loadBalancerProperties.getSubsetSize();
+  }
+
+  @Override
+  public int getOrder() {
+    // before zone aware, outlier ejection and canary filters. Their results change for each request, and the
+    // subset of the full instance list is stable and computed only when instances changed. Subsets are taken
+    // within zones, so zone aware still prefers local instances.
+    return -5;
+  }
+
+  static long clientId(String instanceId) {
+    return Hashing.murmur3_32().hashString(instanceId, StandardCharsets.UTF_8).asInt() & 0xFFFFFFFFL;
+  }
+
+  static List<ServiceInstance> subset(List<ServiceInstance> instances, int subsetSize, long clientId) {
+    Map<String, List<ServiceInstance>> zones = new HashMap<>();
+    for (ServiceInstance instance : instances) {
+      zones.computeIfAbsent(zone(instance), key -> new ArrayList<>()).add(instance);
+    }
+    Set<ServiceInstance> selected = new HashSet<>();
+    for (List<ServiceInstance> zone : zones.values()) {
+      if (zone.size() <= subsetSize) {
+        selected.addAll(zone);
+        continue;
+      }
+      // order of instances is not stable between consumers, ties are broken by key
+      Comparator<ServiceInstance> comparator = Comparator.comparingLong(
+          (ServiceInstance instance) -> score(clientId, instance)).reversed()
+          .thenComparing(SubsettingServiceInstanceFilter::key);
+      zone.sort(comparator);
+      selected.addAll(zone.subList(0, subsetSize));
+    }
+
+    // keep order of the instance list
+    List<ServiceInstance> result = new ArrayList<>(selected.size());
+    for (ServiceInstance instance : instances) {
+      if (selected.contains(instance)) {
+        result.add(instance);
+      }
+    }
+    return Collections.unmodifiableList(result);
+  }
+
+  private static long score(long clientId, ServiceInstance instance) {
+    return Hashing.murmur3_128().newHasher().putLong(clientId).putString(key(instance), StandardCharsets.UTF_8)
+        .hash().asLong();
+  }
+
+  private static String zone(ServiceInstance instance) {
+    if (!(instance instanceof ServiceCombServiceInstance)) {
+      return "";
+    }
+    DataCenterInfo dataCenterInfo = ((ServiceCombServiceInstance) instance).getMicroserviceInstance()
+        .getDataCenterInfo();
+    if (dataCenterInfo == null) {
+      return "";
+    }
+    return dataCenterInfo.getRegion() + "/" + dataCenterInfo.getAvailableZone();
+  }
+
+  private static String key(ServiceInstance instance) {
+    if (instance.getInstanceId() != null) {
+      return instance.getInstanceId();
+    }
+    return instance.getHost() + ":" + instance.getPort();
+  }
+}
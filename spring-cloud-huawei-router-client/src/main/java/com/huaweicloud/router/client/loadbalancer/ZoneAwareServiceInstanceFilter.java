@@ -18,10 +18,15 @@
 package com.huaweicloud.router.client.loadbalancer;
 
 import com.huaweicloud.common.adapters.loadbalancer.ServiceInstanceFilter;
+import com.huaweicloud.common.adapters.loadbalancer.ServiceInstanceStatistics;
+import com.huaweicloud.common.configration.dynamic.LoadBalancerProperties;
+import com.huaweicloud.servicecomb.discovery.client.model.IndexedServiceInstances;
 import com.huaweicloud.servicecomb.discovery.client.model.ServiceCombServiceInstance;
 import com.huaweicloud.servicecomb.discovery.registry.ServiceCombRegistration;
 
+import org.apache.servicecomb.service.center.client.model.DataCenterInfo;
 import org.apache.servicecomb.service.center.client.model.MicroserviceInstance;
+import org.apache.servicecomb.service.center.client.model.MicroserviceInstanceStatus;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cloud.client.ServiceInstance;
@@ -31,53 +36,239 @@ import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
 
+/**
+ * Locality weighted zone aware filter. Instances are partitioned to same zone, same region and other regions.
+ * Traffic prefers the nearest partition in proportion to its capacity, and the rest spills to the next one.
+ *
+ * Capacity of a partition is 1 when the ratio of healthy instances, UP and not ejected by outlier detection,
+ * reaches zoneAwareMinHealthyRatio and decreases proportionally below it, and is reduced further when average
+ * outstanding requests of the partition exceeds zoneAwareMaxInFlightPerInstance. Healthy count is computed
+ * again only when instances ejected or returned, and outstanding requests at most every IN_FLIGHT_INTERVAL.
+ */
 public class ZoneAwareServiceInstanceFilter implements ServiceInstanceFilter {
+  private static final long IN_FLIGHT_INTERVAL = TimeUnit.MILLISECONDS.toNanos(100);
 
   private ServiceCombRegistration serviceCombRegistration;
 
+  private LoadBalancerProperties loadBalancerProperties;
+
+  private ServiceInstanceStatistics serviceInstanceStatistics;
+
   @Value("${spring.cloud.servicecomb.discovery.denyCrossZoneLoadBalancing:false}")
   private boolean denyCrossZoneLoadBalancing;
 
+  // partitions of the latest instance list of each service
+  private final Map<String, ZonePartitions> zonePartitions = new ConcurrentHashMap<>();
+
+  static final class ZonePartitions {
+    final List<ServiceInstance> instances;
+
+    // same zone, same region, other regions. Empty partitions are not included.
+    final List<Partition> partitions;
+
+    ZonePartitions(List<ServiceInstance> instances, List<Partition> partitions) {
+      this.instances = instances;
+      this.partitions = partitions;
+    }
+  }
+
+  static final class Partition {
+    final List<ServiceInstance> instances;
+
+    // instance list does not change, so UP instances are counted once
+    final int up;
+
+    volatile int healthy;
+
+    volatile long ejectionVersion = -1;
+
+    volatile long inFlight;
+
+    volatile long inFlightTime;
+
+    Partition(List<ServiceInstance> instances) {
+      this.instances = instances;
+      this.up = (int) instances.stream().filter(ZoneAwareServiceInstanceFilter::isUp).count();
+      this.healthy = up;
+    }
+  }
+
   @Autowired
   public void setServiceCombRegistration(ServiceCombRegistration serviceCombRegistration) {
     this.serviceCombRegistration = serviceCombRegistration;
   }
 
+  @Autowired
+  public void setLoadBalancerProperties(LoadBalancerProperties loadBalancerProperties) {
+    this.loadBalancerProperties = loadBalancerProperties;
+  }
+
+  @Autowired(required = false)
+  public void setServiceInstanceStatistics(ServiceInstanceStatistics serviceInstanceStatistics) {
+    this.serviceInstanceStatistics = serviceInstanceStatistics;
+  }
+
   @Override
   public List<ServiceInstance> filter(ServiceInstanceListSupplier supplier, List<ServiceInstance> instances,
       Request<?> request) {
-    MicroserviceInstance mySelf = serviceCombRegistration.getMicroserviceInstance();
-    return zoneAwareDiscoveryFilter(mySelf, instances);
+    List<Partition> partitions = getZonePartitions(instances).partitions;
+    if (partitions.isEmpty()) {
+      return denyCrossZoneLoadBalancing ? Collections.emptyList() : instances;
+    }
+    return choosePartition(partitions, ThreadLocalRandom.current().nextDouble());
+  }
+
+  // result only depends on instances when there is only one partition to choose. Otherwise the partition is
+  // chosen for each request, and results of filters after this are reused by the partition chosen.
+  @Override
+  public Object cacheKey(ServiceInstanceListSupplier supplier, List<ServiceInstance> instances,
+      Request<?> request) {
+    if (getZonePartitions(instances).partitions.size() > 1) {
+      return null;
+    }
+    return ZoneAwareServiceInstanceFilter.class;
   }
 
   @Override
   public int getOrder() {
-    return -2;
-  }
-
-  private List<ServiceInstance> zoneAwareDiscoveryFilter(MicroserviceInstance mySelf, List<ServiceInstance> instances) {
-    List<ServiceInstance> regionAndAZMatchList = new ArrayList<>();
-    List<ServiceInstance> regionMatchList = new ArrayList<>();
-    instances.forEach(serviceInstance -> {
-      ServiceCombServiceInstance instance = (ServiceCombServiceInstance) serviceInstance;
-      if (regionAndAZMatch(mySelf, instance.getMicroserviceInstance())) {
-        regionAndAZMatchList.add(serviceInstance);
-      } else if (regionMatch(mySelf, instance.getMicroserviceInstance())) {
-        regionMatchList.add(serviceInstance);
-      }
-    });
-    if (!regionAndAZMatchList.isEmpty()) {
-      return regionAndAZMatchList;
+    // before outlier ejection filter, so that ejected instances count as unhealthy and zones spill over
+    return -4;
+  }
+
+  private ZonePartitions getZonePartitions(List<ServiceInstance> instances) {
+    if (instances.isEmpty()) {
+      return new ZonePartitions(instances, Collections.emptyList());
     }
-    if (!regionMatchList.isEmpty()) {
-      return regionMatchList;
+    String serviceId = instances.get(0).getServiceId();
+    ZonePartitions current = zonePartitions.get(serviceId);
+    if (current != null && current.instances == instances) {
+      return current;
     }
+    // instance list is replaced when instances changed
+    current = createZonePartitions(serviceCombRegistration.getMicroserviceInstance(), instances);
+    zonePartitions.put(serviceId, current);
+    return current;
+  }
+
+  ZonePartitions createZonePartitions(MicroserviceInstance mySelf, List<ServiceInstance> instances) {
+    IndexedServiceInstances indexed = instances instanceof IndexedServiceInstances ?
+        (IndexedServiceInstances) instances : new IndexedServiceInstances(instances);
+    List<Partition> partitions = new ArrayList<>(3);
+    DataCenterInfo dataCenterInfo = mySelf.getDataCenterInfo();
+    if (dataCenterInfo == null) {
+      if (!denyCrossZoneLoadBalancing) {
+        partitions.add(new Partition(indexed));
+      }
+      return new ZonePartitions(instances, partitions);
+    }
+
+    // subsets of indexes are indexed too, so that filters after this can query them
+    List<ServiceInstance> sameZone = indexed.getByZone(dataCenterInfo.getRegion(),
+        dataCenterInfo.getAvailableZone());
+    List<ServiceInstance> sameRegion = indexed.getByRegion(dataCenterInfo.getRegion());
+    addPartition(partitions, sameZone);
+    addPartition(partitions, sameRegion.size() == sameZone.size() ? Collections.emptyList() :
+        new IndexedServiceInstances(exclude(sameRegion, instance -> regionAndAZMatch(mySelf, instance))));
     if (!denyCrossZoneLoadBalancing) {
-      return instances;
-    } else {
-      return Collections.emptyList();
+      addPartition(partitions, sameRegion.size() == indexed.size() ? Collections.emptyList() :
+          new IndexedServiceInstances(exclude(indexed, instance -> regionMatch(mySelf, instance))));
+    }
+    return new ZonePartitions(instances, partitions);
+  }
+
+  private static void addPartition(List<Partition> partitions, List<ServiceInstance> instances) {
+    if (!instances.isEmpty()) {
+      partitions.add(new Partition(instances));
+    }
+  }
+
+  private static List<ServiceInstance> exclude(List<ServiceInstance> instances,
+      Predicate<MicroserviceInstance> predicate) {
+    List<ServiceInstance> result = new ArrayList<>();
+    for (ServiceInstance instance : instances) {
+      if (!predicate.test(((ServiceCombServiceInstance) instance).getMicroserviceInstance())) {
+        result.add(instance);
+      }
+    }
+    return result;
+  }
+
+  List<ServiceInstance> choosePartition(List<Partition> partitions, double value) {
+    double random = value;
+    double remaining = 1;
+    for (int i = 0; i < partitions.size() - 1; i++) {
+      Partition partition = partitions.get(i);
+      double share = remaining * capacity(partition);
+      if (random < share) {
+        return partition.instances;
+      }
+      random -= share;
+      remaining -= share;
     }
+    // the last partition takes all traffic spilled
+    return partitions.get(partitions.size() - 1).instances;
+  }
+
+  private double capacity(Partition partition) {
+    double capacity = 1;
+    double minHealthyRatio = loadBalancerProperties.getZoneAwareMinHealthyRatio();
+    double healthyRatio = (double) healthy(partition) / partition.instances.size();
+    if (minHealthyRatio > 0 && healthyRatio < minHealthyRatio) {
+      capacity = healthyRatio / minHealthyRatio;
+    }
+    int maxInFlight = loadBalancerProperties.getZoneAwareMaxInFlightPerInstance();
+    if (maxInFlight > 0 && serviceInstanceStatistics != null) {
+      double averageInFlight = (double) inFlight(partition) / partition.instances.size();
+      if (averageInFlight > maxInFlight) {
+        capacity = capacity * maxInFlight / averageInFlight;
+      }
+    }
+    return capacity;
+  }
+
+  private int healthy(Partition partition) {
+    if (serviceInstanceStatistics == null || !loadBalancerProperties.getOutlierDetection().isEnabled()) {
+      return partition.up;
+    }
+    long version = serviceInstanceStatistics.getEjectionVersion();
+    if (partition.ejectionVersion != version) {
+      int healthy = partition.up;
+      if (serviceInstanceStatistics.hasEjected()) {
+        healthy = 0;
+        for (ServiceInstance instance : partition.instances) {
+          if (isUp(instance) && !serviceInstanceStatistics.isEjected(instance)) {
+            healthy++;
+          }
+        }
+      }
+      partition.healthy = healthy;
+      partition.ejectionVersion = version;
+    }
+    return partition.healthy;
+  }
+
+  private long inFlight(Partition partition) {
+    long now = System.nanoTime();
+    if (now - partition.inFlightTime > IN_FLIGHT_INTERVAL) {
+      long inFlight = 0;
+      for (ServiceInstance instance : partition.instances) {
+        inFlight += serviceInstanceStatistics.get(instance).getOutstandingRequests();
+      }
+      partition.inFlight = inFlight;
+      partition.inFlightTime = now;
+    }
+    return partition.inFlight;
+  }
+
+  private static boolean isUp(ServiceInstance instance) {
+    return MicroserviceInstanceStatus.UP.equals(
+        ((ServiceCombServiceInstance) instance).getMicroserviceInstance().getStatus());
   }
 
   private boolean regionAndAZMatch(MicroserviceInstance myself, MicroserviceInstance target) {
@@ -89,8 +280,9 @@ public class ZoneAwareServiceInstanceFilter implements ServiceInstanceFilter {
   }
 
   private boolean regionMatch(MicroserviceInstance myself, MicroserviceInstance target) {
-    if (target.getDataCenterInfo() != null) {
-      return myself.getDataCenterInfo().getRegion().equals(target.getDataCenterInfo().getRegion());
+    DataCenterInfo dataCenterInfo = myself.getDataCenterInfo();
+    if (dataCenterInfo != null && target.getDataCenterInfo() != null) {
+      return dataCenterInfo.getRegion().equals(target.getDataCenterInfo().getRegion());
     }
     return false;
   }
@@ -0,0 +1,132 @@
+/*
+
+ * Copyright (C) 2020-2022 Huawei Technologies Co., Ltd. All rights reserved.
+
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.huaweicloud.router.client;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.servicecomb.router.cache.RouterRuleCache;
+import org.apache.servicecomb.router.model.PolicyRuleItem;
+import org.apache.servicecomb.router.model.RouteItem;
+import org.apache.servicecomb.router.model.ServiceInfoCache;
+import org.apache.servicecomb.service.center.client.model.Microservice;
+import org.apache.servicecomb.service.center.client.model.MicroserviceInstance;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.mock.env.MockEnvironment;
+
+import com.huaweicloud.servicecomb.discovery.client.model.IndexedServiceInstances;
+import com.huaweicloud.servicecomb.discovery.client.model.ServiceCombServiceInstance;
+
+public class SpringCloudRouterDistributorTest {
+  private static final String SERVICE = "provider";
+
+  private static List<ServiceInstance> instances() {
+    Microservice microservice = new Microservice(SERVICE);
+    List<ServiceInstance> instances = new ArrayList<>();
+    for (int i = 0; i < 6; i++) {
+      MicroserviceInstance instance = new MicroserviceInstance();
+      instance.setMicroservice(microservice);
+      instance.setInstanceId("instance-" + i);
+      instance.setVersion(i < 3 ? "1.0.0" : "2.0.0");
+      instance.setEndpoints(Collections.singletonList("rest://127.0.0.1:" + (8080 + i)));
+      Map<String, String> properties = new HashMap<>();
+      properties.put("group", i % 2 == 0 ? "blue" : "green");
+      instance.setProperties(properties);
+      instances.add(new ServiceCombServiceInstance(instance));
+    }
+    return instances;
+  }
+
+  private static RouteItem route(int weight, String key, String value) {
+    RouteItem route = new RouteItem();
+    route.setWeight(weight);
+    route.setTags(Collections.singletonMap(key, value));
+    return route;
+  }
+
+  private static PolicyRuleItem rule(RouteItem... routes) {
+    PolicyRuleItem rule = new PolicyRuleItem();
+    rule.setPrecedence(1);
+    List<RouteItem> items = new ArrayList<>();
+    Collections.addAll(items, routes);
+    rule.setRoute(items);
+    return rule;
+  }
+
+  private static SpringCloudRouterDistributor distributor(PolicyRuleItem rule) {
+    RouterRuleCache routerRuleCache = new RouterRuleCache(new MockEnvironment());
+    routerRuleCache.getServiceInfoCacheMap().put(SERVICE, new ServiceInfoCache(Collections.singletonList(rule)));
+    SpringCloudRouterDistributor distributor = new SpringCloudRouterDistributor();
+    distributor.setRouterRuleCache(routerRuleCache);
+    return distributor;
+  }
+
+  private static void assertSameAsScanning(PolicyRuleItem indexedRule, PolicyRuleItem scannedRule) {
+    List<ServiceInstance> instances = instances();
+    IndexedServiceInstances indexed = new IndexedServiceInstances(instances);
+    SpringCloudRouterDistributor indexedDistributor = distributor(indexedRule);
+    SpringCloudRouterDistributor scannedDistributor = distributor(scannedRule);
+    for (int i = 0; i < 20; i++) {
+      Assertions.assertEquals(
+          new HashSet<>(scannedDistributor.distribute(SERVICE, new ArrayList<>(instances), scannedRule)),
+          new HashSet<>(indexedDistributor.distribute(SERVICE, indexed, indexedRule)));
+    }
+  }
+
+  @Test
+  public void test_full_weight_route() {
+    assertSameAsScanning(rule(route(100, "version", "1.0.0")), rule(route(100, "version", "1.0.0")));
+    assertSameAsScanning(rule(route(100, "group", "blue")), rule(route(100, "group", "blue")));
+  }
+
+  @Test
+  public void test_weighted_routes() {
+    assertSameAsScanning(rule(route(20, "version", "1.0.0"), route(80, "group", "green")),
+        rule(route(20, "version", "1.0.0"), route(80, "group", "green")));
+  }
+
+  @Test
+  public void test_weight_less_routes_latest_version() {
+    assertSameAsScanning(rule(route(30, "group", "blue")), rule(route(30, "group", "blue")));
+  }
+
+  @Test
+  public void test_no_route_matched_latest_version() {
+    PolicyRuleItem rule = rule(route(100, "version", "3.0.0"));
+    IndexedServiceInstances indexed = new IndexedServiceInstances(instances());
+    List<ServiceInstance> result = distributor(rule).distribute(SERVICE, indexed, rule);
+    Assertions.assertEquals(3, result.size());
+    result.forEach(instance -> Assertions.assertEquals("2.0.0",
+        ((ServiceCombServiceInstance) instance).getMicroserviceInstance().getVersion()));
+  }
+
+  @Test
+  public void test_distribution_computed_once() {
+    PolicyRuleItem rule = rule(route(100, "group", "blue"));
+    SpringCloudRouterDistributor distributor = distributor(rule);
+    IndexedServiceInstances indexed = new IndexedServiceInstances(instances());
+    Assertions.assertSame(distributor.distribute(SERVICE, indexed, rule),
+        distributor.distribute(SERVICE, indexed, rule));
+  }
+}
@@ -0,0 +1,127 @@
+/*
+
+ * Copyright (C) 2020-2022 Huawei Technologies Co., Ltd. All rights reserved.
+
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.huaweicloud.router.client.loadbalancer;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.apache.servicecomb.service.center.client.model.DataCenterInfo;
+import org.apache.servicecomb.service.center.client.model.Microservice;
+import org.apache.servicecomb.service.center.client.model.MicroserviceInstance;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+
+import com.huaweicloud.servicecomb.discovery.client.model.ServiceCombServiceInstance;
+
+public class SubsettingServiceInstanceFilterTest {
+  private static List<ServiceInstance> instances(int count) {
+    List<ServiceInstance> instances = new ArrayList<>();
+    for (int i = 0; i < count; i++) {
+      instances.add(new DefaultServiceInstance("id" + i, "test", "10.0.0." + i, 8080, false));
+    }
+    return instances;
+  }
+
+  @Test
+  public void test_subset_size_and_stable() {
+    List<ServiceInstance> instances = instances(10);
+    List<ServiceInstance> subset = SubsettingServiceInstanceFilter.subset(instances, 3, 12345);
+    Assertions.assertEquals(3, subset.size());
+    Assertions.assertEquals(3, new HashSet<>(subset).size());
+    Assertions.assertTrue(instances.containsAll(subset));
+
+    // order of instances of each consumer does not matter
+    List<ServiceInstance> reversed = new ArrayList<>(instances);
+    Collections.reverse(reversed);
+    Assertions.assertEquals(new HashSet<>(subset),
+        new HashSet<>(SubsettingServiceInstanceFilter.subset(reversed, 3, 12345)));
+  }
+
+  @Test
+  public void test_subsets_stable_when_instances_change() {
+    List<ServiceInstance> instances = instances(20);
+    List<ServiceInstance> added = new ArrayList<>(instances);
+    added.add(new DefaultServiceInstance("id20", "test", "10.0.0.20", 8080, false));
+    int changed = 0;
+    for (long clientId = 0; clientId < 100; clientId++) {
+      List<ServiceInstance> subset = SubsettingServiceInstanceFilter.subset(instances, 5, clientId);
+      Set<ServiceInstance> after = new HashSet<>(SubsettingServiceInstanceFilter.subset(added, 5, clientId));
+      after.removeAll(subset);
+      // at most the new instance replaces one
+      Assertions.assertTrue(after.isEmpty() || after.equals(Collections.singleton(added.get(20))));
+      changed += after.size();
+
+      // removing an instance not in the subset changes nothing
+      List<ServiceInstance> removed = new ArrayList<>(instances);
+      removed.remove(instances.stream().filter(instance -> !subset.contains(instance)).findFirst().get());
+      Assertions.assertEquals(subset, SubsettingServiceInstanceFilter.subset(removed, 5, clientId));
+    }
+    // about 5 / 21 of clients
+    Assertions.assertTrue(changed > 0 && changed < 50, "changed " + changed);
+  }
+
+  @Test
+  public void test_instances_used_by_clients() {
+    List<ServiceInstance> instances = instances(10);
+    Map<ServiceInstance, Integer> connections = new HashMap<>();
+    for (long clientId = 0; clientId < 1000; clientId++) {
+      SubsettingServiceInstanceFilter.subset(instances, 3, SubsettingServiceInstanceFilter.clientId("c" + clientId))
+          .forEach(instance -> connections.merge(instance, 1, Integer::sum));
+    }
+    // 300 on average
+    int min = Collections.min(connections.values());
+    int max = Collections.max(connections.values());
+    Assertions.assertEquals(10, connections.size());
+    Assertions.assertTrue(min > 220 && max < 380, "min " + min + ", max " + max);
+  }
+
+  @Test
+  public void test_subset_within_zones() {
+    List<ServiceInstance> instances = new ArrayList<>();
+    for (int i = 0; i < 12; i++) {
+      MicroserviceInstance instance = new MicroserviceInstance();
+      instance.setMicroservice(new Microservice("test"));
+      instance.setInstanceId("id" + i);
+      instance.setEndpoints(Collections.singletonList("rest://10.0.0." + i + ":8080"));
+      DataCenterInfo dataCenterInfo = new DataCenterInfo();
+      dataCenterInfo.setName("dc");
+      dataCenterInfo.setRegion("r");
+      dataCenterInfo.setAvailableZone(i < 6 ? "z1" : "z2");
+      instance.setDataCenterInfo(dataCenterInfo);
+      instances.add(new ServiceCombServiceInstance(instance));
+    }
+    List<ServiceInstance> subset = SubsettingServiceInstanceFilter.subset(instances, 2, 12345);
+    Assertions.assertEquals(4, subset.size());
+    Assertions.assertEquals(2, subset.stream().filter(instance -> instances.indexOf(instance) < 6).count());
+  }
+
+  @Test
+  public void test_client_id_from_instance_id() {
+    long clientId = SubsettingServiceInstanceFilter.clientId("instance-1");
+    Assertions.assertEquals(clientId, SubsettingServiceInstanceFilter.clientId("instance-1"));
+    Assertions.assertNotEquals(clientId, SubsettingServiceInstanceFilter.clientId("instance-2"));
+    Assertions.assertTrue(clientId >= 0);
+  }
+}
@@ -0,0 +1,193 @@
+/*
+
+ * Copyright (C) 2020-2022 Huawei Technologies Co., Ltd. All rights reserved.
+
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.huaweicloud.router.client.loadbalancer;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.servicecomb.service.center.client.model.DataCenterInfo;
+import org.apache.servicecomb.service.center.client.model.Microservice;
+import org.apache.servicecomb.service.center.client.model.MicroserviceInstance;
+import org.apache.servicecomb.service.center.client.model.MicroserviceInstanceStatus;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.client.ServiceInstance;
+
+import com.huaweicloud.common.adapters.loadbalancer.ServiceInstanceStatistics;
+import com.huaweicloud.common.configration.dynamic.LoadBalancerProperties;
+import com.huaweicloud.router.client.loadbalancer.ZoneAwareServiceInstanceFilter.Partition;
+import com.huaweicloud.router.client.loadbalancer.ZoneAwareServiceInstanceFilter.ZonePartitions;
+import com.huaweicloud.servicecomb.discovery.client.model.IndexedServiceInstances;
+import com.huaweicloud.servicecomb.discovery.client.model.ServiceCombServiceInstance;
+
+public class ZoneAwareServiceInstanceFilterTest {
+  private static final Microservice MICROSERVICE = new Microservice("provider");
+
+  private static final int STEPS = 1000;
+
+  private LoadBalancerProperties loadBalancerProperties;
+
+  private ServiceInstanceStatistics statistics;
+
+  private ZoneAwareServiceInstanceFilter filter;
+
+  private void init() {
+    loadBalancerProperties = new LoadBalancerProperties();
+    statistics = new ServiceInstanceStatistics(loadBalancerProperties);
+    filter = new ZoneAwareServiceInstanceFilter();
+    filter.setLoadBalancerProperties(loadBalancerProperties);
+    filter.setServiceInstanceStatistics(statistics);
+  }
+
+  private static MicroserviceInstance microserviceInstance(String id, String region, String zone) {
+    MicroserviceInstance instance = new MicroserviceInstance();
+    instance.setMicroservice(MICROSERVICE);
+    instance.setInstanceId(id);
+    instance.setStatus(MicroserviceInstanceStatus.UP);
+    instance.setEndpoints(Collections.singletonList("rest://127.0.0.1:8080"));
+    if (region != null) {
+      DataCenterInfo dataCenterInfo = new DataCenterInfo();
+      dataCenterInfo.setName("dc");
+      dataCenterInfo.setRegion(region);
+      dataCenterInfo.setAvailableZone(zone);
+      instance.setDataCenterInfo(dataCenterInfo);
+    }
+    return instance;
+  }
+
+  private static void add(List<ServiceInstance> instances, int count, String region, String zone) {
+    for (int i = 0; i < count; i++) {
+      instances.add(new ServiceCombServiceInstance(
+          microserviceInstance(region + "-" + zone + "-" + i + "-" + instances.size(), region, zone)));
+    }
+  }
+
+  private static MicroserviceInstance mySelf() {
+    return microserviceInstance("myself", "r1", "az1");
+  }
+
+  // share of each partition, by choosing with evenly distributed random numbers
+  private double[] shares(List<Partition> partitions) {
+    double[] shares = new double[partitions.size()];
+    for (int i = 0; i < STEPS; i++) {
+      List<ServiceInstance> chosen = filter.choosePartition(partitions, (i + 0.5) / STEPS);
+      for (int p = 0; p < partitions.size(); p++) {
+        if (partitions.get(p).instances == chosen) {
+          shares[p] += 1.0 / STEPS;
+        }
+      }
+    }
+    return shares;
+  }
+
+  @Test
+  public void test_partitions_by_zone_and_region() {
+    init();
+    List<ServiceInstance> instances = new ArrayList<>();
+    add(instances, 2, "r1", "az1");
+    add(instances, 3, "r1", "az2");
+    add(instances, 4, "r2", "az1");
+    instances.add(new ServiceCombServiceInstance(microserviceInstance("no-dc", null, null)));
+
+    ZonePartitions zonePartitions = filter.createZonePartitions(mySelf(), new IndexedServiceInstances(instances));
+    Assertions.assertEquals(3, zonePartitions.partitions.size());
+    Assertions.assertEquals(2, zonePartitions.partitions.get(0).instances.size());
+    Assertions.assertEquals(3, zonePartitions.partitions.get(1).instances.size());
+    Assertions.assertEquals(5, zonePartitions.partitions.get(2).instances.size());
+    zonePartitions.partitions.forEach(partition ->
+        Assertions.assertTrue(partition.instances instanceof IndexedServiceInstances));
+  }
+
+  @Test
+  public void test_all_traffic_to_healthy_zone() {
+    init();
+    List<ServiceInstance> instances = new ArrayList<>();
+    add(instances, 4, "r1", "az1");
+    add(instances, 4, "r1", "az2");
+
+    double[] shares = shares(filter.createZonePartitions(mySelf(), instances).partitions);
+    Assertions.assertEquals(1, shares[0], 0.001);
+    Assertions.assertEquals(0, shares[1], 0.001);
+  }
+
+  @Test
+  public void test_spill_over_by_healthy_ratio() {
+    init();
+    loadBalancerProperties.setZoneAwareMinHealthyRatio(0.8);
+    List<ServiceInstance> instances = new ArrayList<>();
+    add(instances, 10, "r1", "az1");
+    add(instances, 10, "r1", "az2");
+    add(instances, 10, "r2", "az1");
+    for (int i = 0; i < 6; i++) {
+      ((ServiceCombServiceInstance) instances.get(i)).getMicroserviceInstance()
+          .setStatus(MicroserviceInstanceStatus.DOWN);
+    }
+    for (int i = 10; i < 12; i++) {
+      ((ServiceCombServiceInstance) instances.get(i)).getMicroserviceInstance()
+          .setStatus(MicroserviceInstanceStatus.DOWN);
+    }
+
+    // same zone 0.4 / 0.8 = 0.5, same region takes 0.5 of the rest, others take the rest
+    double[] shares = shares(filter.createZonePartitions(mySelf(), instances).partitions);
+    Assertions.assertEquals(0.5, shares[0], 0.002);
+    Assertions.assertEquals(0.5, shares[1], 0.002);
+    Assertions.assertEquals(0, shares[2], 0.002);
+  }
+
+  @Test
+  public void test_ejected_instances_are_unhealthy() {
+    init();
+    loadBalancerProperties.setZoneAwareMinHealthyRatio(0.8);
+    loadBalancerProperties.getOutlierDetection().setEnabled(true);
+    List<ServiceInstance> instances = new ArrayList<>();
+    add(instances, 4, "r1", "az1");
+    add(instances, 4, "r1", "az2");
+    List<Partition> partitions = filter.createZonePartitions(mySelf(), instances).partitions;
+    Assertions.assertEquals(1, shares(partitions)[0], 0.001);
+
+    for (int i = 0; i < 5; i++) {
+      statistics.recordResult(instances.get(0), false);
+      statistics.recordResult(instances.get(1), false);
+    }
+    Assertions.assertTrue(statistics.isEjected(instances.get(0)));
+
+    // 0.5 / 0.8 of traffic stays in same zone
+    double[] shares = shares(partitions);
+    Assertions.assertEquals(0.625, shares[0], 0.002);
+    Assertions.assertEquals(0.375, shares[1], 0.002);
+  }
+
+  @Test
+  public void test_spill_over_by_in_flight() {
+    init();
+    loadBalancerProperties.setZoneAwareMaxInFlightPerInstance(2);
+    List<ServiceInstance> instances = new ArrayList<>();
+    add(instances, 2, "r1", "az1");
+    add(instances, 2, "r1", "az2");
+    for (int i = 0; i < 4; i++) {
+      statistics.get(instances.get(0)).requestStarted();
+      statistics.get(instances.get(1)).requestStarted();
+    }
+
+    // average 4 in flight of max 2
+    double[] shares = shares(filter.createZonePartitions(mySelf(), instances).partitions);
+    Assertions.assertEquals(0.5, shares[0], 0.002);
+    Assertions.assertEquals(0.5, shares[1], 0.002);
+  }
+}